@@ -1,11 +1,23 @@
 package org.ilot.crawler;
 
 import org.ilot.crawler.algorithms.GraphAlgorithm;
+import org.ilot.crawler.algorithms.concurrent.AbstractGraphAlgorithm;
+import org.ilot.crawler.algorithms.concurrent.CrawlListener;
+import org.ilot.crawler.algorithms.concurrent.Node;
 
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public abstract class AbstractCrawler<E> implements Crawler<E> {
+    private static final long OFFER_TIMEOUT_MILLIS = 100L;
+
     private final GraphAlgorithm<E> graphAlgorithm;
+    private final AtomicBoolean streaming = new AtomicBoolean();
 
     public AbstractCrawler(GraphAlgorithm<E> graphAlgorithm) {
         this.graphAlgorithm = graphAlgorithm;
@@ -20,4 +32,72 @@ public abstract class AbstractCrawler<E> implements Crawler<E> {
     public Optional<E> crawlAndFind(E rootElement) {
         return graphAlgorithm.search(rootElement);
     }
-}
\ No newline at end of file
+
+    @Override
+    public void stop() {
+        graphAlgorithm.stop();
+    }
+
+    @Override
+    public void abort() {
+        graphAlgorithm.abort();
+    }
+
+    @Override
+    public Flow.Publisher<CrawlResult<E>> stream(E rootElement) {
+        return stream(rootElement, Flow.defaultBufferSize());
+    }
+
+    // Every subscription runs its own crawl on a new thread, one at a time per crawler: a subscription made
+    // while another stream is still crawling gets an IllegalStateException, as the crawls would share one
+    // algorithm and each other's results.
+    // The worker that expanded a node blocks while the subscriber's buffer is full, so a slow subscriber
+    // slows down fetching instead of piling up results. Cancelling the subscription aborts the crawl.
+    public Flow.Publisher<CrawlResult<E>> stream(E rootElement, int bufferSize) {
+        if (!(graphAlgorithm instanceof AbstractGraphAlgorithm)) {
+            throw new UnsupportedOperationException("Streaming needs one of the concurrent graph algorithms");
+        }
+        AbstractGraphAlgorithm<E> algorithm = (AbstractGraphAlgorithm<E>) graphAlgorithm;
+        return subscriber -> {
+            SubmissionPublisher<CrawlResult<E>> publisher = new SubmissionPublisher<>(ForkJoinPool.commonPool(), bufferSize);
+            publisher.subscribe(subscriber);
+            if (!streaming.compareAndSet(false, true)) {
+                publisher.closeExceptionally(new IllegalStateException("This crawler is already streaming a crawl"));
+                return;
+            }
+            CrawlListener<E> listener = (node, links) -> publish(publisher, toResult(node, links));
+            new Thread(() -> {
+                algorithm.addListener(listener);
+                streamStarted();
+                try {
+                    algorithm.traverse(rootElement);
+                    publisher.close();
+                } catch (RuntimeException e) {
+                    publisher.closeExceptionally(e);
+                } finally {
+                    algorithm.removeListener(listener);
+                    streamFinished();
+                    streaming.set(false);
+                }
+            }, "crawler-stream").start();
+        };
+    }
+
+    private void publish(SubmissionPublisher<CrawlResult<E>> publisher, CrawlResult<E> result) {
+        while (publisher.hasSubscribers() && !Thread.currentThread().isInterrupted()) {
+            // offer only blocks up to the timeout, so a cancelled subscription is noticed
+            if (publisher.offer(result, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS, (s, r) -> false) >= 0) return;
+        }
+        if (!publisher.hasSubscribers()) graphAlgorithm.abort();
+    }
+
+    protected CrawlResult<E> toResult(Node<E> node, Set<E> links) {
+        return new CrawlResult<>(node.getElement(), node.getLevel(), links);
+    }
+
+    protected void streamStarted() {
+    }
+
+    protected void streamFinished() {
+    }
+}
@@ -0,0 +1,36 @@
+package org.ilot.crawler;
+
+import java.util.Set;
+
+public class CrawlResult<E> {
+    private final E element;
+    private final int depth;
+    private final Set<E> links;
+
+    public CrawlResult(E element, int depth, Set<E> links) {
+        this.element = element;
+        this.depth = depth;
+        this.links = links;
+    }
+
+    public E getElement() {
+        return element;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public Set<E> getLinks() {
+        return links;
+    }
+
+    @Override
+    public String toString() {
+        return "CrawlResult{" +
+                "element=" + element +
+                ", depth=" + depth +
+                ", links=" + links.size() +
+                '}';
+    }
+}
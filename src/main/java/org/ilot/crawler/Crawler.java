@@ -1,8 +1,13 @@
 package org.ilot.crawler;
 
 import java.util.Optional;
+import java.util.concurrent.Flow;
 
 public interface Crawler<E> {
     void crawl(E rootElement);
     Optional<E> crawlAndFind(E rootElement);
+    void stop();
+    void abort();
+    // the expanded nodes with their links, as fast as the subscriber requests them
+    Flow.Publisher<CrawlResult<E>> stream(E rootElement);
 }
\ No newline at end of file
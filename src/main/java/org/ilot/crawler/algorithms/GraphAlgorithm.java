@@ -6,9 +6,10 @@ import java.util.Optional;
 public interface GraphAlgorithm<E> {
     void traverse(E rootElement);
     Optional<E> search(E rootElement);
-    // TODO implement
-//    void stop();
-//    void abort();
+    // ends the running traversal or search once the work already started has finished
+    void stop();
+    // ends it right away, cancelling the work in progress
+    void abort();
     void continueTraversingFrom(List<E> nodes);
     Optional<E> continueSearchingFrom(List<E> nodes);
 }
\ No newline at end of file
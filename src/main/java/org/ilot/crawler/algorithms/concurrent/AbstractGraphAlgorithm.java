@@ -1,29 +1,30 @@
 package org.ilot.crawler.algorithms.concurrent;
 
 import org.ilot.crawler.algorithms.GraphAlgorithm;
+import org.ilot.crawler.algorithms.concurrent.frontier.Frontier;
+import org.ilot.crawler.algorithms.visited.VisitedSet;
+import org.ilot.crawler.metrics.CrawlMetrics;
 
-import java.util.Deque;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 @SuppressWarnings("WeakerAccess")
 public abstract class AbstractGraphAlgorithm<E> implements GraphAlgorithm<E> {
     protected final ExecutorService executorService;
-    protected final Deque<Node<E>> workDeque;
-    protected final Set<E> visited;
+    protected final Frontier<E> frontier;
+    protected final VisitedSet<E> visited;
 
     protected final Consumer<Node<E>> addNode;
     protected final BiFunction<E, Long, Set<E>> getNeighbours;
@@ -33,22 +34,37 @@ public abstract class AbstractGraphAlgorithm<E> implements GraphAlgorithm<E> {
     protected final long isEmptyTimeout;
     protected final long getNeighboursTimeout;
 
-    protected final Lock lock = new ReentrantLock(true);
-    protected final Condition isEmpty = lock.newCondition();
+    protected final List<CrawlListener<E>> listeners = new CopyOnWriteArrayList<>();
+    protected volatile CrawlMetrics metrics = CrawlMetrics.disabled();
+    // tasks handed to the executor that have not finished yet, a task publishes its children before it leaves
+    protected final AtomicInteger inFlight = new AtomicInteger();
+
+    protected volatile Thread dispatcherThread;
+    protected volatile boolean dispatcherWaiting;
 
     protected volatile E searchResult;
     protected volatile boolean resultFound;
+    // traverse never tests the search predicate
+    protected volatile boolean searching;
+
+    // stop: nothing new is dispatched, running expansions finish and leave their children in the frontier
+    // abort: additionally interrupts running expansions, a found result does the same
+    protected volatile boolean stopped;
+    protected volatile boolean aborted;
+    private final Set<Expansion> running = ConcurrentHashMap.newKeySet();
 
     AbstractGraphAlgorithm(ExecutorService executorService,
                            BiFunction<E, Long, Set<E>> getNeighbours,
                            Function<E, E> transformElement,
                            Predicate<Node<E>> searchPredicate,
                            long isEmptyTimeout,
-                           long getNeighboursTimeout) {
+                           long getNeighboursTimeout,
+                           VisitedSet<E> visited,
+                           Frontier<E> frontier) {
         this.executorService = executorService;
-        this.workDeque = new ConcurrentLinkedDeque<>();
-        this.visited = ConcurrentHashMap.newKeySet();
-        this.addNode = workDeque::addLast;
+        this.frontier = frontier;
+        this.visited = visited;
+        this.addNode = frontier::add;
         this.getNeighbours = getNeighbours;
         this.transformElement = transformElement;
         this.isEmptyTimeout = isEmptyTimeout;
@@ -60,52 +76,185 @@ public abstract class AbstractGraphAlgorithm<E> implements GraphAlgorithm<E> {
 
     @Override
     public void traverse(E rootElement) {
-        workDeque.add(Node.of(rootElement, 0));
+        begin(false);
+        frontier.add(Node.of(rootElement, 0));
         internalSearch();
     }
 
     @Override
     public Optional<E> search(E rootElement) {
-        workDeque.add(Node.of(rootElement));
+        begin(true);
+        frontier.add(Node.of(rootElement));
         internalSearch();
         return resultFound ? Optional.of(searchResult) : Optional.empty();
     }
 
     @Override
     public void continueTraversingFrom(List<E> nodes) {
-        workDeque.addAll(nodes.parallelStream().map(Node::of).collect(Collectors.toList()));
+        begin(false);
+        nodes.forEach(element -> frontier.add(Node.of(element)));
         internalSearch();
     }
 
     @Override
     public Optional<E> continueSearchingFrom(List<E> nodes) {
-        workDeque.addAll(nodes.parallelStream().map(Node::of).collect(Collectors.toList()));
+        begin(true);
+        nodes.forEach(element -> frontier.add(Node.of(element)));
         internalSearch();
         return resultFound ? Optional.of(searchResult) : Optional.empty();
     }
 
-    protected boolean awaitNotEmpty() {
-        if (!workDeque.isEmpty()) {
-            return true;
+    // for nodes that keep the level they were discovered at and are already claimed in the visited set,
+    // e.g. the ones CrawlCheckpoint.restore returns
+    public void resumeTraversing(List<Node<E>> nodes) {
+        begin(false);
+        nodes.forEach(frontier::add);
+        internalSearch();
+    }
+
+    public Optional<E> resumeSearching(List<Node<E>> nodes) {
+        begin(true);
+        nodes.forEach(frontier::add);
+        internalSearch();
+        return resultFound ? Optional.of(searchResult) : Optional.empty();
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+        LockSupport.unpark(dispatcherThread);
+    }
+
+    @Override
+    public void abort() {
+        aborted = true;
+        stop();
+        cancelRunning();
+    }
+
+    // every run starts afresh, the visited set and whatever a stopped run left in the frontier are kept
+    private void begin(boolean searching) {
+        dispatcherThread = Thread.currentThread();
+        this.searching = searching;
+        resultFound = false;
+        searchResult = null;
+        stopped = false;
+        aborted = false;
+    }
+
+    protected boolean isRunning() {
+        return !stopped && !resultFound;
+    }
+
+    protected boolean isCancelled() {
+        return aborted || resultFound;
+    }
+
+    // The end of every run, the executor is left running for the next one.
+    // Waits for the tasks still in flight, after cancelling them if the run was aborted or found its result.
+    protected void awaitInFlight() {
+        if (isCancelled()) cancelRunning();
+        while (inFlight.get() > 0) {
+            dispatcherWaiting = true;
+            if (inFlight.get() > 0) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(isEmptyTimeout));
+            }
+            dispatcherWaiting = false;
         }
-        try {
-            lock.lock();
-            {
-                while (workDeque.isEmpty()) {
-                    try {
-                        if (!isEmpty.await(isEmptyTimeout, TimeUnit.MILLISECONDS)) return false;
-                    } catch (InterruptedException ignored) {
-                        // nobody should interrupt the main thread
-                        return false;
-                    }
-                }
-                return true;
+    }
+
+    protected void cancelRunning() {
+        for (Expansion expansion : running) {
+            expansion.cancel();
+        }
+    }
+
+    // Returns false only once the crawl is quiescent: nothing in the frontier and no task left that could add to it.
+    // In-flight is read before the frontier, so children published by the last task are always seen.
+    // isEmptyTimeout only bounds a single park, workers unpark the dispatcher as they finish.
+    protected boolean awaitNotEmpty() {
+        while (frontier.isEmpty()) {
+            if (inFlight.get() == 0 && frontier.isEmpty()) return false;
+            long start = CrawlMetrics.start();
+            dispatcherWaiting = true;
+            if (inFlight.get() > 0 && frontier.isEmpty()) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(isEmptyTimeout));
             }
-        } catch (Exception ignored) {
-            // shouldn't be thrown
+            dispatcherWaiting = false;
+            metrics.record(CrawlMetrics.Stage.AWAIT_NOT_EMPTY, start);
+            // nobody should interrupt the main thread
+            if (Thread.interrupted()) return false;
+        }
+        return true;
+    }
+
+    // the last step of every task, after its children are in the frontier
+    protected void taskFinished() {
+        inFlight.decrementAndGet();
+        if (dispatcherWaiting) LockSupport.unpark(dispatcherThread);
+    }
+
+    protected Node<E> pollFrontier() {
+        long start = CrawlMetrics.start();
+        Node<E> node = frontier.poll();
+        metrics.record(CrawlMetrics.Stage.FRONTIER_POLL, start);
+        return node;
+    }
+
+    protected void failed(Node<E> node, Throwable error) {
+        // expansions cut short by abort or a found result are not errors
+        if (isCancelled()) return;
+        metrics.error(node.getElement(), error);
+    }
+
+    public void instrument(CrawlMetrics metrics) {
+        this.metrics = metrics;
+        metrics.gauge("crawler.frontier.depth", frontier, Frontier::size);
+        metrics.gauge("crawler.visited.size", visited, VisitedSet::size);
+        metrics.gauge("crawler.tasks.in-flight", inFlight, AtomicInteger::get);
+    }
+
+    public void addListener(CrawlListener<E> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(CrawlListener<E> listener) {
+        listeners.remove(listener);
+    }
+
+    protected void expanded(Node<E> node, Set<E> neighbours) {
+        for (CrawlListener<E> listener : listeners) {
+            listener.expanded(node, neighbours);
+        }
+    }
+
+    protected boolean isResult(Node<E> node) {
+        if (!searching || !searchPredicate.test(node)) {
             return false;
+        }
+        searchResult = node.getElement();
+        resultFound = true;
+        // the other expansions are interrupted instead of running to completion
+        cancelRunning();
+        LockSupport.unpark(dispatcherThread);
+        return true;
+    }
+
+    // Runs getNeighbours on the calling thread, registered so that abort can interrupt it.
+    protected Set<E> expand(Node<E> node) {
+        Expansion expansion = new Expansion(Thread.currentThread());
+        running.add(expansion);
+        long start = CrawlMetrics.start();
+        try {
+            // checked after registering, so a concurrent cancel either sees this expansion or is seen here
+            if (isCancelled()) return Collections.emptySet();
+            return getNeighbours.apply(node.getElement(), getNeighboursTimeout);
         } finally {
-            lock.unlock();
+            metrics.record(CrawlMetrics.Stage.EXPAND, start);
+            running.remove(expansion);
+            expansion.finish();
+            // an interrupt delivered by cancel must not leak into the next task of a shared executor
+            if (isCancelled()) Thread.interrupted();
         }
     }
 
@@ -118,25 +267,29 @@ public abstract class AbstractGraphAlgorithm<E> implements GraphAlgorithm<E> {
             this.node = node;
         }
 
-        protected void signalNotEmpty(Lock lock, Condition isEmpty) {
-            try {
-                lock.lock();
-                isEmpty.signal();
-            } catch (IllegalMonitorStateException e) {
-                // shouldn't be thrown
-                // TODO rethrow
-            } finally {
-                lock.unlock();
-            }
+        protected boolean isResult(Node<E> node) {
+            return ga.isResult(node);
         }
 
-        protected boolean isResult(Node<E> node) {
-            if (!ga.searchPredicate.test(node)) {
-                return false;
-            }
-            ga.resultFound = true;
-            ga.searchResult = node.getElement();
-            return true;
+        protected Set<E> getNeighbours() {
+            return ga.expand(node);
+        }
+    }
+
+    // the thread is only interrupted while it still runs this expansion
+    private static final class Expansion {
+        private Thread thread;
+
+        private Expansion(Thread thread) {
+            this.thread = thread;
+        }
+
+        private synchronized void cancel() {
+            if (thread != null) thread.interrupt();
+        }
+
+        private synchronized void finish() {
+            thread = null;
         }
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
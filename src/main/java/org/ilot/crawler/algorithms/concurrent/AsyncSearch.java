@@ -0,0 +1,127 @@
+package org.ilot.crawler.algorithms.concurrent;
+
+import org.ilot.crawler.algorithms.concurrent.frontier.FifoFrontier;
+import org.ilot.crawler.algorithms.concurrent.frontier.Frontier;
+import org.ilot.crawler.algorithms.visited.ConcurrentVisitedSet;
+import org.ilot.crawler.algorithms.visited.VisitedSet;
+import org.ilot.crawler.metrics.CrawlMetrics;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+public class AsyncSearch<E> extends AbstractGraphAlgorithm<E> {
+    private final BiFunction<E, Long, CompletableFuture<Set<E>>> getNeighboursAsync;
+    private final Semaphore inFlightPermits;
+    // futures of the running fetches, cancelling them cancels the requests behind them
+    private final Set<CompletableFuture<Set<E>>> pending = ConcurrentHashMap.newKeySet();
+
+    public AsyncSearch(ExecutorService executorService,
+                       BiFunction<E, Long, CompletableFuture<Set<E>>> getNeighboursAsync,
+                       Function<E, E> transformElement,
+                       Predicate<Node<E>> searchPredicate,
+                       long isEmptyTimeout,
+                       long getNeighboursTimeout,
+                       int maxInFlight) {
+        this(executorService, getNeighboursAsync, transformElement, searchPredicate, isEmptyTimeout, getNeighboursTimeout,
+                maxInFlight, new ConcurrentVisitedSet<>(), new FifoFrontier<>());
+    }
+
+    public AsyncSearch(ExecutorService executorService,
+                       BiFunction<E, Long, CompletableFuture<Set<E>>> getNeighboursAsync,
+                       Function<E, E> transformElement,
+                       Predicate<Node<E>> searchPredicate,
+                       long isEmptyTimeout,
+                       long getNeighboursTimeout,
+                       int maxInFlight,
+                       VisitedSet<E> visited,
+                       Frontier<E> frontier) {
+        super(executorService, (e, timeout) -> getNeighboursAsync.apply(e, timeout).join(), transformElement,
+                searchPredicate, isEmptyTimeout, getNeighboursTimeout, visited, frontier);
+        this.getNeighboursAsync = getNeighboursAsync;
+        this.inFlightPermits = new Semaphore(maxInFlight);
+    }
+
+    protected void internalSearch() {
+        while (awaitNotEmpty() && isRunning()) {
+            Node<E> node = pollFrontier();
+            if (node == null) continue;
+            if (isResult(node)) break;
+            // roots are claimed here, every other node when it was discovered
+            if (node.getLevel() == 0) visited.add(node.getElement());
+            try {
+                inFlightPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            long start = CrawlMetrics.start();
+            inFlight.incrementAndGet();
+            executorService.execute(new Worker<>(this, node));
+            metrics.record(CrawlMetrics.Stage.DISPATCH, start);
+        }
+        awaitInFlight();
+    }
+
+    @Override
+    protected void cancelRunning() {
+        super.cancelRunning();
+        for (CompletableFuture<Set<E>> future : pending) {
+            future.cancel(true);
+        }
+    }
+
+    private static class Worker<E> extends AbstractWorker<E> implements BiConsumer<Set<E>, Throwable> {
+        private final AsyncSearch<E> as;
+        private long started;
+        private CompletableFuture<Set<E>> future;
+
+        private Worker(AsyncSearch<E> as, Node<E> node) {
+            super(as, node);
+            this.as = as;
+        }
+
+        @Override
+        public void run() {
+            started = CrawlMetrics.start();
+            try {
+                future = as.getNeighboursAsync.apply(node.getElement(), ga.getNeighboursTimeout);
+                as.pending.add(future);
+                // registered first, so a concurrent cancelRunning either finds the future or is seen here
+                if (ga.isCancelled()) future.cancel(true);
+                future.whenCompleteAsync(this, ga.executorService);
+            } catch (Exception e) {
+                accept(null, e);
+            }
+        }
+
+        @Override
+        public void accept(Set<E> neighbours, Throwable error) {
+            ga.metrics.record(CrawlMetrics.Stage.EXPAND, started);
+            if (future != null) as.pending.remove(future);
+            try {
+                if (error != null) {
+                    ga.failed(node, error);
+                    return;
+                }
+                if (neighbours == null || ga.isCancelled()) return;
+                for (E neighbour : neighbours) {
+                    E element = ga.transformElement.apply(neighbour);
+                    // one atomic add decides which response enqueues a node reached from several parents
+                    if (ga.visited.add(element)) ga.addNode.accept(Node.of(element, node.getLevel() + 1));
+                }
+                ga.expanded(node, neighbours);
+            } finally {
+                ga.frontier.done(node);
+                as.inFlightPermits.release();
+                ga.taskFinished();
+            }
+        }
+    }
+}
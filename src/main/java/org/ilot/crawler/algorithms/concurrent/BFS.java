@@ -1,12 +1,17 @@
 package org.ilot.crawler.algorithms.concurrent;
 
+import org.ilot.crawler.algorithms.concurrent.frontier.FifoFrontier;
+import org.ilot.crawler.algorithms.concurrent.frontier.Frontier;
+import org.ilot.crawler.algorithms.visited.ConcurrentVisitedSet;
+import org.ilot.crawler.algorithms.visited.VisitedSet;
+import org.ilot.crawler.metrics.CrawlMetrics;
+
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Phaser;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 public class BFS<E> extends AbstractGraphAlgorithm<E> {
 
@@ -16,20 +21,46 @@ public class BFS<E> extends AbstractGraphAlgorithm<E> {
                Predicate<Node<E>> searchPredicate,
                long isEmptyTimeout,
                long getNeighboursTimeout) {
-        super(executorService, getNeighbours, transformElement, searchPredicate, isEmptyTimeout, getNeighboursTimeout);
+        this(executorService, getNeighbours, transformElement, searchPredicate, isEmptyTimeout, getNeighboursTimeout,
+                new ConcurrentVisitedSet<>());
+    }
+
+    public BFS(ExecutorService executorService,
+               BiFunction<E, Long, Set<E>> getNeighbours,
+               Function<E, E> transformElement,
+               Predicate<Node<E>> searchPredicate,
+               long isEmptyTimeout,
+               long getNeighboursTimeout,
+               VisitedSet<E> visited) {
+        this(executorService, getNeighbours, transformElement, searchPredicate, isEmptyTimeout, getNeighboursTimeout,
+                visited, new FifoFrontier<>());
+    }
+
+    public BFS(ExecutorService executorService,
+               BiFunction<E, Long, Set<E>> getNeighbours,
+               Function<E, E> transformElement,
+               Predicate<Node<E>> searchPredicate,
+               long isEmptyTimeout,
+               long getNeighboursTimeout,
+               VisitedSet<E> visited,
+               Frontier<E> frontier) {
+        super(executorService, getNeighbours, transformElement, searchPredicate, isEmptyTimeout, getNeighboursTimeout,
+                visited, frontier);
     }
 
     protected void internalSearch() {
         Phaser phaser = new Phaser(1);
-        while (awaitNotEmpty() && !resultFound) {
-            Node<E> node = workDeque.poll();
+        while (awaitNotEmpty() && isRunning()) {
+            Node<E> node = pollFrontier();
             if (node == null) continue;
             phaser.register();
+            long start = CrawlMetrics.start();
+            inFlight.incrementAndGet();
             executorService.execute(new Worker<>(this, node, phaser));
+            metrics.record(CrawlMetrics.Stage.DISPATCH, start);
             if (node.getLevel() != phaser.getPhase()) phaser.arriveAndAwaitAdvance();
         }
-        // TODO implement shutdown policy
-        executorService.shutdownNow();
+        awaitInFlight();
     }
 
     private static class Worker<E> extends AbstractWorker<E> {
@@ -44,21 +75,21 @@ public class BFS<E> extends AbstractGraphAlgorithm<E> {
         public void run() {
             try {
                 if (isResult(node)) return;
-                if (ga.visited.contains(ga.transformElement.apply(node.getElement()))) return;
-                if (Thread.currentThread().isInterrupted()) return;
-                ga.getNeighbours.apply(node.getElement(), ga.getNeighboursTimeout)
-                        .stream()
-                        .map(ga.transformElement)
-                        .filter(e -> !ga.visited.contains(e))
-                        .map(e -> Node.of(e, node.getLevel() + 1))
-                        .collect(Collectors.toSet())
-                        .forEach(ga.addNode);
-
+                // roots are claimed here, every other node when it was discovered
                 ga.visited.add(node.getElement());
-                signalNotEmpty(ga.lock, ga.isEmpty);
+                if (ga.isCancelled()) return;
+                Set<E> neighbours = getNeighbours();
+                for (E neighbour : neighbours) {
+                    E element = ga.transformElement.apply(neighbour);
+                    // one atomic add decides which worker enqueues a node reached from several parents
+                    if (ga.visited.add(element)) ga.addNode.accept(Node.of(element, node.getLevel() + 1));
+                }
+                ga.expanded(node, neighbours);
             } catch (Exception e) {
-                // TODO rethrow
+                ga.failed(node, e);
             } finally {
+                ga.frontier.done(node);
+                ga.taskFinished();
                 phaser.arriveAndDeregister();
             }
         }
@@ -0,0 +1,108 @@
+package org.ilot.crawler.algorithms.concurrent;
+
+import org.ilot.crawler.algorithms.concurrent.frontier.Frontier;
+import org.ilot.crawler.algorithms.concurrent.frontier.MultiQueueFrontier;
+import org.ilot.crawler.algorithms.concurrent.frontier.Scorer;
+import org.ilot.crawler.algorithms.visited.ConcurrentVisitedSet;
+import org.ilot.crawler.algorithms.visited.VisitedSet;
+import org.ilot.crawler.metrics.CrawlMetrics;
+
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// Expands the best scored nodes first. Nodes are marked visited when they are dispatched, so every link to a page
+// that is still queued reaches the frontier and counts as an inlink.
+public class BestFirstSearch<E> extends AbstractGraphAlgorithm<E> {
+    private static final int DEFAULT_HIGH_WATERMARK = 256;
+    private static final int DEFAULT_LOW_WATERMARK = 192;
+
+    private final BoundedDispatcher dispatcher;
+
+    public BestFirstSearch(ExecutorService executorService,
+                           BiFunction<E, Long, Set<E>> getNeighbours,
+                           Function<E, E> transformElement,
+                           Predicate<Node<E>> searchPredicate,
+                           long isEmptyTimeout,
+                           long getNeighboursTimeout,
+                           Scorer<? super E> scorer) {
+        this(executorService, getNeighbours, transformElement, searchPredicate, isEmptyTimeout, getNeighboursTimeout,
+                new ConcurrentVisitedSet<>(), new MultiQueueFrontier<>(scorer));
+    }
+
+    public BestFirstSearch(ExecutorService executorService,
+                           BiFunction<E, Long, Set<E>> getNeighbours,
+                           Function<E, E> transformElement,
+                           Predicate<Node<E>> searchPredicate,
+                           long isEmptyTimeout,
+                           long getNeighboursTimeout,
+                           VisitedSet<E> visited,
+                           Frontier<E> frontier) {
+        this(executorService, getNeighbours, transformElement, searchPredicate, isEmptyTimeout, getNeighboursTimeout,
+                visited, frontier, DEFAULT_HIGH_WATERMARK, DEFAULT_LOW_WATERMARK);
+    }
+
+    // a low high watermark keeps the priorities meaningful, the frontier only orders what is not dispatched yet
+    public BestFirstSearch(ExecutorService executorService,
+                           BiFunction<E, Long, Set<E>> getNeighbours,
+                           Function<E, E> transformElement,
+                           Predicate<Node<E>> searchPredicate,
+                           long isEmptyTimeout,
+                           long getNeighboursTimeout,
+                           VisitedSet<E> visited,
+                           Frontier<E> frontier,
+                           int highWatermark,
+                           int lowWatermark) {
+        super(executorService, getNeighbours, transformElement, searchPredicate, isEmptyTimeout, getNeighboursTimeout,
+                visited, frontier);
+        this.dispatcher = new BoundedDispatcher(executorService, highWatermark, lowWatermark, SaturationPolicy.WAIT);
+    }
+
+    protected void internalSearch() {
+        while (awaitNotEmpty() && isRunning()) {
+            Node<E> node = pollFrontier();
+            if (node == null) continue;
+            if (isResult(node)) break;
+            // roots are claimed here, every other node when it was discovered
+            if (node.getLevel() == 0) visited.add(transformElement.apply(node.getElement()));
+            long start = CrawlMetrics.start();
+            inFlight.incrementAndGet();
+            try {
+                dispatcher.dispatch(new Worker<>(this, node));
+            } catch (InterruptedException e) {
+                inFlight.decrementAndGet();
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                metrics.record(CrawlMetrics.Stage.DISPATCH, start);
+            }
+        }
+        awaitInFlight();
+    }
+
+    private static class Worker<E> extends AbstractWorker<E> {
+        private Worker(BestFirstSearch<E> bfs, Node<E> node) {
+            super(bfs, node);
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (ga.isCancelled()) return;
+                Set<E> neighbours = getNeighbours();
+                for (E neighbour : neighbours) {
+                    E element = ga.transformElement.apply(neighbour);
+                    if (ga.visited.add(element)) ga.addNode.accept(Node.of(element, node.getLevel() + 1));
+                }
+                ga.expanded(node, neighbours);
+            } catch (Exception e) {
+                ga.failed(node, e);
+            } finally {
+                ga.frontier.done(node);
+                ga.taskFinished();
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.ilot.crawler.algorithms.concurrent;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+class BoundedDispatcher {
+    private static final long MAX_WAIT_MILLIS = 100L;
+
+    private final ExecutorService executorService;
+    private final int highWatermark;
+    private final int lowWatermark;
+    private final SaturationPolicy saturationPolicy;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Lock lock = new ReentrantLock();
+    private final Condition drained = lock.newCondition();
+    private volatile boolean waiting;
+
+    BoundedDispatcher(ExecutorService executorService, int highWatermark, int lowWatermark, SaturationPolicy saturationPolicy) {
+        if (lowWatermark < 0 || lowWatermark >= highWatermark) {
+            throw new IllegalArgumentException("Watermarks must satisfy 0 <= low < high");
+        }
+        this.executorService = executorService;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+        this.saturationPolicy = saturationPolicy;
+    }
+
+    void dispatch(Runnable task) throws InterruptedException {
+        if (inFlight.get() >= highWatermark) {
+            if (saturationPolicy == SaturationPolicy.CALLER_RUNS) {
+                task.run();
+                return;
+            }
+            awaitLowWatermark();
+        }
+        inFlight.incrementAndGet();
+        try {
+            executorService.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release();
+            throw e;
+        }
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private void awaitLowWatermark() throws InterruptedException {
+        lock.lock();
+        try {
+            waiting = true;
+            while (inFlight.get() > lowWatermark) {
+                drained.await(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            waiting = false;
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        // waiting is set before the dispatcher re-checks the count, so this signal cannot be lost
+        if (inFlight.decrementAndGet() <= lowWatermark && waiting) {
+            lock.lock();
+            try {
+                drained.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package org.ilot.crawler.algorithms.concurrent;
+
+import org.ilot.crawler.algorithms.concurrent.frontier.FifoFrontier;
+import org.ilot.crawler.algorithms.concurrent.frontier.Frontier;
+import org.ilot.crawler.algorithms.visited.FingerprintVisitedSet;
+import org.ilot.crawler.algorithms.visited.VisitedSet;
+import org.ilot.crawler.metrics.CrawlMetrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Runs any number of CrawlJobs at once on one executor, so a crawl of many seeds pays for its threads,
+// visited table and caches once instead of once per seed. Every job has a Frontier of its own, and the
+// dispatcher takes one node from each job with queued nodes in turn, so a job with a huge frontier cannot
+// starve a small one. A job's frontier decides which of its nodes is ready, e.g. a HostPartitionedFrontier
+// that does not wait in poll keeps the job polite to its hosts, a SpillingFrontier keeps it off the heap;
+// one that is Closeable is closed when its job ends. Jobs claim nodes in one shared visited table, each in its own partition of it, and share
+// a cache of recent expansions, so a page linked from several jobs is fetched once while it is cached.
+// The executor belongs to the caller and is left running on close.
+public class CrawlEngine<E> implements Closeable {
+    private static final int DEFAULT_MAX_IN_FLIGHT = 256;
+    private static final int DEFAULT_CACHE_SIZE = 1024;
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    // how long the dispatcher waits once a whole round of jobs had no node ready
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final BiFunction<E, Long, Set<E>> getNeighbours;
+    private final Function<E, E> transformElement;
+    private final long getNeighboursTimeout;
+    private final FingerprintVisitedSet<E> visited;
+    private final BoundedDispatcher dispatcher;
+    private final ExpansionCache<E> cache;
+    private final Supplier<? extends Frontier<E>> frontiers;
+
+    // jobs with queued nodes, in the order they get their next turn
+    private final Queue<Job<E>> ready = new ConcurrentLinkedQueue<>();
+    private final Set<Job<E>> running = ConcurrentHashMap.newKeySet();
+    private final AtomicLong jobIds = new AtomicLong();
+    private final Thread dispatcherThread;
+    private volatile boolean dispatcherWaiting;
+    private volatile boolean closed;
+    private volatile CrawlMetrics metrics = CrawlMetrics.disabled();
+    // only touched by the dispatcher thread
+    private int idleTurns;
+
+    public CrawlEngine(ExecutorService executorService,
+                       BiFunction<E, Long, Set<E>> getNeighbours,
+                       Function<E, E> transformElement,
+                       long getNeighboursTimeout,
+                       FingerprintVisitedSet<E> visited) {
+        this(executorService, getNeighbours, transformElement, getNeighboursTimeout, visited, DEFAULT_MAX_IN_FLIGHT, DEFAULT_CACHE_SIZE);
+    }
+
+    public CrawlEngine(ExecutorService executorService,
+                       BiFunction<E, Long, Set<E>> getNeighbours,
+                       Function<E, E> transformElement,
+                       long getNeighboursTimeout,
+                       FingerprintVisitedSet<E> visited,
+                       int maxInFlight,
+                       int cacheSize) {
+        this(executorService, getNeighbours, transformElement, getNeighboursTimeout, visited, maxInFlight, cacheSize, FifoFrontier::new);
+    }
+
+    public CrawlEngine(ExecutorService executorService,
+                       BiFunction<E, Long, Set<E>> getNeighbours,
+                       Function<E, E> transformElement,
+                       long getNeighboursTimeout,
+                       FingerprintVisitedSet<E> visited,
+                       int maxInFlight,
+                       int cacheSize,
+                       Supplier<? extends Frontier<E>> frontiers) {
+        if (maxInFlight < 1) throw new IllegalArgumentException("Max in flight must be at least 1");
+        this.getNeighbours = getNeighbours;
+        this.transformElement = transformElement;
+        this.getNeighboursTimeout = getNeighboursTimeout;
+        this.visited = visited;
+        this.dispatcher = new BoundedDispatcher(executorService, maxInFlight, maxInFlight * 3 / 4, SaturationPolicy.WAIT);
+        this.cache = new ExpansionCache<>(cacheSize);
+        this.frontiers = frontiers;
+        this.dispatcherThread = new Thread(this::dispatch, "crawl-engine");
+        this.dispatcherThread.setDaemon(true);
+        this.dispatcherThread.start();
+    }
+
+    // Completes with the element a search job found, or empty once the job has nothing left to expand.
+    // Cancelling the future ends the job, expansions already running finish but their links are dropped.
+    public CompletableFuture<Optional<E>> submit(CrawlJob<E> crawlJob) {
+        if (closed) throw new IllegalStateException("Engine is closed");
+        FingerprintVisitedSet<E> partition = visited.partition(jobIds.incrementAndGet());
+        Job<E> job = new Job<>(this, crawlJob, partition, frontiers.get());
+        running.add(job);
+        // the job's visits are of no use to any other job, they would only fill the shared table
+        job.result.whenComplete((result, error) -> {
+            running.remove(job);
+            partition.release();
+            closeFrontier(job);
+        });
+        E seed = transformElement.apply(crawlJob.getSeed());
+        job.visited.add(seed);
+        job.add(Node.of(seed, 0));
+        return job.result;
+    }
+
+    public int runningJobs() {
+        return running.size();
+    }
+
+    public long cacheHits() {
+        return cache.hits.get();
+    }
+
+    public void instrument(CrawlMetrics metrics) {
+        this.metrics = metrics;
+        metrics.gauge("crawler.engine.jobs.running", running, Set::size);
+        metrics.gauge("crawler.engine.visited.size", visited, VisitedSet::size);
+        metrics.gauge("crawler.engine.tasks.in-flight", dispatcher, BoundedDispatcher::inFlight);
+        metrics.gauge("crawler.engine.expansions.cache-hits", cache.hits, AtomicLong::get);
+    }
+
+    // jobs still running are cancelled
+    @Override
+    public void close() {
+        closed = true;
+        dispatcherThread.interrupt();
+        for (Job<E> job : running) {
+            job.result.cancel(false);
+        }
+    }
+
+    private void dispatch() {
+        while (!closed) {
+            Job<E> job = ready.poll();
+            if (job == null) {
+                park();
+                continue;
+            }
+            // cleared before polling, so a node added from now on schedules the job again
+            job.scheduled.set(false);
+            // its frontier was closed with it
+            if (job.result.isDone()) continue;
+            Node<E> node = job.frontier.poll();
+            if (node == null) {
+                // nodes queued for hosts that are not ready yet, the job waits for another turn
+                if (!job.frontier.isEmpty()) {
+                    schedule(job);
+                    idle();
+                }
+                continue;
+            }
+            idleTurns = 0;
+            // back of the line, behind every other job that is waiting for a turn
+            if (!job.frontier.isEmpty()) schedule(job);
+            long start = CrawlMetrics.start();
+            try {
+                dispatcher.dispatch(new Worker<>(job, node));
+            } catch (InterruptedException e) {
+                job.frontier.done(node);
+                job.finished();
+                break;
+            } catch (RejectedExecutionException e) {
+                job.frontier.done(node);
+                job.result.completeExceptionally(e);
+                job.finished();
+            } finally {
+                metrics.record(CrawlMetrics.Stage.DISPATCH, start);
+            }
+        }
+    }
+
+    private void park() {
+        long start = CrawlMetrics.start();
+        dispatcherWaiting = true;
+        if (ready.isEmpty() && !closed) LockSupport.parkNanos(this, MAX_PARK_NANOS);
+        dispatcherWaiting = false;
+        metrics.record(CrawlMetrics.Stage.AWAIT_NOT_EMPTY, start);
+    }
+
+    // a whole round of jobs without a ready node, rather than spinning through them again
+    private void idle() {
+        if (++idleTurns < running.size()) return;
+        idleTurns = 0;
+        long start = CrawlMetrics.start();
+        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        metrics.record(CrawlMetrics.Stage.AWAIT_NOT_EMPTY, start);
+    }
+
+    private void closeFrontier(Job<E> job) {
+        if (!(job.frontier instanceof Closeable)) return;
+        try {
+            ((Closeable) job.frontier).close();
+        } catch (IOException e) {
+            metrics.error(job.crawlJob.getSeed(), e);
+        }
+    }
+
+    private void schedule(Job<E> job) {
+        if (!job.scheduled.compareAndSet(false, true)) return;
+        ready.add(job);
+        // waiting is set before the dispatcher re-checks the queue, so this wake-up cannot be lost
+        if (dispatcherWaiting) LockSupport.unpark(dispatcherThread);
+    }
+
+    // Another job already expanding the same element is waited for instead of expanded again.
+    private Set<E> expand(E element) {
+        long start = CrawlMetrics.start();
+        try {
+            return cache.get(element, e -> getNeighbours.apply(e, getNeighboursTimeout));
+        } finally {
+            metrics.record(CrawlMetrics.Stage.EXPAND, start);
+        }
+    }
+
+    private static final class Job<E> {
+        private final CrawlEngine<E> engine;
+        private final CrawlJob<E> crawlJob;
+        private final VisitedSet<E> visited;
+        private final Frontier<E> frontier;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // queued and running nodes, the job is over when the last one finishes
+        private final AtomicInteger pending = new AtomicInteger();
+        private final CompletableFuture<Optional<E>> result = new CompletableFuture<>();
+
+        private Job(CrawlEngine<E> engine, CrawlJob<E> crawlJob, VisitedSet<E> visited, Frontier<E> frontier) {
+            this.engine = engine;
+            this.crawlJob = crawlJob;
+            this.visited = visited;
+            this.frontier = frontier;
+        }
+
+        private void add(Node<E> node) {
+            pending.incrementAndGet();
+            frontier.add(node);
+            engine.schedule(this);
+        }
+
+        private void finished() {
+            if (pending.decrementAndGet() == 0) result.complete(Optional.empty());
+        }
+    }
+
+    private static final class Worker<E> implements Runnable {
+        private final Job<E> job;
+        private final Node<E> node;
+
+        private Worker(Job<E> job, Node<E> node) {
+            this.job = job;
+            this.node = node;
+        }
+
+        @Override
+        public void run() {
+            CrawlEngine<E> engine = job.engine;
+            CrawlJob<E> crawlJob = job.crawlJob;
+            try {
+                if (job.result.isDone()) return;
+                if (crawlJob.getSearchPredicate().test(node)) {
+                    job.result.complete(Optional.of(node.getElement()));
+                    return;
+                }
+                if (node.getLevel() >= crawlJob.getMaxDepth()) return;
+                Set<E> neighbours = engine.expand(node.getElement());
+                for (E neighbour : neighbours) {
+                    if (job.result.isDone()) break;
+                    E element = engine.transformElement.apply(neighbour);
+                    if (!crawlJob.getScope().test(element) || !job.visited.add(element)) continue;
+                    job.add(Node.of(element, node.getLevel() + 1));
+                }
+                crawlJob.getListener().expanded(node, neighbours);
+            } catch (Exception e) {
+                // an expansion interrupted by close is not an error
+                if (!engine.closed) engine.metrics.error(node.getElement(), e);
+            } finally {
+                job.frontier.done(node);
+                job.finished();
+            }
+        }
+    }
+
+    // least recently used expansions, plus the ones still running so that concurrent requests share them
+    private static final class ExpansionCache<E> {
+        private final int capacity;
+        private final Map<E, Set<E>> expansions;
+        private final ConcurrentMap<E, CompletableFuture<Set<E>>> running = new ConcurrentHashMap<>();
+        private final AtomicLong hits = new AtomicLong();
+
+        private ExpansionCache(int capacity) {
+            this.capacity = capacity;
+            this.expansions = new LinkedHashMap<E, Set<E>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<E, Set<E>> eldest) {
+                    return size() > ExpansionCache.this.capacity;
+                }
+            };
+        }
+
+        private Set<E> get(E element, Function<E, Set<E>> expand) {
+            Set<E> cached;
+            synchronized (expansions) {
+                cached = expansions.get(element);
+            }
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+            CompletableFuture<Set<E>> expansion = new CompletableFuture<>();
+            CompletableFuture<Set<E>> other = running.putIfAbsent(element, expansion);
+            if (other != null) {
+                hits.incrementAndGet();
+                return other.join();
+            }
+            try {
+                Set<E> neighbours = expand.apply(element);
+                if (capacity > 0) {
+                    synchronized (expansions) {
+                        expansions.put(element, neighbours);
+                    }
+                }
+                expansion.complete(neighbours);
+                return neighbours;
+            } catch (RuntimeException e) {
+                expansion.completeExceptionally(e);
+                throw e;
+            } finally {
+                running.remove(element, expansion);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.ilot.crawler.algorithms.concurrent;
+
+import java.util.function.Predicate;
+
+// One crawl run by a CrawlEngine: everything reachable from seed through elements in scope, expanding
+// nodes up to maxDepth - 1 links away from it. A search job ends at the first node its predicate accepts.
+public class CrawlJob<E> {
+    private final E seed;
+    private final Predicate<? super E> scope;
+    private final int maxDepth;
+    private final Predicate<Node<E>> searchPredicate;
+    private final CrawlListener<E> listener;
+
+    private CrawlJob(E seed, Predicate<? super E> scope, int maxDepth, Predicate<Node<E>> searchPredicate, CrawlListener<E> listener) {
+        if (maxDepth < 1) throw new IllegalArgumentException("Max depth must be at least 1");
+        this.seed = seed;
+        this.scope = scope;
+        this.maxDepth = maxDepth;
+        this.searchPredicate = searchPredicate;
+        this.listener = listener;
+    }
+
+    public static <E> CrawlJob<E> traverse(E seed, Predicate<? super E> scope, int maxDepth) {
+        return new CrawlJob<>(seed, scope, maxDepth, node -> false, (node, neighbours) -> { });
+    }
+
+    public static <E> CrawlJob<E> search(E seed, Predicate<? super E> scope, int maxDepth, Predicate<Node<E>> searchPredicate) {
+        return new CrawlJob<>(seed, scope, maxDepth, searchPredicate, (node, neighbours) -> { });
+    }
+
+    // the listener is called from the engine's workers, for this job's nodes only
+    public CrawlJob<E> withListener(CrawlListener<E> listener) {
+        return new CrawlJob<>(seed, scope, maxDepth, searchPredicate, listener);
+    }
+
+    public E getSeed() {
+        return seed;
+    }
+
+    public Predicate<? super E> getScope() {
+        return scope;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public Predicate<Node<E>> getSearchPredicate() {
+        return searchPredicate;
+    }
+
+    public CrawlListener<E> getListener() {
+        return listener;
+    }
+}
@@ -0,0 +1,8 @@
+package org.ilot.crawler.algorithms.concurrent;
+
+import java.util.Set;
+
+public interface CrawlListener<E> {
+    // called by the worker once the node's neighbours have been handed to the frontier
+    void expanded(Node<E> node, Set<E> neighbours);
+}
@@ -0,0 +1,137 @@
+package org.ilot.crawler.algorithms.concurrent;
+
+import org.ilot.crawler.algorithms.concurrent.frontier.FifoFrontier;
+import org.ilot.crawler.algorithms.visited.ConcurrentVisitedSet;
+import org.ilot.crawler.algorithms.visited.VisitedSet;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// Every expanded node forks one task per new neighbour. A worker pops its own deque LIFO, so it keeps going
+// deeper, while idle workers steal the oldest, shallowest tasks of the others. The frontier only holds the roots.
+// Tasks are CountedCompleters, nobody blocks in join while a fetch is running.
+public class DFS<E> extends AbstractGraphAlgorithm<E> {
+    private final ForkJoinPool pool;
+    private final int maxDepth;
+    // claimed nodes a stopped run did not expand, the next run starts from them
+    private final Queue<Node<E>> parked = new ConcurrentLinkedQueue<>();
+
+    public DFS(ExecutorService executorService,
+               BiFunction<E, Long, Set<E>> getNeighbours,
+               Function<E, E> transformElement,
+               Predicate<Node<E>> searchPredicate,
+               long getNeighboursTimeout) {
+        this(executorService, getNeighbours, transformElement, searchPredicate, getNeighboursTimeout, Integer.MAX_VALUE);
+    }
+
+    public DFS(ExecutorService executorService,
+               BiFunction<E, Long, Set<E>> getNeighbours,
+               Function<E, E> transformElement,
+               Predicate<Node<E>> searchPredicate,
+               long getNeighboursTimeout,
+               int maxDepth) {
+        this(executorService, getNeighbours, transformElement, searchPredicate, getNeighboursTimeout, maxDepth,
+                new ConcurrentVisitedSet<>());
+    }
+
+    public DFS(ExecutorService executorService,
+               BiFunction<E, Long, Set<E>> getNeighbours,
+               Function<E, E> transformElement,
+               Predicate<Node<E>> searchPredicate,
+               long getNeighboursTimeout,
+               int maxDepth,
+               VisitedSet<E> visited) {
+        super(executorService, getNeighbours, transformElement, searchPredicate, 0L, getNeighboursTimeout,
+                visited, new FifoFrontier<>());
+        if (!(executorService instanceof ForkJoinPool)) {
+            throw new IllegalArgumentException("DFS needs a ForkJoinPool, see ExecutorServiceType.FORK_JOIN_POOL");
+        }
+        if (maxDepth < 0) throw new IllegalArgumentException("Max depth must not be negative: " + maxDepth);
+        this.pool = (ForkJoinPool) executorService;
+        this.maxDepth = maxDepth;
+    }
+
+    protected void internalSearch() {
+        pool.invoke(new Roots<>(this));
+    }
+
+    // marked when the task is forked, so two branches never expand the same node
+    private boolean claim(E element) {
+        return visited.add(element);
+    }
+
+    private static class Roots<E> extends CountedCompleter<Void> {
+        private final DFS<E> dfs;
+
+        private Roots(DFS<E> dfs) {
+            this.dfs = dfs;
+        }
+
+        @Override
+        public void compute() {
+            while (dfs.isRunning() && !dfs.parked.isEmpty()) {
+                Node<E> node = dfs.parked.poll();
+                if (node == null) break;
+                addToPendingCount(1);
+                dfs.inFlight.incrementAndGet();
+                new Expand<>(this, dfs, node).fork();
+            }
+            Node<E> node;
+            while (dfs.isRunning() && (node = dfs.pollFrontier()) != null) {
+                dfs.frontier.done(node);
+                // roots are claimed here, a resumed node was claimed by whoever restored it
+                if (!dfs.claim(dfs.transformElement.apply(node.getElement())) && node.getLevel() == 0) continue;
+                addToPendingCount(1);
+                dfs.inFlight.incrementAndGet();
+                new Expand<>(this, dfs, node).fork();
+            }
+            tryComplete();
+        }
+    }
+
+    private static class Expand<E> extends CountedCompleter<Void> {
+        private final DFS<E> dfs;
+        private final Node<E> node;
+
+        private Expand(CountedCompleter<?> parent, DFS<E> dfs, Node<E> node) {
+            super(parent);
+            this.dfs = dfs;
+            this.node = node;
+        }
+
+        @Override
+        public void compute() {
+            try {
+                if (dfs.isCancelled() || dfs.isResult(node)) return;
+                if (dfs.stopped) {
+                    dfs.parked.add(node);
+                    return;
+                }
+                if (node.getLevel() >= dfs.maxDepth) return;
+                Set<E> neighbours = dfs.expand(node);
+                for (E neighbour : neighbours) {
+                    // a match anywhere stops the other branches from forking any further
+                    if (dfs.isCancelled()) break;
+                    E element = dfs.transformElement.apply(neighbour);
+                    if (!dfs.claim(element)) continue;
+                    addToPendingCount(1);
+                    dfs.inFlight.incrementAndGet();
+                    new Expand<>(this, dfs, Node.of(element, node.getLevel() + 1)).fork();
+                }
+                dfs.expanded(node, neighbours);
+            } catch (Exception e) {
+                dfs.failed(node, e);
+            } finally {
+                dfs.taskFinished();
+                tryComplete();
+            }
+        }
+    }
+}
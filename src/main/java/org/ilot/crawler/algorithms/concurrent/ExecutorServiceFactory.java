@@ -8,28 +8,26 @@ public class ExecutorServiceFactory {
     private static final int numberOfProcessorThreads = Runtime.getRuntime().availableProcessors();
 
     public static ExecutorService createDefaultExecutorService(ExecutorServiceType executorServiceType) {
-        if (executorServiceType == ExecutorServiceType.EXECUTOR_SERVICE) {
-            return Executors.newFixedThreadPool(numberOfProcessorThreads);
-        } else {
-            return ForkJoinPool.commonPool();
+        switch (executorServiceType) {
+            case EXECUTOR_SERVICE:
+                return Executors.newFixedThreadPool(numberOfProcessorThreads);
+            default:
+                return ForkJoinPool.commonPool();
         }
     }
 
     public static ExecutorService createCustomExecutorService(ExecutorServiceType executorServiceType, int numberOfExecutorThreads) {
-        if (executorServiceType == ExecutorServiceType.EXECUTOR_SERVICE) {
-            return Executors.newFixedThreadPool(numberOfExecutorThreads);
-        } else {
-            return new ForkJoinPool(numberOfExecutorThreads);
+        switch (executorServiceType) {
+            case EXECUTOR_SERVICE:
+                return Executors.newFixedThreadPool(numberOfExecutorThreads);
+            default:
+                return new ForkJoinPool(numberOfExecutorThreads);
         }
     }
 
     public static ExecutorService createCustomExecutorService(ExecutorServiceType executorServiceType, double blockingCoefficient) {
         // from Venkat Subramaniam - Programming Concurrency on the JVM
         int numberOfExecutorThreads = (int) Math.round(numberOfProcessorThreads / (1 - blockingCoefficient));
-        if (executorServiceType == ExecutorServiceType.EXECUTOR_SERVICE) {
-            return Executors.newFixedThreadPool(numberOfExecutorThreads);
-        } else {
-            return new ForkJoinPool(numberOfExecutorThreads);
-        }
+        return createCustomExecutorService(executorServiceType, numberOfExecutorThreads);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,148 @@
+package org.ilot.crawler.algorithms.concurrent;
+
+import org.ilot.crawler.algorithms.concurrent.frontier.FifoFrontier;
+import org.ilot.crawler.algorithms.concurrent.frontier.Frontier;
+import org.ilot.crawler.algorithms.visited.ConcurrentVisitedSet;
+import org.ilot.crawler.algorithms.visited.VisitedSet;
+import org.ilot.crawler.metrics.CrawlMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// Expands the whole current level as one batch while workers collect the next level in the frontier.
+// With a level fraction below 1 the next batch starts once that share of the current one has finished,
+// and the stragglers' children are picked up by the batch after.
+public class LevelSynchronousBFS<E> extends AbstractGraphAlgorithm<E> {
+    private final double levelFraction;
+
+    public LevelSynchronousBFS(ExecutorService executorService,
+                               BiFunction<E, Long, Set<E>> getNeighbours,
+                               Function<E, E> transformElement,
+                               Predicate<Node<E>> searchPredicate,
+                               long isEmptyTimeout,
+                               long getNeighboursTimeout) {
+        this(executorService, getNeighbours, transformElement, searchPredicate, isEmptyTimeout, getNeighboursTimeout, 1d);
+    }
+
+    public LevelSynchronousBFS(ExecutorService executorService,
+                               BiFunction<E, Long, Set<E>> getNeighbours,
+                               Function<E, E> transformElement,
+                               Predicate<Node<E>> searchPredicate,
+                               long isEmptyTimeout,
+                               long getNeighboursTimeout,
+                               double levelFraction) {
+        this(executorService, getNeighbours, transformElement, searchPredicate, isEmptyTimeout, getNeighboursTimeout,
+                levelFraction, new ConcurrentVisitedSet<>(), new FifoFrontier<>());
+    }
+
+    public LevelSynchronousBFS(ExecutorService executorService,
+                               BiFunction<E, Long, Set<E>> getNeighbours,
+                               Function<E, E> transformElement,
+                               Predicate<Node<E>> searchPredicate,
+                               long isEmptyTimeout,
+                               long getNeighboursTimeout,
+                               double levelFraction,
+                               VisitedSet<E> visited,
+                               Frontier<E> frontier) {
+        super(executorService, getNeighbours, transformElement, searchPredicate, isEmptyTimeout, getNeighboursTimeout,
+                visited, frontier);
+        if (levelFraction <= 0d || levelFraction > 1d) throw new IllegalArgumentException("Level fraction must be in (0, 1]");
+        this.levelFraction = levelFraction;
+    }
+
+    protected void internalSearch() {
+        List<Node<E>> batch = new ArrayList<>();
+        while (isRunning()) {
+            for (Node<E> node = pollFrontier(); node != null; node = pollFrontier()) {
+                batch.add(node);
+            }
+            if (batch.isEmpty()) {
+                // workers publish children before leaving the in-flight count
+                if (inFlight.get() == 0 && frontier.isEmpty()) break;
+                park();
+                continue;
+            }
+            Level level = new Level(Math.max(1, (int) Math.ceil(batch.size() * levelFraction)));
+            long start = CrawlMetrics.start();
+            inFlight.addAndGet(batch.size());
+            for (Node<E> node : batch) {
+                executorService.execute(new Worker<>(this, node, level));
+            }
+            metrics.record(CrawlMetrics.Stage.DISPATCH, start);
+            batch.clear();
+            while (!level.isReached() && inFlight.get() > 0 && isRunning()) {
+                park();
+            }
+        }
+        awaitInFlight();
+    }
+
+    private void park() {
+        LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(isEmptyTimeout));
+    }
+
+    private static final class Level {
+        private final int threshold;
+        private final AtomicInteger finished = new AtomicInteger();
+
+        private Level(int threshold) {
+            this.threshold = threshold;
+        }
+
+        // how many workers of this level have finished, this one included
+        private int finish() {
+            return finished.incrementAndGet();
+        }
+
+        private boolean isReached() {
+            return finished.get() >= threshold;
+        }
+    }
+
+    private static class Worker<E> extends AbstractWorker<E> {
+        private final LevelSynchronousBFS<E> bfs;
+        private final Level level;
+
+        private Worker(LevelSynchronousBFS<E> bfs, Node<E> node, Level level) {
+            super(bfs, node);
+            this.bfs = bfs;
+            this.level = level;
+        }
+
+        @Override
+        public void run() {
+            boolean published = false;
+            try {
+                if (isResult(node)) return;
+                ga.visited.add(node.getElement());
+                if (ga.isCancelled()) return;
+                Set<E> neighbours = getNeighbours();
+                for (E neighbour : neighbours) {
+                    E element = ga.transformElement.apply(neighbour);
+                    // claimed on discovery, so each node lands in exactly one batch
+                    if (ga.visited.add(element)) {
+                        ga.addNode.accept(Node.of(element, node.getLevel() + 1));
+                        published = true;
+                    }
+                }
+                ga.expanded(node, neighbours);
+            } catch (Exception e) {
+                ga.failed(node, e);
+            } finally {
+                ga.frontier.done(node);
+                int finished = level.finish();
+                // a straggler finishing after its level was reached may find the dispatcher parked on an empty frontier
+                boolean wake = finished == level.threshold || (finished > level.threshold && published);
+                if (bfs.inFlight.decrementAndGet() == 0 || wake || !ga.isRunning()) LockSupport.unpark(ga.dispatcherThread);
+            }
+        }
+    }
+}
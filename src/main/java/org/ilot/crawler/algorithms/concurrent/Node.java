@@ -2,20 +2,22 @@ package org.ilot.crawler.algorithms.concurrent;
 
 import java.util.Objects;
 
-class Node<E> {
+public class Node<E> {
     private final E element;
     private final int level;
+    // cached like String's, it fits in the padding of the object header so a node stays 24 bytes
+    private int hash;
 
     private Node(E element, int level) {
         this.element = element;
         this.level = level;
     }
 
-    E getElement() {
+    public E getElement() {
         return element;
     }
 
-    int getLevel() {
+    public int getLevel() {
         return level;
     }
 
@@ -29,7 +31,12 @@ class Node<E> {
 
     @Override
     public int hashCode() {
-        return Objects.hash(element);
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hashCode(element);
+            hash = h;
+        }
+        return h;
     }
 
     @Override
@@ -40,11 +47,11 @@ class Node<E> {
                 '}';
     }
 
-    static <E> Node<E> of(E element) {
+    public static <E> Node<E> of(E element) {
         return new Node<>(element, 0);
     }
 
-    static <E> Node<E> of(E element, int level) {
+    public static <E> Node<E> of(E element, int level) {
         return new Node<>(element, level);
     }
 }
\ No newline at end of file
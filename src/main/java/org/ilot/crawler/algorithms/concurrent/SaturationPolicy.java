@@ -0,0 +1,8 @@
+package org.ilot.crawler.algorithms.concurrent;
+
+public enum SaturationPolicy {
+    // dispatcher blocks until in-flight tasks drain to the low watermark
+    WAIT,
+    // dispatcher expands the node itself, which throttles dispatch by the cost of one task
+    CALLER_RUNS
+}
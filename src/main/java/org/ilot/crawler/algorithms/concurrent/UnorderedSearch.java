@@ -1,13 +1,22 @@
 package org.ilot.crawler.algorithms.concurrent;
 
+import org.ilot.crawler.algorithms.concurrent.frontier.FifoFrontier;
+import org.ilot.crawler.algorithms.concurrent.frontier.Frontier;
+import org.ilot.crawler.algorithms.visited.ConcurrentVisitedSet;
+import org.ilot.crawler.algorithms.visited.VisitedSet;
+import org.ilot.crawler.metrics.CrawlMetrics;
+
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 public class UnorderedSearch<E> extends AbstractGraphAlgorithm<E> {
+    private static final int DEFAULT_HIGH_WATERMARK = 256;
+    private static final int DEFAULT_LOW_WATERMARK = 192;
+
+    private final BoundedDispatcher dispatcher;
 
     public UnorderedSearch(ExecutorService executorService,
                            BiFunction<E, Long, Set<E>> getNeighbours,
@@ -15,26 +24,66 @@ public class UnorderedSearch<E> extends AbstractGraphAlgorithm<E> {
                            Predicate<Node<E>> searchPredicate,
                            long isEmptyTimeout,
                            long getNeighboursTimeout) {
-        super(executorService, getNeighbours, transformElement, searchPredicate, isEmptyTimeout, getNeighboursTimeout);
+        this(executorService, getNeighbours, transformElement, searchPredicate, isEmptyTimeout, getNeighboursTimeout,
+                new ConcurrentVisitedSet<>());
     }
 
-    protected void internalSearch() {
-        while (awaitNotEmpty() && !resultFound) {
-            Node<E> node = workDeque.poll();
-            if (node == null) continue;
-            executorService.execute(new Worker<>(this, node));
-            sleep(); // for testing until saturation policy is implemented
-        }
-        executorService.shutdownNow();
+    public UnorderedSearch(ExecutorService executorService,
+                           BiFunction<E, Long, Set<E>> getNeighbours,
+                           Function<E, E> transformElement,
+                           Predicate<Node<E>> searchPredicate,
+                           long isEmptyTimeout,
+                           long getNeighboursTimeout,
+                           VisitedSet<E> visited) {
+        this(executorService, getNeighbours, transformElement, searchPredicate, isEmptyTimeout, getNeighboursTimeout,
+                visited, new FifoFrontier<>());
+    }
+
+    public UnorderedSearch(ExecutorService executorService,
+                           BiFunction<E, Long, Set<E>> getNeighbours,
+                           Function<E, E> transformElement,
+                           Predicate<Node<E>> searchPredicate,
+                           long isEmptyTimeout,
+                           long getNeighboursTimeout,
+                           VisitedSet<E> visited,
+                           Frontier<E> frontier) {
+        this(executorService, getNeighbours, transformElement, searchPredicate, isEmptyTimeout, getNeighboursTimeout,
+                visited, frontier, DEFAULT_HIGH_WATERMARK, DEFAULT_LOW_WATERMARK, SaturationPolicy.WAIT);
     }
 
-    // TODO implement proper saturation policy, hack for now
-    private static void sleep() {
-        try {
-            Thread.sleep(500);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+    public UnorderedSearch(ExecutorService executorService,
+                           BiFunction<E, Long, Set<E>> getNeighbours,
+                           Function<E, E> transformElement,
+                           Predicate<Node<E>> searchPredicate,
+                           long isEmptyTimeout,
+                           long getNeighboursTimeout,
+                           VisitedSet<E> visited,
+                           Frontier<E> frontier,
+                           int highWatermark,
+                           int lowWatermark,
+                           SaturationPolicy saturationPolicy) {
+        super(executorService, getNeighbours, transformElement, searchPredicate, isEmptyTimeout, getNeighboursTimeout,
+                visited, frontier);
+        this.dispatcher = new BoundedDispatcher(executorService, highWatermark, lowWatermark, saturationPolicy);
+    }
+
+    protected void internalSearch() {
+        while (awaitNotEmpty() && isRunning()) {
+            Node<E> node = pollFrontier();
+            if (node == null) continue;
+            long start = CrawlMetrics.start();
+            inFlight.incrementAndGet();
+            try {
+                dispatcher.dispatch(new Worker<>(this, node));
+            } catch (InterruptedException e) {
+                inFlight.decrementAndGet();
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                metrics.record(CrawlMetrics.Stage.DISPATCH, start);
+            }
         }
+        awaitInFlight();
     }
 
     private static class Worker<E> extends AbstractWorker<E> {
@@ -44,19 +93,25 @@ public class UnorderedSearch<E> extends AbstractGraphAlgorithm<E> {
 
         @Override
         public void run() {
-            if (ga.visited.contains(node.getElement())) return;
-            if (Thread.currentThread().isInterrupted()) return;
-            Set<Node<E>> nodes = ga.getNeighbours.apply(node.getElement(), ga.getNeighboursTimeout)
-                    .stream()
-                    .map(ga.transformElement)
-                    .filter(e -> !ga.visited.contains(e))
-                    .map(e -> Node.of(e, node.getLevel() + 1))
-                    .collect(Collectors.toSet());
-
-            if (nodes.stream().anyMatch(this::isResult)) return;
-            nodes.forEach(ga.addNode);
-            ga.visited.add(node.getElement());
-            signalNotEmpty(ga.lock, ga.isEmpty);
+            try {
+                // roots are claimed here, every other node when it was discovered
+                ga.visited.add(node.getElement());
+                if (ga.isCancelled()) return;
+                Set<E> neighbours = getNeighbours();
+                for (E neighbour : neighbours) {
+                    E element = ga.transformElement.apply(neighbour);
+                    if (!ga.visited.add(element)) continue;
+                    Node<E> child = Node.of(element, node.getLevel() + 1);
+                    if (isResult(child)) return;
+                    ga.addNode.accept(child);
+                }
+                ga.expanded(node, neighbours);
+            } catch (Exception e) {
+                ga.failed(node, e);
+            } finally {
+                ga.frontier.done(node);
+                ga.taskFinished();
+            }
         }
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+package org.ilot.crawler.algorithms.concurrent.frontier;
+
+import org.ilot.crawler.algorithms.concurrent.Node;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class FifoFrontier<E> implements Frontier<E> {
+    private final Queue<Node<E>> nodes = new ConcurrentLinkedQueue<>();
+    private final AtomicLong size = new AtomicLong();
+
+    @Override
+    public void add(Node<E> node) {
+        nodes.add(node);
+        size.incrementAndGet();
+    }
+
+    @Override
+    public Node<E> poll() {
+        Node<E> node = nodes.poll();
+        if (node != null) size.decrementAndGet();
+        return node;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    @Override
+    public long size() {
+        return size.get();
+    }
+}
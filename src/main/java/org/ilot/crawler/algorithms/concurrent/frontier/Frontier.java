@@ -0,0 +1,14 @@
+package org.ilot.crawler.algorithms.concurrent.frontier;
+
+import org.ilot.crawler.algorithms.concurrent.Node;
+
+public interface Frontier<E> {
+    void add(Node<E> node);
+    // null when no node is ready to be handed out right now
+    Node<E> poll();
+    // called once a node handed out by poll has been expanded
+    default void done(Node<E> node) {
+    }
+    boolean isEmpty();
+    long size();
+}
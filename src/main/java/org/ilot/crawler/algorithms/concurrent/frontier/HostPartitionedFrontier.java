@@ -0,0 +1,169 @@
+package org.ilot.crawler.algorithms.concurrent.frontier;
+
+import org.ilot.crawler.algorithms.concurrent.Node;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+public class HostPartitionedFrontier<E> implements Frontier<E> {
+    private static final long MAX_POLL_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final Function<? super E, ?> hostKey;
+    private final int maxConcurrencyPerHost;
+    private final long delayNanos;
+    private final long maxPollWaitNanos;
+
+    private final ConcurrentMap<Object, HostQueue<E>> hosts = new ConcurrentHashMap<>();
+    // hosts with queued nodes and a free slot, ordered by their next allowed fetch time
+    private final DelayQueue<HostQueue<E>> readyHosts = new DelayQueue<>();
+    private final AtomicLong size = new AtomicLong();
+    // only touched by the polling thread
+    private long nextSweepTime = System.nanoTime();
+
+    public HostPartitionedFrontier(Function<? super E, ?> hostKey, int maxConcurrencyPerHost, long delay, TimeUnit unit) {
+        this(hostKey, maxConcurrencyPerHost, delay, unit, MAX_POLL_WAIT_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    // a maxPollWait of 0 makes poll return null right away when no host is ready, for a caller with other work to do
+    public HostPartitionedFrontier(Function<? super E, ?> hostKey,
+                                   int maxConcurrencyPerHost,
+                                   long delay,
+                                   TimeUnit unit,
+                                   long maxPollWait,
+                                   TimeUnit maxPollWaitUnit) {
+        if (maxConcurrencyPerHost < 1) throw new IllegalArgumentException("Per host concurrency must be at least 1");
+        this.hostKey = hostKey;
+        this.maxConcurrencyPerHost = maxConcurrencyPerHost;
+        this.delayNanos = unit.toNanos(delay);
+        this.maxPollWaitNanos = maxPollWaitUnit.toNanos(maxPollWait);
+    }
+
+    @Override
+    public void add(Node<E> node) {
+        Object key = hostKey.apply(node.getElement());
+        size.incrementAndGet();
+        while (true) {
+            HostQueue<E> host = hosts.computeIfAbsent(key, HostQueue::new);
+            synchronized (host) {
+                // swept away since it was looked up, the next lookup creates a new one
+                if (host.evicted) continue;
+                host.nodes.addLast(node);
+                scheduleIfReady(host);
+                return;
+            }
+        }
+    }
+
+    // Waits for the next host whose delay is over and that has a free slot. When every host with
+    // queued nodes is at its cap this blocks until done() releases one, instead of spinning.
+    @Override
+    public Node<E> poll() {
+        sweepIdleHosts();
+        HostQueue<E> host;
+        try {
+            host = maxPollWaitNanos == 0 ? readyHosts.poll() : readyHosts.poll(maxPollWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if (host == null) return null;
+        Node<E> node;
+        synchronized (host) {
+            host.scheduled = false;
+            node = host.nodes.pollFirst();
+            if (node == null) return null;
+            host.inFlight++;
+            host.nextFetchTime = System.nanoTime() + delayNanos;
+            scheduleIfReady(host);
+        }
+        size.decrementAndGet();
+        return node;
+    }
+
+    @Override
+    public void done(Node<E> node) {
+        HostQueue<E> host = hosts.get(hostKey.apply(node.getElement()));
+        if (host == null) return;
+        synchronized (host) {
+            if (host.inFlight > 0) host.inFlight--;
+            scheduleIfReady(host);
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    @Override
+    public long size() {
+        return size.get();
+    }
+
+    public int hostCount() {
+        return hosts.size();
+    }
+
+    // A host with nothing queued or in flight whose delay is over is dropped, so a wide crawl does not
+    // keep one queue for every host it ever saw. Its delay is over, so a new queue for it loses nothing.
+    private void sweepIdleHosts() {
+        long now = System.nanoTime();
+        if (now - nextSweepTime < 0) return;
+        nextSweepTime = now + Math.max(delayNanos, MAX_POLL_WAIT_NANOS);
+        for (HostQueue<E> host : hosts.values()) {
+            synchronized (host) {
+                if (host.nodes.isEmpty() && host.inFlight == 0 && !host.scheduled && now - host.nextFetchTime >= 0) {
+                    host.evicted = true;
+                    hosts.remove(host.key, host);
+                }
+            }
+        }
+    }
+
+    // caller holds the host's monitor
+    private void scheduleIfReady(HostQueue<E> host) {
+        if (host.scheduled || host.nodes.isEmpty() || host.inFlight >= maxConcurrencyPerHost) return;
+        host.scheduled = true;
+        readyHosts.add(host);
+    }
+
+    private static final class HostQueue<E> implements Delayed {
+        private final Object key;
+        private final Deque<Node<E>> nodes = new ArrayDeque<>();
+        private int inFlight;
+        private boolean scheduled;
+        private boolean evicted;
+        // only changes while the host is not in the delay queue
+        private volatile long nextFetchTime = System.nanoTime();
+
+        private HostQueue(Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(nextFetchTime - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.signum(nextFetchTime - ((HostQueue<?>) other).nextFetchTime);
+        }
+
+        @Override
+        public String toString() {
+            return "HostQueue{" +
+                    "key=" + key +
+                    ", queued=" + nodes.size() +
+                    ", inFlight=" + inFlight +
+                    '}';
+        }
+    }
+}
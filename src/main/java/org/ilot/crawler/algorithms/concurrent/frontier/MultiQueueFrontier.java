@@ -0,0 +1,182 @@
+package org.ilot.crawler.algorithms.concurrent.frontier;
+
+import org.ilot.crawler.algorithms.concurrent.Node;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Relaxed priority frontier (MultiQueue, Rihani et al.): nodes go to a random heap, poll takes the better top of
+// two random heaps. Threads only ever tryLock a single heap, so there is no global lock, and poll returns a node
+// close to, but not always exactly, the best one.
+// Adding an element that is already queued counts an inlink and re-inserts it with its new score,
+// the older entry is skipped once it reaches the top of its heap.
+public class MultiQueueFrontier<E> implements Frontier<E> {
+    private static final int QUEUES_PER_THREAD = 2;
+    private static final double EMPTY = Double.NEGATIVE_INFINITY;
+
+    private final Scorer<? super E> scorer;
+    private final Heap<E>[] heaps;
+    private final ConcurrentMap<E, Queued<E>> queued = new ConcurrentHashMap<>();
+    private final AtomicLong size = new AtomicLong();
+
+    public MultiQueueFrontier(Scorer<? super E> scorer) {
+        this(scorer, QUEUES_PER_THREAD * Runtime.getRuntime().availableProcessors());
+    }
+
+    @SuppressWarnings("unchecked")
+    public MultiQueueFrontier(Scorer<? super E> scorer, int queues) {
+        if (queues < 1) throw new IllegalArgumentException("At least one queue is needed");
+        this.scorer = scorer;
+        this.heaps = new Heap[queues];
+        for (int i = 0; i < queues; i++) {
+            heaps[i] = new Heap<>();
+        }
+    }
+
+    @Override
+    public void add(Node<E> node) {
+        Queued<E> entry = queued.compute(node.getElement(), (element, current) -> {
+            if (current == null) {
+                size.incrementAndGet();
+                return new Queued<>(node);
+            }
+            current.linked(node);
+            return current;
+        });
+        Entry<E> scored;
+        synchronized (entry) {
+            scored = new Entry<>(entry, ++entry.version,
+                    scorer.score(entry.node.getElement(), entry.node.getLevel(), entry.inlinks));
+        }
+        insert(scored);
+    }
+
+    @Override
+    public Node<E> poll() {
+        while (size.get() > 0) {
+            Entry<E> entry = pollBest();
+            if (entry == null) return null;
+            Queued<E> current = entry.queued;
+            // a newer entry for the same element is still in some heap, or the element was already handed out
+            if (entry.version != current.version) continue;
+            if (!queued.remove(current.node.getElement(), current)) continue;
+            size.decrementAndGet();
+            return current.node;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    @Override
+    public long size() {
+        return size.get();
+    }
+
+    private void insert(Entry<E> entry) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            Heap<E> heap = heaps[random.nextInt(heaps.length)];
+            if (!heap.lock.tryLock()) continue;
+            try {
+                heap.add(entry);
+                return;
+            } finally {
+                heap.lock.unlock();
+            }
+        }
+    }
+
+    private Entry<E> pollBest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; attempt < heaps.length; attempt++) {
+            Heap<E> first = heaps[random.nextInt(heaps.length)];
+            Heap<E> second = heaps[random.nextInt(heaps.length)];
+            Heap<E> best = first.top >= second.top ? first : second;
+            if (best.top == EMPTY || !best.lock.tryLock()) continue;
+            try {
+                Entry<E> entry = best.poll();
+                if (entry != null) return entry;
+            } finally {
+                best.lock.unlock();
+            }
+        }
+        // random picks kept missing, a few non-empty heaps among many empty ones
+        for (Heap<E> heap : heaps) {
+            if (heap.top == EMPTY) continue;
+            heap.lock.lock();
+            try {
+                Entry<E> entry = heap.poll();
+                if (entry != null) return entry;
+            } finally {
+                heap.lock.unlock();
+            }
+        }
+        return null;
+    }
+
+    private static final class Heap<E> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final PriorityQueue<Entry<E>> entries = new PriorityQueue<>();
+        // score of the head, read without the lock to pick a heap
+        private volatile double top = EMPTY;
+
+        // caller holds the lock
+        private void add(Entry<E> entry) {
+            entries.add(entry);
+            top = entries.peek().score;
+        }
+
+        // caller holds the lock
+        private Entry<E> poll() {
+            Entry<E> entry = entries.poll();
+            Entry<E> head = entries.peek();
+            top = head == null ? EMPTY : head.score;
+            return entry;
+        }
+    }
+
+    // the element's state while it is queued, shared by all of its heap entries
+    private static final class Queued<E> {
+        private volatile Node<E> node;
+        private int inlinks;
+        private volatile int version;
+
+        private Queued(Node<E> node) {
+            this.node = node;
+            this.inlinks = 1;
+        }
+
+        // called inside compute, keeps the shallowest level the element was found at
+        private void linked(Node<E> other) {
+            synchronized (this) {
+                inlinks++;
+                if (other.getLevel() < node.getLevel()) node = other;
+            }
+        }
+    }
+
+    private static final class Entry<E> implements Comparable<Entry<E>> {
+        private final Queued<E> queued;
+        private final int version;
+        private final double score;
+
+        private Entry(Queued<E> queued, int version, double score) {
+            this.queued = queued;
+            this.version = version;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Entry<E> other) {
+            return Double.compare(other.score, score);
+        }
+    }
+}
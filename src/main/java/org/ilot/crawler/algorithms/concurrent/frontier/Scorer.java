@@ -0,0 +1,15 @@
+package org.ilot.crawler.algorithms.concurrent.frontier;
+
+// Priority of a queued element, higher scores are handed out first.
+// Called again with the new inlink count whenever another page links to an element that is still queued.
+public interface Scorer<E> {
+    double score(E element, int level, int inlinks);
+
+    static <E> Scorer<E> shallowFirst() {
+        return (element, level, inlinks) -> -level;
+    }
+
+    static <E> Scorer<E> mostInlinks() {
+        return (element, level, inlinks) -> inlinks;
+    }
+}
@@ -0,0 +1,77 @@
+package org.ilot.crawler.algorithms.concurrent.frontier;
+
+import org.ilot.crawler.algorithms.concurrent.Node;
+import org.ilot.crawler.storage.Codec;
+import org.ilot.crawler.storage.SpillingQueue;
+import org.ilot.crawler.storage.VarInts;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class SpillingFrontier<E> implements Frontier<E>, Closeable {
+    private final SpillingQueue<Node<E>> nodes;
+
+    public SpillingFrontier(Path directory, Codec<E> codec) {
+        this.nodes = new SpillingQueue<>(directory, new NodeCodec<>(codec));
+    }
+
+    public SpillingFrontier(Path directory, Codec<E> codec, int inMemoryCapacity, int segmentSize) {
+        this.nodes = new SpillingQueue<>(directory, new NodeCodec<>(codec), inMemoryCapacity, segmentSize);
+    }
+
+    @Override
+    public void add(Node<E> node) {
+        nodes.add(node);
+    }
+
+    @Override
+    public Node<E> poll() {
+        return nodes.poll();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    @Override
+    public long size() {
+        return nodes.longSize();
+    }
+
+    public long spilledNodes() {
+        return nodes.spilledElements();
+    }
+
+    @Override
+    public void close() throws IOException {
+        nodes.close();
+    }
+
+    // level as a varint in front of the element's own encoding
+    private static final class NodeCodec<E> implements Codec<Node<E>> {
+        private final Codec<E> elementCodec;
+
+        private NodeCodec(Codec<E> elementCodec) {
+            this.elementCodec = elementCodec;
+        }
+
+        @Override
+        public byte[] encode(Node<E> node) {
+            byte[] element = elementCodec.encode(node.getElement());
+            ByteBuffer record = ByteBuffer.allocate(VarInts.size(node.getLevel()) + element.length);
+            VarInts.write(record, node.getLevel());
+            return record.put(element).array();
+        }
+
+        @Override
+        public Node<E> decode(byte[] record) {
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            int level = VarInts.read(buffer);
+            return Node.of(elementCodec.decode(Arrays.copyOfRange(record, buffer.position(), record.length)), level);
+        }
+    }
+}
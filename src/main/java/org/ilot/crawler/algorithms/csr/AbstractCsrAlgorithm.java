@@ -0,0 +1,98 @@
+package org.ilot.crawler.algorithms.csr;
+
+import org.ilot.crawler.algorithms.GraphAlgorithm;
+import org.springframework.util.Assert;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+// Runs over int vertex ids, elements are only looked up for the search predicate and the returned result.
+// The visited state survives between calls, so continue* picks up where the last run stopped.
+public abstract class AbstractCsrAlgorithm<E> implements GraphAlgorithm<E> {
+    protected static final int NOT_FOUND = -1;
+
+    protected final CsrGraph<E> graph;
+    protected final IntConsumer visitor;
+    private final Predicate<E> searchPredicate;
+    // checked once per vertex, the vertices already discovered stay marked visited
+    protected volatile boolean stopped;
+
+    AbstractCsrAlgorithm(CsrGraph<E> graph, IntConsumer visitor, Predicate<E> searchPredicate) {
+        Assert.notNull(graph, "Graph must not be null!");
+        this.graph = graph;
+        this.visitor = visitor;
+        this.searchPredicate = searchPredicate;
+    }
+
+    // returns the first vertex matching the search predicate, NOT_FOUND when only traversing
+    protected abstract int run(int[] sources, boolean searching);
+
+    public abstract int visitedCount();
+
+    public abstract void reset();
+
+    @Override
+    public void traverse(E rootElement) {
+        Assert.notNull(rootElement, "Root element must not be null!");
+        stopped = false;
+        run(new int[]{idOf(rootElement)}, false);
+    }
+
+    @Override
+    public Optional<E> search(E rootElement) {
+        Assert.notNull(rootElement, "Root element must not be null!");
+        Assert.state(searchPredicate != null, "Search predicate must be defined when using search function.");
+        stopped = false;
+        return toResult(run(new int[]{idOf(rootElement)}, true));
+    }
+
+    @Override
+    public void continueTraversingFrom(List<E> nodes) {
+        Assert.notNull(nodes, "Nodes must not be null!");
+        stopped = false;
+        run(idsOf(nodes), false);
+    }
+
+    @Override
+    public Optional<E> continueSearchingFrom(List<E> nodes) {
+        Assert.notNull(nodes, "Nodes must not be null!");
+        Assert.state(searchPredicate != null, "Search predicate must be defined when using search function.");
+        stopped = false;
+        return toResult(run(idsOf(nodes), true));
+    }
+
+    // runs are in memory and short, aborting is stopping
+    @Override
+    public void stop() {
+        stopped = true;
+    }
+
+    @Override
+    public void abort() {
+        stop();
+    }
+
+    protected boolean isResult(int vertex) {
+        return searchPredicate.test(graph.elementOf(vertex));
+    }
+
+    private int idOf(E element) {
+        int id = graph.idOf(element);
+        if (id < 0) throw new IllegalArgumentException("Not a vertex of the graph: " + element);
+        return id;
+    }
+
+    private int[] idsOf(List<E> elements) {
+        int[] ids = new int[elements.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = idOf(elements.get(i));
+        }
+        return ids;
+    }
+
+    private Optional<E> toResult(int vertex) {
+        return vertex == NOT_FOUND ? Optional.empty() : Optional.of(graph.elementOf(vertex));
+    }
+}
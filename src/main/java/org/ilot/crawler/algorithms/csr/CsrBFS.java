@@ -0,0 +1,78 @@
+package org.ilot.crawler.algorithms.csr;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+public class CsrBFS<E> extends AbstractCsrAlgorithm<E> {
+    private final BitSet visited;
+    // every vertex is enqueued at most once, so one array of vertexCount serves all runs
+    private final int[] queue;
+    private final int[] depths;
+
+    private CsrBFS(CsrGraph<E> graph, IntConsumer visitor, Predicate<E> searchPredicate) {
+        super(graph, visitor, searchPredicate);
+        this.visited = new BitSet(graph.vertexCount());
+        this.queue = new int[graph.vertexCount()];
+        this.depths = new int[graph.vertexCount()];
+        Arrays.fill(depths, -1);
+    }
+
+    public static <E> CsrBFS<E> createTraversing(CsrGraph<E> graph) {
+        return new CsrBFS<>(graph, null, null);
+    }
+
+    public static <E> CsrBFS<E> createTraversing(CsrGraph<E> graph, IntConsumer visitor) {
+        return new CsrBFS<>(graph, visitor, null);
+    }
+
+    public static <E> CsrBFS<E> createSearching(CsrGraph<E> graph, Predicate<E> searchPredicate) {
+        return new CsrBFS<>(graph, null, searchPredicate);
+    }
+
+    @Override
+    protected int run(int[] sources, boolean searching) {
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        int head = 0;
+        int tail = 0;
+        for (int source : sources) {
+            if (visited.get(source)) continue;
+            visited.set(source);
+            depths[source] = 0;
+            queue[tail++] = source;
+        }
+        while (head < tail && !stopped) {
+            int vertex = queue[head++];
+            if (visitor != null) visitor.accept(vertex);
+            if (searching && isResult(vertex)) return vertex;
+            int depth = depths[vertex] + 1;
+            for (int edge = offsets[vertex], end = offsets[vertex + 1]; edge < end; edge++) {
+                int target = targets[edge];
+                if (visited.get(target)) continue;
+                visited.set(target);
+                depths[target] = depth;
+                queue[tail++] = target;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    // hops from the closest source of the run that reached the element, -1 if it was not reached
+    public int depthOf(E element) {
+        int id = graph.idOf(element);
+        return id < 0 ? -1 : depths[id];
+    }
+
+    @Override
+    public int visitedCount() {
+        return visited.cardinality();
+    }
+
+    @Override
+    public void reset() {
+        visited.clear();
+        Arrays.fill(depths, -1);
+    }
+}
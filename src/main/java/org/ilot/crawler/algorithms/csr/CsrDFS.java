@@ -0,0 +1,76 @@
+package org.ilot.crawler.algorithms.csr;
+
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+// Pre-order DFS. Each stack slot keeps the next edge to follow, so the stack never grows past vertexCount.
+public class CsrDFS<E> extends AbstractCsrAlgorithm<E> {
+    private final BitSet visited;
+    private final int[] stack;
+    private final int[] cursors;
+
+    private CsrDFS(CsrGraph<E> graph, IntConsumer visitor, Predicate<E> searchPredicate) {
+        super(graph, visitor, searchPredicate);
+        this.visited = new BitSet(graph.vertexCount());
+        this.stack = new int[graph.vertexCount()];
+        this.cursors = new int[graph.vertexCount()];
+    }
+
+    public static <E> CsrDFS<E> createTraversing(CsrGraph<E> graph) {
+        return new CsrDFS<>(graph, null, null);
+    }
+
+    public static <E> CsrDFS<E> createTraversing(CsrGraph<E> graph, IntConsumer visitor) {
+        return new CsrDFS<>(graph, visitor, null);
+    }
+
+    public static <E> CsrDFS<E> createSearching(CsrGraph<E> graph, Predicate<E> searchPredicate) {
+        return new CsrDFS<>(graph, null, searchPredicate);
+    }
+
+    @Override
+    protected int run(int[] sources, boolean searching) {
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        for (int source : sources) {
+            if (stopped) break;
+            if (visited.get(source)) continue;
+            if (visit(source, searching)) return source;
+            int top = 0;
+            stack[top] = source;
+            cursors[top++] = offsets[source];
+            while (top > 0 && !stopped) {
+                int vertex = stack[top - 1];
+                int edge = cursors[top - 1];
+                if (edge == offsets[vertex + 1]) {
+                    top--;
+                    continue;
+                }
+                cursors[top - 1] = edge + 1;
+                int target = targets[edge];
+                if (visited.get(target)) continue;
+                if (visit(target, searching)) return target;
+                stack[top] = target;
+                cursors[top++] = offsets[target];
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    private boolean visit(int vertex, boolean searching) {
+        visited.set(vertex);
+        if (visitor != null) visitor.accept(vertex);
+        return searching && isResult(vertex);
+    }
+
+    @Override
+    public int visitedCount() {
+        return visited.cardinality();
+    }
+
+    @Override
+    public void reset() {
+        visited.clear();
+    }
+}
@@ -0,0 +1,164 @@
+package org.ilot.crawler.algorithms.csr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Compressed sparse row graph: the out-edges of vertex v are targets[offsets[v]] .. targets[offsets[v + 1] - 1].
+// Elements are mapped to dense int ids once, the algorithms then only touch int arrays.
+public final class CsrGraph<E> {
+    private final int[] offsets;
+    private final int[] targets;
+    private final List<E> elements;
+    private final Map<E, Integer> ids;
+    private volatile CsrGraph<E> transposed;
+
+    private CsrGraph(int[] offsets, int[] targets, List<E> elements, Map<E, Integer> ids) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.elements = elements;
+        this.ids = ids;
+    }
+
+    public static <E> Builder<E> builder() {
+        return new Builder<>();
+    }
+
+    // the part of the graph reachable from root, getNeighbours is called once per vertex
+    public static <E> CsrGraph<E> fromNeighbours(E root, Function<E, ? extends Collection<E>> getNeighbours) {
+        return CsrGraph.<E>builder().explore(root, getNeighbours).build();
+    }
+
+    public int vertexCount() {
+        return offsets.length - 1;
+    }
+
+    public long edgeCount() {
+        return targets.length;
+    }
+
+    public int idOf(E element) {
+        Integer id = ids.get(element);
+        return id == null ? -1 : id;
+    }
+
+    public E elementOf(int id) {
+        return elements.get(id);
+    }
+
+    public int degree(int vertex) {
+        return offsets[vertex + 1] - offsets[vertex];
+    }
+
+    int[] offsets() {
+        return offsets;
+    }
+
+    int[] targets() {
+        return targets;
+    }
+
+    // same vertices with every edge reversed, built on first use
+    public CsrGraph<E> transpose() {
+        CsrGraph<E> result = transposed;
+        if (result == null) {
+            synchronized (this) {
+                result = transposed;
+                if (result == null) {
+                    int[] sources = new int[targets.length];
+                    for (int vertex = 0; vertex < vertexCount(); vertex++) {
+                        Arrays.fill(sources, offsets[vertex], offsets[vertex + 1], vertex);
+                    }
+                    result = compress(vertexCount(), targets, sources, targets.length, elements, ids);
+                    result.transposed = this;
+                    transposed = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    // counting sort of the edge list by source, keeps the insertion order of each vertex's edges
+    private static <E> CsrGraph<E> compress(int vertices, int[] sources, int[] destinations, int edges,
+                                            List<E> elements, Map<E, Integer> ids) {
+        int[] offsets = new int[vertices + 1];
+        for (int i = 0; i < edges; i++) {
+            offsets[sources[i] + 1]++;
+        }
+        for (int vertex = 0; vertex < vertices; vertex++) {
+            offsets[vertex + 1] += offsets[vertex];
+        }
+        int[] cursor = Arrays.copyOf(offsets, vertices);
+        int[] targets = new int[edges];
+        for (int i = 0; i < edges; i++) {
+            targets[cursor[sources[i]]++] = destinations[i];
+        }
+        return new CsrGraph<>(offsets, targets, elements, ids);
+    }
+
+    public static final class Builder<E> {
+        private final Map<E, Integer> ids = new HashMap<>();
+        private final List<E> elements = new ArrayList<>();
+        private int[] sources = new int[16];
+        private int[] destinations = new int[16];
+        private int edges;
+
+        private Builder() {
+        }
+
+        public int addVertex(E element) {
+            Integer id = ids.get(element);
+            if (id != null) return id;
+            id = elements.size();
+            ids.put(element, id);
+            elements.add(element);
+            return id;
+        }
+
+        public Builder<E> addEdge(E from, E to) {
+            addEdge(addVertex(from), addVertex(to));
+            return this;
+        }
+
+        private void addEdge(int from, int to) {
+            if (edges == sources.length) {
+                int capacity = (int) Math.min(Integer.MAX_VALUE - 8, sources.length * 2L);
+                if (capacity == edges) throw new IllegalStateException("CSR graphs hold at most " + edges + " edges");
+                sources = Arrays.copyOf(sources, capacity);
+                destinations = Arrays.copyOf(destinations, capacity);
+            }
+            sources[edges] = from;
+            destinations[edges++] = to;
+        }
+
+        public Builder<E> explore(E root, Function<E, ? extends Collection<E>> getNeighbours) {
+            BitSet explored = new BitSet();
+            int[] queue = new int[16];
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = addVertex(root);
+            explored.set(queue[0]);
+            while (head < tail) {
+                int vertex = queue[head++];
+                for (E neighbour : getNeighbours.apply(elements.get(vertex))) {
+                    int target = addVertex(neighbour);
+                    addEdge(vertex, target);
+                    if (explored.get(target)) continue;
+                    explored.set(target);
+                    if (tail == queue.length) queue = Arrays.copyOf(queue, queue.length * 2);
+                    queue[tail++] = target;
+                }
+            }
+            return this;
+        }
+
+        public CsrGraph<E> build() {
+            return compress(elements.size(), sources, destinations, edges, new ArrayList<>(elements), new HashMap<>(ids));
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package org.ilot.crawler.algorithms.csr;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+// Level synchronous, direction optimizing BFS (Beamer et al.). Small frontiers are expanded top-down, each
+// frontier vertex claims its unvisited targets with a CAS. Once the frontier's edges outweigh the unexplored
+// part of the graph it switches to bottom-up: every unvisited vertex scans its incoming edges for a parent in
+// the frontier and stops at the first one. Bottom-up tasks own whole visited words, so they need no CAS.
+// The visitor and the search predicate are called from the pool's threads.
+public class ParallelCsrBFS<E> extends AbstractCsrAlgorithm<E> {
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+    private static final int TOP_DOWN_GRAIN = 256;
+    private static final int BOTTOM_UP_GRAIN = 64;
+
+    private final CsrGraph<E> incoming;
+    private final ForkJoinPool pool;
+    private final AtomicLongArray visited;
+    private final int[] depths;
+
+    private int[] frontier;
+    private int[] next;
+    private long[] frontierBits;
+    private long[] nextBits;
+    private final AtomicInteger nextSize = new AtomicInteger();
+    private final AtomicLong nextEdges = new AtomicLong();
+    private final AtomicInteger found = new AtomicInteger(NOT_FOUND);
+
+    private ParallelCsrBFS(CsrGraph<E> graph, ForkJoinPool pool, IntConsumer visitor, Predicate<E> searchPredicate) {
+        super(graph, visitor, searchPredicate);
+        int vertices = graph.vertexCount();
+        int words = (vertices + 63) >>> 6;
+        this.incoming = graph.transpose();
+        this.pool = pool;
+        this.visited = new AtomicLongArray(words);
+        this.depths = new int[vertices];
+        this.frontier = new int[vertices];
+        this.next = new int[vertices];
+        this.frontierBits = new long[words];
+        this.nextBits = new long[words];
+        Arrays.fill(depths, -1);
+    }
+
+    public static <E> ParallelCsrBFS<E> createTraversing(CsrGraph<E> graph) {
+        return createTraversing(graph, ForkJoinPool.commonPool());
+    }
+
+    public static <E> ParallelCsrBFS<E> createTraversing(CsrGraph<E> graph, ForkJoinPool pool) {
+        return new ParallelCsrBFS<>(graph, pool, null, null);
+    }
+
+    public static <E> ParallelCsrBFS<E> createTraversing(CsrGraph<E> graph, ForkJoinPool pool, IntConsumer visitor) {
+        return new ParallelCsrBFS<>(graph, pool, visitor, null);
+    }
+
+    public static <E> ParallelCsrBFS<E> createSearching(CsrGraph<E> graph, Predicate<E> searchPredicate) {
+        return createSearching(graph, ForkJoinPool.commonPool(), searchPredicate);
+    }
+
+    public static <E> ParallelCsrBFS<E> createSearching(CsrGraph<E> graph, ForkJoinPool pool, Predicate<E> searchPredicate) {
+        return new ParallelCsrBFS<>(graph, pool, null, searchPredicate);
+    }
+
+    @Override
+    protected synchronized int run(int[] sources, boolean searching) {
+        found.set(NOT_FOUND);
+        int vertices = graph.vertexCount();
+        int size = 0;
+        long frontierEdges = 0;
+        for (int source : sources) {
+            if (!claim(source)) continue;
+            depths[source] = 0;
+            frontier[size++] = source;
+            frontierEdges += graph.degree(source);
+            visit(source, searching);
+        }
+        // an estimate only, vertices visited by earlier runs are still counted as unexplored
+        long unexploredEdges = graph.edgeCount() - frontierEdges;
+        boolean bottomUp = false;
+        int depth = 0;
+        while (size > 0 && found.get() == NOT_FOUND && !stopped) {
+            if (!bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+                toBits(size);
+                bottomUp = true;
+            } else if (bottomUp && size < vertices / BETA) {
+                toList();
+                bottomUp = false;
+            }
+            depth++;
+            nextSize.set(0);
+            nextEdges.set(0);
+            if (bottomUp) {
+                pool.invoke(new BottomUp(0, frontierBits.length, depth, searching));
+                long[] swap = frontierBits;
+                frontierBits = nextBits;
+                nextBits = swap;
+            } else {
+                pool.invoke(new TopDown(0, size, depth, searching));
+                int[] swap = frontier;
+                frontier = next;
+                next = swap;
+            }
+            size = nextSize.get();
+            frontierEdges = nextEdges.get();
+            unexploredEdges -= frontierEdges;
+        }
+        return found.get();
+    }
+
+    private boolean claim(int vertex) {
+        int index = vertex >>> 6;
+        long bit = 1L << vertex;
+        long word;
+        do {
+            word = visited.get(index);
+            if ((word & bit) != 0) return false;
+        } while (!visited.compareAndSet(index, word, word | bit));
+        return true;
+    }
+
+    private void visit(int vertex, boolean searching) {
+        if (visitor != null) visitor.accept(vertex);
+        if (searching && isResult(vertex)) found.compareAndSet(NOT_FOUND, vertex);
+    }
+
+    private void toBits(int size) {
+        Arrays.fill(frontierBits, 0L);
+        for (int i = 0; i < size; i++) {
+            frontierBits[frontier[i] >>> 6] |= 1L << frontier[i];
+        }
+    }
+
+    private void toList() {
+        int size = 0;
+        for (int index = 0; index < frontierBits.length; index++) {
+            for (long word = frontierBits[index]; word != 0; word &= word - 1) {
+                frontier[size++] = index << 6 | Long.numberOfTrailingZeros(word);
+            }
+        }
+    }
+
+    // hops from the closest source of the run that reached the element, -1 if it was not reached
+    public int depthOf(E element) {
+        int id = graph.idOf(element);
+        return id < 0 ? -1 : depths[id];
+    }
+
+    @Override
+    public int visitedCount() {
+        int count = 0;
+        for (int index = 0; index < visited.length(); index++) {
+            count += Long.bitCount(visited.get(index));
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized void reset() {
+        for (int index = 0; index < visited.length(); index++) {
+            visited.set(index, 0L);
+        }
+        Arrays.fill(depths, -1);
+    }
+
+    // expands frontier[from, to)
+    private class TopDown extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int depth;
+        private final boolean searching;
+
+        private TopDown(int from, int to, int depth, boolean searching) {
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+            this.searching = searching;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > TOP_DOWN_GRAIN) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new TopDown(from, middle, depth, searching), new TopDown(middle, to, depth, searching));
+                return;
+            }
+            int[] offsets = graph.offsets();
+            int[] targets = graph.targets();
+            int[] claimed = new int[TOP_DOWN_GRAIN];
+            int count = 0;
+            long edges = 0;
+            for (int i = from; i < to && found.get() == NOT_FOUND && !stopped; i++) {
+                int vertex = frontier[i];
+                for (int edge = offsets[vertex], end = offsets[vertex + 1]; edge < end; edge++) {
+                    int target = targets[edge];
+                    if (!claim(target)) continue;
+                    depths[target] = depth;
+                    edges += graph.degree(target);
+                    visit(target, searching);
+                    if (count == claimed.length) claimed = Arrays.copyOf(claimed, count * 2);
+                    claimed[count++] = target;
+                }
+            }
+            // one reservation per task keeps contention on nextSize low
+            System.arraycopy(claimed, 0, next, nextSize.getAndAdd(count), count);
+            nextEdges.addAndGet(edges);
+        }
+    }
+
+    // looks for parents of the unvisited vertices in visited words [from, to)
+    private class BottomUp extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int depth;
+        private final boolean searching;
+
+        private BottomUp(int from, int to, int depth, boolean searching) {
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+            this.searching = searching;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > BOTTOM_UP_GRAIN) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BottomUp(from, middle, depth, searching), new BottomUp(middle, to, depth, searching));
+                return;
+            }
+            int[] offsets = incoming.offsets();
+            int[] sources = incoming.targets();
+            int vertices = graph.vertexCount();
+            int count = 0;
+            long edges = 0;
+            for (int index = from; index < to; index++) {
+                long claimed = 0;
+                for (long unvisited = ~visited.get(index); unvisited != 0; unvisited &= unvisited - 1) {
+                    int vertex = index << 6 | Long.numberOfTrailingZeros(unvisited);
+                    if (vertex >= vertices || found.get() != NOT_FOUND || stopped) break;
+                    for (int edge = offsets[vertex], end = offsets[vertex + 1]; edge < end; edge++) {
+                        int source = sources[edge];
+                        if ((frontierBits[source >>> 6] & 1L << source) == 0) continue;
+                        claimed |= 1L << vertex;
+                        depths[vertex] = depth;
+                        edges += graph.degree(vertex);
+                        count++;
+                        visit(vertex, searching);
+                        break;
+                    }
+                }
+                if (claimed != 0) visited.set(index, visited.get(index) | claimed);
+                nextBits[index] = claimed;
+            }
+            nextSize.addAndGet(count);
+            nextEdges.addAndGet(edges);
+        }
+    }
+}
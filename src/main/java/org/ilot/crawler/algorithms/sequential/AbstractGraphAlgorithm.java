@@ -3,9 +3,9 @@ package org.ilot.crawler.algorithms.sequential;
 import org.ilot.crawler.algorithms.GraphAlgorithm;
 import org.springframework.util.Assert;
 
-import java.util.Deque;
 import java.util.List;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -13,13 +13,15 @@ import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public abstract class AbstractGraphAlgorithm<E> implements GraphAlgorithm<E> {
-    private final Deque<E> workDequeue;
+    private final Queue<E> workDequeue;
     private final Set<E> visited;
     private final Consumer<E> addElement;
     private final Function<E, Set<E>> getNeighbours;
     private Predicate<E> searchPredicate;
+    // checked between elements, whatever is left in the work queue is kept for continue*
+    private volatile boolean stopped;
 
-    AbstractGraphAlgorithm(Deque<E> workDequeue,
+    AbstractGraphAlgorithm(Queue<E> workDequeue,
                            Set<E> visited,
                            Consumer<E> addElement,
                            Function<E, Set<E>> getNeighbours) {
@@ -29,7 +31,7 @@ public abstract class AbstractGraphAlgorithm<E> implements GraphAlgorithm<E> {
         this.getNeighbours = getNeighbours;
     }
 
-    AbstractGraphAlgorithm(Deque<E> workDequeue,
+    AbstractGraphAlgorithm(Queue<E> workDequeue,
                            Set<E> visited,
                            Consumer<E> addElement,
                            Function<E, Set<E>> getNeighbours,
@@ -41,13 +43,53 @@ public abstract class AbstractGraphAlgorithm<E> implements GraphAlgorithm<E> {
     @Override
     public void traverse(E rootElement) {
         Assert.notNull(rootElement, "Root element must not be null!");
+        stopped = false;
         workDequeue.add(rootElement);
+        internalTraverse();
+    }
+
+    // TODO revisit method
+    @Override
+    public Optional<E> search(E rootElement) {
+        Assert.notNull(rootElement, "Root element must not be null!");
+        Assert.state(searchPredicate != null, "Search predicate must be defined when using search function.");
+        stopped = false;
+        workDequeue.add(rootElement);
+        return internalSearch();
+    }
+
+    @Override
+    public void continueTraversingFrom(List<E> nodes) {
+        Assert.notNull(nodes, "Nodes must not be null!");
+        stopped = false;
+        workDequeue.addAll(nodes);
+        internalTraverse();
+    }
+
+    @Override
+    public Optional<E> continueSearchingFrom(List<E> nodes) {
+        Assert.notNull(nodes, "Nodes must not be null!");
+        Assert.state(searchPredicate != null, "Search predicate must be defined when using search function.");
+        stopped = false;
+        workDequeue.addAll(nodes);
+        return internalSearch();
+    }
+
+    // there is nothing in flight to cancel, so aborting is stopping
+    @Override
+    public void stop() {
+        stopped = true;
+    }
 
-        while (!workDequeue.isEmpty()) {
+    @Override
+    public void abort() {
+        stop();
+    }
+
+    private void internalTraverse() {
+        while (!stopped && !workDequeue.isEmpty()) {
             E element = workDequeue.poll();
             if (element == null || visited.contains(element)) continue;
-            // TODO remove
-            System.out.println("Current element -> " + element);
 
             getNeighbours.apply(element)
                     .stream()
@@ -59,14 +101,8 @@ public abstract class AbstractGraphAlgorithm<E> implements GraphAlgorithm<E> {
         }
     }
 
-    // TODO revisit method
-    @Override
-    public Optional<E> search(E rootElement) {
-        Assert.notNull(rootElement, "Root element must not be null!");
-        Assert.state(searchPredicate != null, "Search predicate must be defined when using search function.");
-        workDequeue.add(rootElement);
-
-        while (!workDequeue.isEmpty()) {
+    private Optional<E> internalSearch() {
+        while (!stopped && !workDequeue.isEmpty()) {
             E element = workDequeue.poll();
             if (element == null) continue;
             if (searchPredicate.test(element)) return Optional.of(element);
@@ -82,15 +118,4 @@ public abstract class AbstractGraphAlgorithm<E> implements GraphAlgorithm<E> {
         }
         return Optional.empty();
     }
-
-    @Override
-    public void continueTraversingFrom(List<E> nodes) {
-        // TODO implement
-    }
-
-    @Override
-    public Optional<E> continueSearchingFrom(List<E> nodes) {
-        // TODO implement
-        return Optional.empty();
-    }
 }
\ No newline at end of file
@@ -1,26 +1,35 @@
 package org.ilot.crawler.algorithms.sequential;
 
-import java.util.Deque;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.Queue;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
 public class BFS<E> extends AbstractGraphAlgorithm<E> {
-    private BFS(Deque<E> workDequeue, Set<E> visited, Function<E, Set<E>> getNeighboursFunction) {
-        super(workDequeue, visited, workDequeue::addLast, getNeighboursFunction);
+    private BFS(Queue<E> workDequeue, Set<E> visited, Function<E, Set<E>> getNeighboursFunction) {
+        super(workDequeue, visited, workDequeue::add, getNeighboursFunction);
     }
 
-    private BFS(Deque<E> workDequeue, Set<E> visited, Function<E, Set<E>> getNeighboursFunction, Predicate<E> searchPredicate) {
-        super(workDequeue, visited, workDequeue::addLast, getNeighboursFunction, searchPredicate);
+    private BFS(Queue<E> workDequeue, Set<E> visited, Function<E, Set<E>> getNeighboursFunction, Predicate<E> searchPredicate) {
+        super(workDequeue, visited, workDequeue::add, getNeighboursFunction, searchPredicate);
     }
 
-    public static <E> BFS createTraversing(Function<E, Set<E>> getNeighboursFunction) {
+    public static <E> BFS<E> createTraversing(Function<E, Set<E>> getNeighboursFunction) {
         return new BFS<>(new LinkedList<>(), new HashSet<>(), getNeighboursFunction);
     }
 
-    public static <E> BFS createSearching(Function<E, Set<E>> getNeighboursFunction, Predicate<E> searchPredicate) {
+    public static <E> BFS<E> createSearching(Function<E, Set<E>> getNeighboursFunction, Predicate<E> searchPredicate) {
         return new BFS<>(new LinkedList<>(), new HashSet<>(), getNeighboursFunction, searchPredicate);
     }
+
+    // e.g. a SpillingQueue, for frontiers that outgrow the heap
+    public static <E> BFS<E> createTraversing(Function<E, Set<E>> getNeighboursFunction, Queue<E> frontier) {
+        return new BFS<>(frontier, new HashSet<>(), getNeighboursFunction);
+    }
+
+    public static <E> BFS<E> createSearching(Function<E, Set<E>> getNeighboursFunction, Predicate<E> searchPredicate, Queue<E> frontier) {
+        return new BFS<>(frontier, new HashSet<>(), getNeighboursFunction, searchPredicate);
+    }
 }
@@ -13,11 +13,11 @@ public class DFS<E> extends AbstractGraphAlgorithm<E> {
         super(workDequeue, visited, workDequeue::addFirst, getNeighboursFunction, searchPredicate);
     }
 
-    public static <E> DFS createTraversing(Function<E, Set<E>> getNeighboursFunction) {
+    public static <E> DFS<E> createTraversing(Function<E, Set<E>> getNeighboursFunction) {
         return new DFS<>(new LinkedList<>(), new HashSet<>(), getNeighboursFunction);
     }
 
-    public static <E> DFS createSearching(Function<E, Set<E>> getNeighboursFunction, Predicate<E> searchPredicate) {
+    public static <E> DFS<E> createSearching(Function<E, Set<E>> getNeighboursFunction, Predicate<E> searchPredicate) {
         return new DFS<>(new LinkedList<>(), new HashSet<>(), getNeighboursFunction, searchPredicate);
     }
 }
\ No newline at end of file
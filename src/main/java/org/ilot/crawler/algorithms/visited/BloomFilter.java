@@ -0,0 +1,64 @@
+package org.ilot.crawler.algorithms.visited;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class BloomFilter {
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashFunctions;
+    private final LongAdder insertions = new LongAdder();
+
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        if (expectedInsertions <= 0) throw new IllegalArgumentException("Expected insertions must be positive");
+        if (falsePositiveProbability <= 0d || falsePositiveProbability >= 1d) {
+            throw new IllegalArgumentException("False positive probability must be in (0, 1)");
+        }
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + Long.SIZE - 1) / Long.SIZE);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * Long.SIZE;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    public boolean put(long fingerprint) {
+        long hash1 = fingerprint;
+        long hash2 = Long.rotateLeft(fingerprint, 32) | 1L;
+        boolean changed = false;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = bits.get(word);
+            while ((current & mask) == 0) {
+                if (bits.compareAndSet(word, current, current | mask)) {
+                    changed = true;
+                    break;
+                }
+                current = bits.get(word);
+            }
+        }
+        if (changed) insertions.increment();
+        return changed;
+    }
+
+    public boolean mightContain(long fingerprint) {
+        long hash1 = fingerprint;
+        long hash2 = Long.rotateLeft(fingerprint, 32) | 1L;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    public long memoryUsage() {
+        return bitCount / Byte.SIZE;
+    }
+
+    // (1 - e^(-kn/m))^k for the current number of insertions
+    public double expectedFalsePositiveRate() {
+        double fill = 1d - Math.exp(-hashFunctions * insertions.doubleValue() / bitCount);
+        return Math.pow(fill, hashFunctions);
+    }
+}
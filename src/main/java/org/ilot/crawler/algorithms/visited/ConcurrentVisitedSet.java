@@ -0,0 +1,36 @@
+package org.ilot.crawler.algorithms.visited;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ConcurrentVisitedSet<E> implements VisitedSet<E> {
+    // node, table slot and key-set overhead per mapping, element payload excluded
+    private static final long ENTRY_OVERHEAD = 48L;
+
+    private final Set<E> elements = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public boolean add(E element) {
+        return elements.add(element);
+    }
+
+    @Override
+    public boolean contains(E element) {
+        return elements.contains(element);
+    }
+
+    @Override
+    public long size() {
+        return elements.size();
+    }
+
+    @Override
+    public long memoryUsage() {
+        return size() * ENTRY_OVERHEAD;
+    }
+
+    @Override
+    public double falsePositiveRate() {
+        return 0d;
+    }
+}
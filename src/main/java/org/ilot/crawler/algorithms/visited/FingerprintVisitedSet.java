@@ -0,0 +1,133 @@
+package org.ilot.crawler.algorithms.visited;
+
+import java.util.Arrays;
+import java.util.function.ToLongFunction;
+
+public class FingerprintVisitedSet<E> implements VisitedSet<E> {
+    private static final double FINGERPRINT_SPACE = Math.pow(2, Long.SIZE);
+    private static final int DEFAULT_STRIPES = Runtime.getRuntime().availableProcessors() * 4;
+
+    private final ToLongFunction<? super E> fingerprint;
+    private final StripedLongHashSet fingerprints;
+    private final BloomFilter bloomFilter;
+    // fingerprints a partition added, so release can take them out again; null for the whole table
+    private final Partition partition;
+
+    public FingerprintVisitedSet(ToLongFunction<? super E> fingerprint,
+                                 long expectedSize,
+                                 int stripes,
+                                 boolean offHeap,
+                                 BloomFilter bloomFilter) {
+        this(fingerprint, new StripedLongHashSet(stripes, expectedSize, offHeap), bloomFilter, null);
+    }
+
+    private FingerprintVisitedSet(ToLongFunction<? super E> fingerprint,
+                                  StripedLongHashSet fingerprints,
+                                  BloomFilter bloomFilter,
+                                  Partition partition) {
+        this.fingerprint = fingerprint;
+        this.fingerprints = fingerprints;
+        this.bloomFilter = bloomFilter;
+        this.partition = partition;
+    }
+
+    public static <E> FingerprintVisitedSet<E> create(ToLongFunction<? super E> fingerprint, long expectedSize) {
+        return new FingerprintVisitedSet<>(fingerprint, expectedSize, DEFAULT_STRIPES, false, null);
+    }
+
+    public static <E> FingerprintVisitedSet<E> createOffHeap(ToLongFunction<? super E> fingerprint, long expectedSize) {
+        return new FingerprintVisitedSet<>(fingerprint, expectedSize, DEFAULT_STRIPES, true, null);
+    }
+
+    public static <E> FingerprintVisitedSet<E> createWithBloomFilter(ToLongFunction<? super E> fingerprint,
+                                                                     long expectedSize,
+                                                                     boolean offHeap,
+                                                                     double bloomFalsePositiveProbability) {
+        return new FingerprintVisitedSet<>(fingerprint, expectedSize, DEFAULT_STRIPES, offHeap,
+                new BloomFilter(expectedSize, bloomFalsePositiveProbability));
+    }
+
+    public static FingerprintVisitedSet<String> forStrings(long expectedSize) {
+        return create(Fingerprints::of, expectedSize);
+    }
+
+    // A view over the same table in which elements only collide with elements added through an equally
+    // salted view, e.g. one per crawl job so that jobs share the memory but not each other's visits.
+    // size and memoryUsage are those of the whole table. Call release once the view is no longer needed.
+    public FingerprintVisitedSet<E> partition(long salt) {
+        long mixedSalt = Fingerprints.mix(salt);
+        return new FingerprintVisitedSet<>(element -> fingerprint.applyAsLong(element) ^ mixedSalt, fingerprints,
+                bloomFilter, new Partition());
+    }
+
+    // Takes everything this partition added out of the shared table, and whatever it adds from now on is
+    // taken out right away. The Bloom filter keeps their bits, at worst costing other views a table probe.
+    public void release() {
+        if (partition == null) throw new IllegalStateException("Only a partition can be released");
+        partition.release(fingerprints);
+    }
+
+    @Override
+    public boolean add(E element) {
+        long fingerprint = this.fingerprint.applyAsLong(element);
+        // filter first, so a fingerprint present in the table is never filtered out
+        if (bloomFilter != null) bloomFilter.put(fingerprint);
+        boolean added = fingerprints.add(fingerprint);
+        if (added && partition != null) partition.added(fingerprint, fingerprints);
+        return added;
+    }
+
+    @Override
+    public boolean contains(E element) {
+        long fingerprint = this.fingerprint.applyAsLong(element);
+        // the filter only short-circuits misses, the table stays authoritative
+        if (bloomFilter != null && !bloomFilter.mightContain(fingerprint)) return false;
+        return fingerprints.contains(fingerprint);
+    }
+
+    @Override
+    public long size() {
+        return fingerprints.size();
+    }
+
+    @Override
+    public long memoryUsage() {
+        return fingerprints.memoryUsage() + (bloomFilter == null ? 0L : bloomFilter.memoryUsage());
+    }
+
+    // chance that an unseen element shares a 64-bit fingerprint with one of the stored ones
+    @Override
+    public double falsePositiveRate() {
+        return size() / FINGERPRINT_SPACE;
+    }
+
+    public double bloomFilterFalsePositiveRate() {
+        return bloomFilter == null ? 0d : bloomFilter.expectedFalsePositiveRate();
+    }
+
+    private static final class Partition {
+        // guarded by this
+        private long[] added = new long[16];
+        private int count;
+        private boolean released;
+
+        private synchronized void added(long fingerprint, StripedLongHashSet fingerprints) {
+            // an expansion still running when its job ended
+            if (released) {
+                fingerprints.remove(fingerprint);
+                return;
+            }
+            if (count == added.length) added = Arrays.copyOf(added, count << 1);
+            added[count++] = fingerprint;
+        }
+
+        private synchronized void release(StripedLongHashSet fingerprints) {
+            if (released) return;
+            released = true;
+            for (int i = 0; i < count; i++) {
+                fingerprints.remove(added[i]);
+            }
+            added = null;
+        }
+    }
+}
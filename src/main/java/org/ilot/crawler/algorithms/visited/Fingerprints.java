@@ -0,0 +1,35 @@
+package org.ilot.crawler.algorithms.visited;
+
+public final class Fingerprints {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Fingerprints() {
+    }
+
+    public static long of(CharSequence value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0, length = value.length(); i < length; i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    public static long of(byte[] value, int offset, int length) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            hash = (hash ^ (value[i] & 0xff)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    // murmur3 finalizer, spreads FNV's weak high bits over the whole word
+    public static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
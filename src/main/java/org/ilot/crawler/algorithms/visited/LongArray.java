@@ -0,0 +1,74 @@
+package org.ilot.crawler.algorithms.visited;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+abstract class LongArray {
+    abstract long get(int index);
+
+    abstract void set(int index, long value);
+
+    abstract int length();
+
+    long memoryUsage() {
+        return (long) length() * Long.BYTES;
+    }
+
+    static LongArray allocate(int length, boolean offHeap) {
+        return offHeap ? new OffHeap(length) : new OnHeap(length);
+    }
+
+    private static final class OnHeap extends LongArray {
+        private final long[] values;
+
+        private OnHeap(int length) {
+            this.values = new long[length];
+        }
+
+        @Override
+        long get(int index) {
+            return values[index];
+        }
+
+        @Override
+        void set(int index, long value) {
+            values[index] = value;
+        }
+
+        @Override
+        int length() {
+            return values.length;
+        }
+    }
+
+    // released together with its buffer once the stripe drops the reference
+    private static final class OffHeap extends LongArray {
+        private final LongBuffer values;
+
+        private OffHeap(int length) {
+            long bytes = (long) length * Long.BYTES;
+            if (bytes > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Off-heap array of " + length + " longs exceeds the size of a direct buffer");
+            }
+            this.values = ByteBuffer.allocateDirect((int) bytes)
+                    .order(ByteOrder.nativeOrder())
+                    .asLongBuffer();
+        }
+
+        @Override
+        long get(int index) {
+            return values.get(index);
+        }
+
+        @Override
+        void set(int index, long value) {
+            values.put(index, value);
+        }
+
+        @Override
+        int length() {
+            return values.capacity();
+        }
+    }
+}
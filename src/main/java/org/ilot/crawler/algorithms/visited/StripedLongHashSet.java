@@ -0,0 +1,173 @@
+package org.ilot.crawler.algorithms.visited;
+
+import java.util.concurrent.locks.StampedLock;
+
+// open-addressing set of non-zero longs, split into independently locked and resized stripes
+final class StripedLongHashSet {
+    private static final long EMPTY = 0L;
+    private static final long ZERO_SUBSTITUTE = 0x9e3779b97f4a7c15L;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MAX_STRIPE_CAPACITY = 1 << 28;
+    // a direct buffer holds at most Integer.MAX_VALUE bytes
+    private static final int MAX_OFF_HEAP_STRIPE_CAPACITY = 1 << 27;
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+
+    StripedLongHashSet(int stripeCount, long expectedSize, boolean offHeap) {
+        int stripes = Math.max(1, Integer.highestOneBit(stripeCount - 1) << 1);
+        int maxStripeCapacity = offHeap ? MAX_OFF_HEAP_STRIPE_CAPACITY : MAX_STRIPE_CAPACITY;
+        int stripeCapacity = capacityFor((expectedSize + stripes - 1) / stripes, maxStripeCapacity);
+        this.stripes = new Stripe[stripes];
+        this.stripeShift = Long.SIZE - Integer.numberOfTrailingZeros(stripes);
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe(stripeCapacity, maxStripeCapacity, offHeap);
+        }
+    }
+
+    boolean add(long key) {
+        key = key == EMPTY ? ZERO_SUBSTITUTE : key;
+        return stripeFor(key).add(key);
+    }
+
+    boolean contains(long key) {
+        key = key == EMPTY ? ZERO_SUBSTITUTE : key;
+        return stripeFor(key).contains(key);
+    }
+
+    boolean remove(long key) {
+        key = key == EMPTY ? ZERO_SUBSTITUTE : key;
+        return stripeFor(key).remove(key);
+    }
+
+    long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    long memoryUsage() {
+        long memory = 0;
+        for (Stripe stripe : stripes) {
+            memory += stripe.table.memoryUsage();
+        }
+        return memory;
+    }
+
+    private Stripe stripeFor(long key) {
+        return stripeShift == Long.SIZE ? stripes[0] : stripes[(int) (key >>> stripeShift)];
+    }
+
+    private static int capacityFor(long expectedSize, int maxCapacity) {
+        long capacity = Math.max(16L, (long) Math.ceil(expectedSize / (double) LOAD_FACTOR));
+        return (int) Math.min(maxCapacity, Long.highestOneBit(capacity - 1) << 1);
+    }
+
+    private static int slot(long key, int mask) {
+        // low bits, the high ones already picked the stripe
+        return (int) (key ^ (key >>> 29)) & mask;
+    }
+
+    private static final class Stripe {
+        private final StampedLock lock = new StampedLock();
+        private final int maxCapacity;
+        private final boolean offHeap;
+        private volatile LongArray table;
+        private volatile int size;
+
+        private Stripe(int capacity, int maxCapacity, boolean offHeap) {
+            this.maxCapacity = maxCapacity;
+            this.offHeap = offHeap;
+            this.table = LongArray.allocate(capacity, offHeap);
+        }
+
+        private boolean contains(long key) {
+            long stamp = lock.tryOptimisticRead();
+            boolean found = probe(table, key);
+            if (lock.validate(stamp)) return found;
+            stamp = lock.readLock();
+            try {
+                return probe(table, key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private boolean add(long key) {
+            long stamp = lock.writeLock();
+            try {
+                LongArray table = this.table;
+                if (size >= table.length() - 1) {
+                    throw new IllegalStateException("Visited set stripe is full, increase the expected size or stripe count");
+                }
+                int mask = table.length() - 1;
+                for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+                    long current = table.get(i);
+                    if (current == key) return false;
+                    if (current == EMPTY) {
+                        table.set(i, key);
+                        break;
+                    }
+                }
+                if (++size > table.length() * LOAD_FACTOR) resize(table);
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        // Backward shift instead of tombstones: the keys probing past the freed slot move up into it,
+        // so every probe still ends at the first empty slot. Optimistic readers retry on the write lock.
+        private boolean remove(long key) {
+            long stamp = lock.writeLock();
+            try {
+                LongArray table = this.table;
+                int mask = table.length() - 1;
+                int hole = slot(key, mask);
+                for (long current; (current = table.get(hole)) != key; hole = (hole + 1) & mask) {
+                    if (current == EMPTY) return false;
+                }
+                for (int i = (hole + 1) & mask; ; i = (i + 1) & mask) {
+                    long current = table.get(i);
+                    if (current == EMPTY) break;
+                    // a key stays put when its home slot lies cyclically after the hole, up to where it sits
+                    int home = slot(current, mask);
+                    if (((i - home) & mask) < ((i - hole) & mask)) continue;
+                    table.set(hole, current);
+                    hole = i;
+                }
+                table.set(hole, EMPTY);
+                size--;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void resize(LongArray table) {
+            if (table.length() >= maxCapacity) return;
+            LongArray resized = LongArray.allocate(table.length() << 1, offHeap);
+            int mask = resized.length() - 1;
+            for (int i = 0, length = table.length(); i < length; i++) {
+                long key = table.get(i);
+                if (key == EMPTY) continue;
+                int j = slot(key, mask);
+                while (resized.get(j) != EMPTY) j = (j + 1) & mask;
+                resized.set(j, key);
+            }
+            this.table = resized;
+        }
+
+        private static boolean probe(LongArray table, long key) {
+            int mask = table.length() - 1;
+            for (int i = slot(key, mask), probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+                long current = table.get(i);
+                if (current == key) return true;
+                if (current == EMPTY) return false;
+            }
+            return false;
+        }
+    }
+}
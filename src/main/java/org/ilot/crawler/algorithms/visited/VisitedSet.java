@@ -0,0 +1,11 @@
+package org.ilot.crawler.algorithms.visited;
+
+public interface VisitedSet<E> {
+    boolean add(E element);
+    boolean contains(E element);
+    long size();
+    // approximate number of bytes held by the set
+    long memoryUsage();
+    // probability that an element which was never added is reported as contained
+    double falsePositiveRate();
+}
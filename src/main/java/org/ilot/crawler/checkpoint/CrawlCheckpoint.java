@@ -0,0 +1,204 @@
+package org.ilot.crawler.checkpoint;
+
+import org.ilot.crawler.algorithms.concurrent.CrawlListener;
+import org.ilot.crawler.algorithms.concurrent.Node;
+import org.ilot.crawler.algorithms.concurrent.frontier.Frontier;
+import org.ilot.crawler.algorithms.visited.FingerprintVisitedSet;
+import org.ilot.crawler.algorithms.visited.Fingerprints;
+import org.ilot.crawler.algorithms.visited.VisitedSet;
+import org.ilot.crawler.storage.AppendLog;
+import org.ilot.crawler.storage.Codec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Journals every node the frontier receives and, as a listener, every node a worker expanded.
+// A background thread appends both journals to their logs periodically and only then moves the
+// committed offsets forward, so workers never wait for disk and a crash loses at most one interval.
+// Resuming replays the completed log into the visited set and returns discovered minus completed, each
+// node at the level it was discovered at and claimed in the visited set as well, for resumeTraversing.
+public class CrawlCheckpoint<E> implements CrawlListener<E>, Closeable {
+    private static final String DISCOVERED_LOG = "discovered.log";
+    private static final String COMPLETED_LOG = "completed.log";
+    private static final String STATE_FILE = "checkpoint.properties";
+
+    private final Path directory;
+    private final Codec<E> codec;
+    private final Queue<Node<E>> discovered = new ConcurrentLinkedQueue<>();
+    private final Queue<E> completed = new ConcurrentLinkedQueue<>();
+    private final AppendLog discoveredLog;
+    private final AppendLog completedLog;
+    private final long restoredDiscoveredLength;
+    private final long restoredCompletedLength;
+    private final ScheduledExecutorService scheduler;
+
+    private long sequence;
+    private volatile IOException failure;
+
+    public CrawlCheckpoint(Path directory, Codec<E> codec, long interval, TimeUnit unit) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.codec = codec;
+        Properties state = readState(directory.resolve(STATE_FILE));
+        this.sequence = Long.parseLong(state.getProperty("sequence", "0"));
+        this.restoredDiscoveredLength = Long.parseLong(state.getProperty("discovered.length", "0"));
+        this.restoredCompletedLength = Long.parseLong(state.getProperty("completed.length", "0"));
+        this.discoveredLog = new AppendLog(directory.resolve(DISCOVERED_LOG), restoredDiscoveredLength);
+        this.completedLog = new AppendLog(directory.resolve(COMPLETED_LOG), restoredCompletedLength);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "crawl-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::checkpointQuietly, interval, interval, unit);
+    }
+
+    public Frontier<E> journal(Frontier<E> frontier) {
+        return new JournalingFrontier<>(frontier, this);
+    }
+
+    @Override
+    public void expanded(Node<E> node, Set<E> neighbours) {
+        completed.add(node.getElement());
+    }
+
+    // Fills visited with completed elements and returns the nodes discovered but never completed. Those are
+    // claimed too, as the crawl had claimed them when it discovered them: a pending node is not queued again
+    // when a pending parent's expansion reaches it.
+    public List<Node<E>> restore(VisitedSet<E> visited) throws IOException {
+        FingerprintVisitedSet<byte[]> seen = FingerprintVisitedSet.create(bytes -> Fingerprints.of(bytes, 0, bytes.length), 1 << 16);
+        AppendLog.read(directory.resolve(COMPLETED_LOG), restoredCompletedLength, record -> {
+            seen.add(record);
+            visited.add(codec.decode(record));
+        });
+        List<Node<E>> pending = new ArrayList<>();
+        AppendLog.read(directory.resolve(DISCOVERED_LOG), restoredDiscoveredLength, record -> {
+            byte[] element = Arrays.copyOfRange(record, Integer.BYTES, record.length);
+            if (!seen.add(element)) return;
+            E decoded = codec.decode(element);
+            visited.add(decoded);
+            pending.add(Node.of(decoded, ByteBuffer.wrap(record).getInt()));
+        });
+        return pending;
+    }
+
+    // Completed first: a node's children reach the discovered journal before the node is completed, so every
+    // completion taken here has its children in the discovered drain that follows, while workers keep running.
+    public synchronized void checkpoint() throws IOException {
+        for (E element = completed.poll(); element != null; element = completed.poll()) {
+            completedLog.append(codec.encode(element));
+        }
+        for (Node<E> node = discovered.poll(); node != null; node = discovered.poll()) {
+            discoveredLog.append(encode(node));
+        }
+        Properties state = new Properties();
+        state.setProperty("sequence", Long.toString(++sequence));
+        state.setProperty("discovered.length", Long.toString(discoveredLog.sync()));
+        state.setProperty("completed.length", Long.toString(completedLog.sync()));
+        writeState(state);
+    }
+
+    public synchronized long sequence() {
+        return sequence;
+    }
+
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            checkpoint();
+        } finally {
+            discoveredLog.close();
+            completedLog.close();
+        }
+        if (failure != null) throw failure;
+    }
+
+    // the level, then the element
+    private byte[] encode(Node<E> node) {
+        byte[] element = codec.encode(node.getElement());
+        return ByteBuffer.allocate(Integer.BYTES + element.length).putInt(node.getLevel()).put(element).array();
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void writeState(Properties state) throws IOException {
+        Path temporary = directory.resolve(STATE_FILE + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            state.store(out, null);
+        }
+        Files.move(temporary, directory.resolve(STATE_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Properties readState(Path path) throws IOException {
+        Properties state = new Properties();
+        if (Files.exists(path)) {
+            try (InputStream in = Files.newInputStream(path)) {
+                state.load(in);
+            }
+        }
+        return state;
+    }
+
+    private static final class JournalingFrontier<E> implements Frontier<E> {
+        private final Frontier<E> delegate;
+        private final CrawlCheckpoint<E> checkpoint;
+
+        private JournalingFrontier(Frontier<E> delegate, CrawlCheckpoint<E> checkpoint) {
+            this.delegate = delegate;
+            this.checkpoint = checkpoint;
+        }
+
+        @Override
+        public void add(Node<E> node) {
+            checkpoint.discovered.add(node);
+            delegate.add(node);
+        }
+
+        @Override
+        public Node<E> poll() {
+            return delegate.poll();
+        }
+
+        @Override
+        public void done(Node<E> node) {
+            delegate.done(node);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return delegate.isEmpty();
+        }
+
+        @Override
+        public long size() {
+            return delegate.size();
+        }
+    }
+}
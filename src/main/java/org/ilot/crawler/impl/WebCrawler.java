@@ -1,57 +1,534 @@
 package org.ilot.crawler.impl;
 
 import org.ilot.crawler.AbstractCrawler;
-import org.ilot.crawler.algorithms.concurrent.BFS;
+import org.ilot.crawler.CrawlResult;
+import org.ilot.crawler.algorithms.concurrent.AbstractGraphAlgorithm;
+import org.ilot.crawler.algorithms.concurrent.AsyncSearch;
+import org.ilot.crawler.algorithms.concurrent.CrawlEngine;
+import org.ilot.crawler.algorithms.concurrent.CrawlJob;
 import org.ilot.crawler.algorithms.concurrent.ExecutorServiceFactory;
 import org.ilot.crawler.algorithms.concurrent.ExecutorServiceType;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.select.Elements;
+import org.ilot.crawler.algorithms.concurrent.LevelSynchronousBFS;
+import org.ilot.crawler.algorithms.concurrent.Node;
+import org.ilot.crawler.algorithms.concurrent.frontier.FifoFrontier;
+import org.ilot.crawler.algorithms.concurrent.frontier.HostPartitionedFrontier;
+import org.ilot.crawler.algorithms.visited.FingerprintVisitedSet;
+import org.ilot.crawler.impl.dedup.NearDuplicateIndex;
+import org.ilot.crawler.impl.dedup.SimHash;
+import org.ilot.crawler.impl.extract.LinkExtractor;
+import org.ilot.crawler.impl.extract.StreamingLinkExtractor;
+import org.ilot.crawler.impl.fetch.AsyncFetcher;
+import org.ilot.crawler.impl.fetch.Page;
+import org.ilot.crawler.impl.fetch.ResponseCache;
+import org.ilot.crawler.impl.url.CompactUrl;
+import org.ilot.crawler.impl.url.UrlCanonicalizer;
+import org.ilot.crawler.impl.url.UrlFilter;
+import org.ilot.crawler.metrics.CrawlMetrics;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.function.Predicate;
 
 
-public class WebCrawler extends AbstractCrawler<String> {
-    private static final BiFunction<String, Long, Set<String>> getNeighboursFunction;
+public class WebCrawler extends AbstractCrawler<CompactUrl> implements Closeable {
+    private static final long EXPECTED_URLS = 1 << 16;
+    private static final int DEFAULT_MAX_CONNECTIONS = 256;
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 8;
+    private static final int ENGINE_CACHE_SIZE = 1024;
+    // below this a page has too little text to call it a copy of another
+    private static final int MIN_SHINGLES = 16;
 
-    static {
-        getNeighboursFunction = (url, timeout) -> {
+    private final AsyncFetcher fetcher;
+    private final UrlCanonicalizer canonicalizer;
+    // shared by every crawl of this instance, shut down on close
+    private final ExecutorService executorService;
+    private final PageBuffer pages;
+    private final Function<ExecutorService, CrawlEngine<CompactUrl>> engineFactory;
+    private final int engineThreads;
+    // started by the first crawl of many seeds, guarded by this
+    private CrawlEngine<CompactUrl> engine;
+    private ExecutorService engineExecutorService;
+
+    public WebCrawler() {
+        this(builder());
+    }
+
+    private WebCrawler(Builder builder) {
+        this(builder, builder.createExecutorService(), new PageBuffer(), builder.createFetcher());
+    }
+
+    private WebCrawler(Builder builder, ExecutorService executorService, PageBuffer pages, AsyncFetcher fetcher) {
+        super(builder.createAlgorithm(executorService, pages, fetcher));
+        this.executorService = executorService;
+        this.pages = pages;
+        this.fetcher = fetcher;
+        this.canonicalizer = builder.canonicalizer;
+        this.engineFactory = builder.engineFactory(pages, fetcher);
+        this.engineThreads = builder.maxConnections;
+        builder.filter.instrument(builder.metrics);
+        instrument(builder.duplicates, builder.metrics);
+        if (builder.cache != null) builder.cache.instrument(builder.metrics);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static WebCrawler createAsync(int maxInFlight, int maxConnectionsPerHost) {
+        return builder().async(maxInFlight, maxConnectionsPerHost).build();
+    }
+
+    // the blocking algorithms wait on the pooled fetcher, so they reuse its connections and DNS cache
+    private static BiFunction<CompactUrl, Long, Set<CompactUrl>> getNeighboursFunction(AsyncFetcher fetcher,
+                                                                                      LinkExtractor linkExtractor,
+                                                                                      UrlCanonicalizer canonicalizer,
+                                                                                      UrlFilter filter,
+                                                                                      NearDuplicateIndex duplicates,
+                                                                                      ResponseCache cache,
+                                                                                      CrawlMetrics metrics,
+                                                                                      PageBuffer pages) {
+        return (url, timeout) -> {
             //2. Fetch the HTML code
-            Document document;
-            try {
-                document = Jsoup.connect(url).timeout(timeout.intValue()).get();
-
-                //3. Parse the HTML to extract links to other URLs
-                Elements linksOnPage = document.select("a[href]");
-
-                return linksOnPage.stream()
-                        .map(page -> page.attr("abs:href"))
-                        .collect(Collectors.toSet());
-            } catch (IOException e) {
-                // TODO handle timeouts
+            Page page = await(fetch(url, timeout, fetcher, cache), url, metrics);
+            if (page == null) return Collections.emptySet();
+            if (isNotModified(page, cache)) {
+                Set<CompactUrl> links = revalidatedLinks(url, canonicalizer, filter, cache, metrics, pages);
+                if (links != null) return links;
+                page = await(fetcher.fetch(url.toString(), timeout), url, metrics);
+                if (page == null) return Collections.emptySet();
             }
-            //noinspection unchecked
-            return Collections.EMPTY_SET;
+
+            //3. Parse the HTML to extract links to other URLs
+            return extractLinks(url, page, linkExtractor, canonicalizer, filter, duplicates, cache, metrics, pages);
         };
     }
 
-    public WebCrawler() {
-        super(new BFS<>(
-                ExecutorServiceFactory.createCustomExecutorService(ExecutorServiceType.FORK_JOIN_POOL, 0.98d),
-                getNeighboursFunction,
-                Function.identity(),
-                e -> true,
-                5000L,
-                3000L)
-        );
+    // null when the fetch failed or the crawl was aborted
+    private static Page await(CompletableFuture<Page> fetch, CompactUrl url, CrawlMetrics metrics) {
+        try {
+            return fetch.get();
+        } catch (InterruptedException e) {
+            // aborted, the request is cancelled instead of running to its timeout
+            fetch.cancel(true);
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | CancellationException e) {
+            metrics.error(url, e);
+            return null;
+        }
+    }
+
+    private static BiFunction<CompactUrl, Long, CompletableFuture<Set<CompactUrl>>> asyncNeighboursFunction(ExecutorService executorService,
+                                                                                                          AsyncFetcher fetcher,
+                                                                                                          LinkExtractor linkExtractor,
+                                                                                                          UrlCanonicalizer canonicalizer,
+                                                                                                          UrlFilter filter,
+                                                                                                          NearDuplicateIndex duplicates,
+                                                                                                          ResponseCache cache,
+                                                                                                          CrawlMetrics metrics,
+                                                                                                          PageBuffer pages) {
+        return (url, timeout) -> {
+            // the request in flight, a 304 the cache cannot stand for is followed by a second one
+            AtomicReference<CompletableFuture<Page>> request = new AtomicReference<>(fetch(url, timeout, fetcher, cache));
+            AtomicBoolean aborted = new AtomicBoolean();
+            CompletableFuture<Set<CompactUrl>> links = request.get().thenComposeAsync(page -> {
+                if (isNotModified(page, cache)) {
+                    Set<CompactUrl> revalidated = revalidatedLinks(url, canonicalizer, filter, cache, metrics, pages);
+                    if (revalidated != null) return CompletableFuture.completedFuture(revalidated);
+                    CompletableFuture<Page> full = fetcher.fetch(url.toString(), timeout);
+                    request.set(full);
+                    if (aborted.get()) full.cancel(true);
+                    return full.thenApplyAsync(
+                            p -> extractLinks(url, p, linkExtractor, canonicalizer, filter, duplicates, cache, metrics, pages), executorService);
+                }
+                return CompletableFuture.completedFuture(
+                        extractLinks(url, page, linkExtractor, canonicalizer, filter, duplicates, cache, metrics, pages));
+            }, executorService);
+            // abort cancels the links, the request behind them has to go too
+            links.whenComplete((result, error) -> {
+                if (!links.isCancelled()) return;
+                aborted.set(true);
+                request.get().cancel(true);
+            });
+            return links;
+        };
+    }
+
+    // only asks whether the page changed when the cache holds it
+    private static CompletableFuture<Page> fetch(CompactUrl url, long timeout, AsyncFetcher fetcher, ResponseCache cache) {
+        String location = url.toString();
+        ResponseCache.Entry cached = cache == null ? null : cache.lookup(location);
+        return cached == null
+                ? fetcher.fetch(location, timeout)
+                : fetcher.fetch(location, timeout, cached.getEtag(), cached.getLastModified());
+    }
+
+    private static Set<CompactUrl> extractLinks(CompactUrl url,
+                                                Page page,
+                                                LinkExtractor linkExtractor,
+                                                UrlCanonicalizer canonicalizer,
+                                                UrlFilter filter,
+                                                NearDuplicateIndex duplicates,
+                                                ResponseCache cache,
+                                                CrawlMetrics metrics,
+                                                PageBuffer pages) {
+        if (!page.isHtml()) {
+            pages.put(url, page);
+            return Collections.emptySet();
+        }
+        // its links are those of the page it copies, following them would mostly find more copies
+        if (isNearDuplicate(page, duplicates, metrics)) {
+            pages.put(url, page);
+            return Collections.emptySet();
+        }
+        long start = CrawlMetrics.start();
+        Set<CompactUrl> links;
+        try {
+            links = canonicalize(linkExtractor.extract(page.openContent(), page.getCharset(), page.getUrl()), canonicalizer, filter);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            metrics.record(CrawlMetrics.Stage.PARSE, start);
+        }
+        pages.put(url, page);
+        if (cache != null) store(url, page, links, cache, metrics);
+        return links;
+    }
+
+    private static boolean isNotModified(Page page, ResponseCache cache) {
+        return cache != null && page.getStatusCode() == 304;
+    }
+
+    // The cached links a 304 confirmed, null when the record is missing or could not be read back. Such a
+    // 304 is no page at all, asked again without validators the server has to send the whole page.
+    private static Set<CompactUrl> revalidatedLinks(CompactUrl url,
+                                                    UrlCanonicalizer canonicalizer,
+                                                    UrlFilter filter,
+                                                    ResponseCache cache,
+                                                    CrawlMetrics metrics,
+                                                    PageBuffer pages) {
+        ResponseCache.CachedResponse cached;
+        try {
+            cached = cache.revalidated(url.toString());
+        } catch (IOException e) {
+            metrics.error(url, e);
+            return null;
+        }
+        if (cached == null) return null;
+        // the links are canonicalized again, the filter may have changed since they were cached
+        pages.put(url, cached.getPage());
+        return canonicalize(cached.getLinks(), canonicalizer, filter);
+    }
+
+    // a page that could not be cached is fetched in full again next time, the crawl goes on
+    private static void store(CompactUrl url, Page page, Set<CompactUrl> links, ResponseCache cache, CrawlMetrics metrics) {
+        List<String> locations = new ArrayList<>(links.size());
+        for (CompactUrl link : links) locations.add(link.toString());
+        try {
+            cache.put(url.toString(), page, locations);
+        } catch (IOException e) {
+            metrics.error(url, e);
+        }
+    }
+
+    private static boolean isNearDuplicate(Page page, NearDuplicateIndex duplicates, CrawlMetrics metrics) {
+        if (duplicates == null) return false;
+        long start = CrawlMetrics.start();
+        try {
+            OptionalLong fingerprint = SimHash.of(page.getContent(), MIN_SHINGLES);
+            return fingerprint.isPresent() && !duplicates.addIfDistinct(fingerprint.getAsLong());
+        } finally {
+            metrics.record(CrawlMetrics.Stage.FINGERPRINT, start);
+        }
+    }
+
+    private static void instrument(NearDuplicateIndex duplicates, CrawlMetrics metrics) {
+        if (duplicates == null) return;
+        metrics.gauge("crawler.pages.fingerprinted", duplicates, NearDuplicateIndex::size);
+        metrics.gauge("crawler.pages.near-duplicates", duplicates, NearDuplicateIndex::duplicates);
+    }
+
+    private static Set<CompactUrl> canonicalize(Collection<String> links, UrlCanonicalizer canonicalizer, UrlFilter filter) {
+        Set<CompactUrl> urls = new HashSet<>(links.size() * 2);
+        for (String link : links) {
+            CompactUrl url = canonicalizer.canonicalize(link);
+            if (url != null && filter.test(url)) urls.add(url);
+        }
+        return urls;
+    }
+
+    public void crawl(String rootUrl) {
+        crawl(toRoot(rootUrl));
+    }
+
+    // Every root is crawled as a job of its own, maxDepth links deep, all of them on one engine sharing this
+    // crawler's fetcher and expansions. Each job keeps to maxConnectionsPerHost fetches at once per host, the
+    // politeness delay apart, and to the filter. Completes once every job has.
+    public CompletableFuture<Void> crawlAll(Collection<String> rootUrls, int maxDepth) {
+        CrawlEngine<CompactUrl> engine = engine();
+        List<CompletableFuture<Optional<CompactUrl>>> jobs = new ArrayList<>(rootUrls.size());
+        for (String rootUrl : rootUrls) {
+            jobs.add(engine.submit(CrawlJob.traverse(toRoot(rootUrl), url -> true, maxDepth)));
+        }
+        return CompletableFuture.allOf(jobs.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private synchronized CrawlEngine<CompactUrl> engine() {
+        if (engine == null) {
+            // the engine's workers wait on their fetches, like the blocking algorithms
+            engineExecutorService = ExecutorServiceFactory.createCustomExecutorService(ExecutorServiceType.FORK_JOIN_POOL, engineThreads);
+            engine = engineFactory.apply(engineExecutorService);
+        }
+        return engine;
+    }
+
+    // the first page the builder's searchPredicate matches, empty when the crawl runs out of pages first
+    public Optional<CompactUrl> crawlAndFind(String rootUrl) {
+        return crawlAndFind(toRoot(rootUrl));
+    }
+
+    public Flow.Publisher<CrawlResult<CompactUrl>> stream(String rootUrl) {
+        return stream(toRoot(rootUrl));
+    }
+
+    // every result of a stream is a CrawledPage
+    @Override
+    protected CrawlResult<CompactUrl> toResult(Node<CompactUrl> node, Set<CompactUrl> links) {
+        return new CrawledPage(node.getElement(), node.getLevel(), links, pages.take(node.getElement()));
+    }
+
+    @Override
+    protected void streamStarted() {
+        pages.enabled = true;
+    }
+
+    @Override
+    protected void streamFinished() {
+        pages.enabled = false;
+        pages.pages.clear();
+    }
+
+    private CompactUrl toRoot(String rootUrl) {
+        CompactUrl root = canonicalizer.canonicalize(rootUrl);
+        if (root == null) throw new IllegalArgumentException("Not an http(s) url: " + rootUrl);
+        return root;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (engine != null) {
+                engine.close();
+                engineExecutorService.shutdownNow();
+            }
+        }
+        executorService.shutdownNow();
+        fetcher.close();
+    }
+
+    public static class CrawledPage extends CrawlResult<CompactUrl> {
+        private final Page page;
+
+        private CrawledPage(CompactUrl url, int depth, Set<CompactUrl> links, Page page) {
+            super(url, depth, links);
+            this.page = page;
+        }
+
+        public Page getPage() {
+            return page;
+        }
+    }
+
+    // Everything a crawler can be set up with, the defaults make the same crawler as new WebCrawler().
+    // Each build opens its own executor and, unless one is given, its own fetcher.
+    public static final class Builder {
+        private LinkExtractor linkExtractor = new StreamingLinkExtractor();
+        private UrlCanonicalizer canonicalizer = new UrlCanonicalizer();
+        private UrlFilter filter = UrlFilter.acceptAll();
+        // off unless asked for, a site with a shared page template can look like copies of one page
+        private NearDuplicateIndex duplicates;
+        private ResponseCache cache;
+        private CrawlMetrics metrics = CrawlMetrics.disabled();
+        private AsyncFetcher fetcher;
+        private boolean async;
+        private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+        private int maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST;
+        private long politenessDelayNanos;
+        private Predicate<Node<CompactUrl>> searchPredicate = node -> false;
+
+        private Builder() {
+        }
+
+        public Builder linkExtractor(LinkExtractor linkExtractor) {
+            this.linkExtractor = linkExtractor;
+            return this;
+        }
+
+        // links are canonicalized as they are extracted, so transformElement has nothing left to do
+        public Builder canonicalizer(UrlCanonicalizer canonicalizer) {
+            this.canonicalizer = canonicalizer;
+            return this;
+        }
+
+        // links the filter rejects are dropped before they reach the visited set or the frontier
+        public Builder filter(UrlFilter filter) {
+            this.filter = filter;
+            return this;
+        }
+
+        // the links of a page whose text is a near-duplicate of one already crawled are not followed,
+        // e.g. new NearDuplicateIndex(3) for pages at most 3 of 64 SimHash bits apart
+        public Builder nearDuplicates(NearDuplicateIndex duplicates) {
+            this.duplicates = duplicates;
+            return this;
+        }
+
+        // pages the cache holds are only revalidated, and on a 304 their cached links are followed without parsing.
+        // The cache is not closed with the crawler.
+        public Builder responseCache(ResponseCache cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        // its gauges read this crawler's state, a second crawler on the same registry takes metrics.named(...)
+        public Builder metrics(CrawlMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        // closed with the crawler; the connection limits only apply to the fetcher a build opens itself
+        public Builder fetcher(AsyncFetcher fetcher) {
+            this.fetcher = fetcher;
+            return this;
+        }
+
+        // a handful of threads parse pages while the fetcher keeps up to maxInFlight requests open
+        public Builder async(int maxInFlight, int maxConnectionsPerHost) {
+            this.async = true;
+            this.maxConnections = maxInFlight;
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+            return this;
+        }
+
+        // the least time between two fetches one job of crawlAll starts on the same host
+        public Builder politeness(long delay, TimeUnit unit) {
+            this.politenessDelayNanos = unit.toNanos(delay);
+            return this;
+        }
+
+        // what crawlAndFind looks for, tested on each URL and its depth before the page is fetched;
+        // crawl and stream ignore it
+        public Builder searchPredicate(Predicate<Node<CompactUrl>> searchPredicate) {
+            this.searchPredicate = searchPredicate;
+            return this;
+        }
+
+        public WebCrawler build() {
+            return new WebCrawler(this);
+        }
+
+        // How many fetches run at once is up to the fetcher's adaptive limit, the blocking pool only has to
+        // hold a worker for each fetch the limit could ever allow; the others wait inside the fetcher.
+        private ExecutorService createExecutorService() {
+            return async
+                    ? ExecutorServiceFactory.createDefaultExecutorService(ExecutorServiceType.EXECUTOR_SERVICE)
+                    : ExecutorServiceFactory.createCustomExecutorService(ExecutorServiceType.FORK_JOIN_POOL, maxConnections);
+        }
+
+        private AsyncFetcher createFetcher() {
+            return fetcher != null ? fetcher : new AsyncFetcher(maxConnections, maxConnectionsPerHost, metrics);
+        }
+
+        // A frontier per job that hands out a node only when its host is ready, without waiting for it: the
+        // engine's dispatcher has the other jobs to serve meanwhile.
+        private Function<ExecutorService, CrawlEngine<CompactUrl>> engineFactory(PageBuffer pages, AsyncFetcher fetcher) {
+            BiFunction<CompactUrl, Long, Set<CompactUrl>> getNeighbours =
+                    getNeighboursFunction(fetcher, linkExtractor, canonicalizer, filter, duplicates, cache, metrics, pages);
+            CrawlMetrics metrics = this.metrics;
+            int maxConnections = this.maxConnections;
+            int maxConnectionsPerHost = this.maxConnectionsPerHost;
+            long politenessDelayNanos = this.politenessDelayNanos;
+            return executorService -> {
+                CrawlEngine<CompactUrl> engine = new CrawlEngine<>(
+                        executorService,
+                        getNeighbours,
+                        Function.identity(),
+                        3000L,
+                        FingerprintVisitedSet.create(CompactUrl::hash64, EXPECTED_URLS),
+                        maxConnections,
+                        ENGINE_CACHE_SIZE,
+                        () -> new HostPartitionedFrontier<>(CompactUrl::getHost, maxConnectionsPerHost,
+                                politenessDelayNanos, TimeUnit.NANOSECONDS, 0L, TimeUnit.NANOSECONDS));
+                engine.instrument(metrics);
+                return engine;
+            };
+        }
+
+        private AbstractGraphAlgorithm<CompactUrl> createAlgorithm(ExecutorService executorService, PageBuffer pages, AsyncFetcher fetcher) {
+            AbstractGraphAlgorithm<CompactUrl> algorithm = async
+                    ? new AsyncSearch<>(
+                            executorService,
+                            asyncNeighboursFunction(executorService, fetcher, linkExtractor, canonicalizer, filter, duplicates, cache, metrics, pages),
+                            Function.identity(),
+                            searchPredicate,
+                            5000L,
+                            3000L,
+                            maxConnections,
+                            FingerprintVisitedSet.create(CompactUrl::hash64, EXPECTED_URLS),
+                            new FifoFrontier<>())
+                    : new LevelSynchronousBFS<>(
+                            executorService,
+                            getNeighboursFunction(fetcher, linkExtractor, canonicalizer, filter, duplicates, cache, metrics, pages),
+                            Function.identity(),
+                            searchPredicate,
+                            5000L,
+                            3000L,
+                            0.9d,
+                            FingerprintVisitedSet.create(CompactUrl::hash64, EXPECTED_URLS),
+                            new FifoFrontier<>());
+            algorithm.instrument(metrics);
+            return algorithm;
+        }
+    }
+
+    // holds a fetched page from its extraction until the stream picks it up, only while a stream is running
+    private static final class PageBuffer {
+        private final ConcurrentMap<CompactUrl, Page> pages = new ConcurrentHashMap<>();
+        private volatile boolean enabled;
+
+        private void put(CompactUrl url, Page page) {
+            if (enabled) pages.put(url, page);
+        }
+
+        private Page take(CompactUrl url) {
+            return pages.remove(url);
+        }
     }
 
-    public static void main(String[] args) {
-        new WebCrawler().crawl("http://www.mkyong.com/");
+    public static void main(String[] args) throws IOException {
+        try (WebCrawler crawler = new WebCrawler()) {
+            crawler.crawl("http://www.mkyong.com/");
+        }
     }
-}
\ No newline at end of file
+}
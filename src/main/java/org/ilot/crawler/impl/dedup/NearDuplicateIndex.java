@@ -0,0 +1,127 @@
+package org.ilot.crawler.impl.dedup;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 64-bit fingerprints indexed for Hamming distance lookups, after Manku et al.: the bits are split into
+// blocks, more than maxDistance of them, and two fingerprints at most maxDistance bits apart agree on all
+// but maxDistance blocks. There is a table for every choice of blocks - maxDistance blocks, keyed by those
+// blocks' bits, so a lookup compares only against the fingerprints that agree with it on every block of
+// some table. One block per table would leave 8-bit keys at maxDistance 7, 256 buckets each holding a
+// share of every page crawled; blocks are added until every key has at least MIN_KEY_BITS bits instead.
+// That is 4 tables at maxDistance 3, 120 at 7, and every fingerprint is stored once per table.
+// Buckets are small copy-on-write arrays, reads take no lock. Two near-duplicates added at the same
+// moment may both be taken as new.
+public class NearDuplicateIndex {
+    private static final int MAX_DISTANCE = 7;
+    private static final int MIN_KEY_BITS = 16;
+
+    private final int maxDistance;
+    private final long[] tableMasks;
+    private final ConcurrentMap<Long, long[]>[] tables;
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    public NearDuplicateIndex(int maxDistance) {
+        if (maxDistance < 0 || maxDistance > MAX_DISTANCE) {
+            throw new IllegalArgumentException("Max distance must be between 0 and " + MAX_DISTANCE);
+        }
+        this.maxDistance = maxDistance;
+        int blocks = maxDistance + 1;
+        // the shortest key is made of the smallest blocks, Long.SIZE / blocks bits each
+        while ((blocks - maxDistance) * (Long.SIZE / blocks) < MIN_KEY_BITS) {
+            blocks++;
+        }
+        long[] blockMasks = new long[blocks];
+        for (int block = 0; block < blocks; block++) {
+            int from = block * Long.SIZE / blocks;
+            int to = (block + 1) * Long.SIZE / blocks;
+            blockMasks[block] = (to - from == Long.SIZE ? -1L : (1L << (to - from)) - 1) << from;
+        }
+        // every subset of blocks - maxDistance blocks, as the mask of their bits
+        this.tableMasks = new long[binomial(blocks, maxDistance)];
+        int table = 0;
+        for (int subset = 0; subset < 1 << blocks; subset++) {
+            if (Integer.bitCount(subset) != blocks - maxDistance) continue;
+            for (int block = 0; block < blocks; block++) {
+                if ((subset & 1 << block) != 0) tableMasks[table] |= blockMasks[block];
+            }
+            table++;
+        }
+        this.tables = new ConcurrentMap[tableMasks.length];
+        for (int i = 0; i < tables.length; i++) {
+            tables[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    // Adds the fingerprint unless one at most maxDistance bits away is already indexed.
+    // Returns false for such a near-duplicate, which is not added.
+    public boolean addIfDistinct(long fingerprint) {
+        if (findNear(fingerprint)) {
+            duplicates.incrementAndGet();
+            return false;
+        }
+        for (int table = 0; table < tables.length; table++) {
+            tables[table].merge(fingerprint & tableMasks[table], new long[]{fingerprint}, NearDuplicateIndex::append);
+        }
+        size.incrementAndGet();
+        return true;
+    }
+
+    public boolean containsNear(long fingerprint) {
+        return findNear(fingerprint);
+    }
+
+    public long size() {
+        return size.get();
+    }
+
+    public long duplicates() {
+        return duplicates.get();
+    }
+
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    // the fewest bits any table is keyed by
+    int keyBits() {
+        int keyBits = Long.SIZE;
+        for (long mask : tableMasks) {
+            keyBits = Math.min(keyBits, Long.bitCount(mask));
+        }
+        return keyBits;
+    }
+
+    int tables() {
+        return tables.length;
+    }
+
+    private boolean findNear(long fingerprint) {
+        for (int table = 0; table < tables.length; table++) {
+            long[] bucket = tables[table].get(fingerprint & tableMasks[table]);
+            if (bucket == null) continue;
+            for (long candidate : bucket) {
+                if (Long.bitCount(candidate ^ fingerprint) <= maxDistance) return true;
+            }
+        }
+        return false;
+    }
+
+    private static int binomial(int n, int k) {
+        long result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return (int) result;
+    }
+
+    private static long[] append(long[] bucket, long[] added) {
+        long[] grown = Arrays.copyOf(bucket, bucket.length + 1);
+        grown[bucket.length] = added[0];
+        return grown;
+    }
+}
@@ -0,0 +1,92 @@
+package org.ilot.crawler.impl.dedup;
+
+import org.ilot.crawler.algorithms.visited.Fingerprints;
+
+import java.util.OptionalLong;
+
+// Charikar's SimHash over word 3-shingles of a page's text, in one pass over the raw bytes:
+// markup between '<' and '>' is skipped, and so is the code inside script and style elements; words are
+// runs of ASCII letters and digits or of non-ASCII bytes, case folded. Pages that differ in a few words end up a few bits apart, unrelated pages
+// about half of the 64 bits apart.
+public final class SimHash {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int SHINGLE_SIZE = 3;
+    private static final byte[][] RAW_TEXT_ELEMENTS = {{'s', 'c', 'r', 'i', 'p', 't'}, {'s', 't', 'y', 'l', 'e'}};
+
+    private SimHash() {
+    }
+
+    // empty when the text has fewer than minShingles shingles, too little to call it a duplicate of anything
+    public static OptionalLong of(byte[] content, int minShingles) {
+        int[] weights = new int[Long.SIZE];
+        long previous = 0L;
+        long beforePrevious = 0L;
+        long token = FNV_OFFSET_BASIS;
+        boolean inToken = false;
+        boolean inTag = false;
+        int words = 0;
+        int shingles = 0;
+        for (int i = 0; i <= content.length; i++) {
+            int b = i < content.length ? content[i] & 0xff : ' ';
+            if (inTag) {
+                inTag = b != '>';
+                continue;
+            }
+            if (b >= 'A' && b <= 'Z') b += 'a' - 'A';
+            if ((b >= 'a' && b <= 'z') || (b >= '0' && b <= '9') || b >= 0x80) {
+                token = (token ^ b) * FNV_PRIME;
+                inToken = true;
+                continue;
+            }
+            if (b == '<') {
+                inTag = true;
+                // resumes at the '<' of the closing tag, which the next round skips as a tag
+                i = skipRawText(content, i);
+            }
+            if (!inToken) continue;
+
+            long word = Fingerprints.mix(token);
+            if (++words >= SHINGLE_SIZE) {
+                long shingle = Fingerprints.mix((beforePrevious * 31 + previous) * 31 + word);
+                for (int bit = 0; bit < Long.SIZE; bit++) {
+                    weights[bit] += (int) ((shingle >>> bit) & 1L) * 2 - 1;
+                }
+                shingles++;
+            }
+            beforePrevious = previous;
+            previous = word;
+            token = FNV_OFFSET_BASIS;
+            inToken = false;
+        }
+        if (shingles < minShingles) return OptionalLong.empty();
+        long fingerprint = 0L;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (weights[bit] > 0) fingerprint |= 1L << bit;
+        }
+        return OptionalLong.of(fingerprint);
+    }
+
+    // the index of the closing tag's '<' when a script or style element opens at i, else i
+    private static int skipRawText(byte[] content, int i) {
+        for (byte[] name : RAW_TEXT_ELEMENTS) {
+            if (!isName(content, i + 1, name)) continue;
+            for (int j = i + 1 + name.length; j < content.length - 1; j++) {
+                if (content[j] == '<' && content[j + 1] == '/' && isName(content, j + 2, name)) return j;
+            }
+            return content.length;
+        }
+        return i;
+    }
+
+    private static boolean isName(byte[] content, int from, byte[] name) {
+        if (from + name.length > content.length) return false;
+        for (int k = 0; k < name.length; k++) {
+            if ((content[from + k] | 0x20) != name[k]) return false;
+        }
+        // not just the start of a longer name
+        if (from + name.length == content.length) return true;
+        int next = content[from + name.length] | 0x20;
+        return !(next >= 'a' && next <= 'z') && !(next >= '0' && next <= '9');
+    }
+}
@@ -0,0 +1,29 @@
+package org.ilot.crawler.impl.extract;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.select.Elements;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class JsoupLinkExtractor implements LinkExtractor {
+
+    @Override
+    public Set<String> extract(InputStream body, Charset charset, String url) throws IOException {
+        Document document = Jsoup.parse(body, charset == null ? null : charset.name(), url);
+        return extract(document);
+    }
+
+    public static Set<String> extract(Document document) {
+        Elements linksOnPage = document.select("a[href]");
+
+        return linksOnPage.stream()
+                .map(page -> page.attr("abs:href"))
+                .filter(href -> !href.isEmpty())
+                .collect(Collectors.toSet());
+    }
+}
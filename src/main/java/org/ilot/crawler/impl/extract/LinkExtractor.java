@@ -0,0 +1,11 @@
+package org.ilot.crawler.impl.extract;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Set;
+
+public interface LinkExtractor {
+    // absolute hrefs of the page's anchors, resolved against its <base> or otherwise its url
+    Set<String> extract(InputStream body, Charset charset, String url) throws IOException;
+}
@@ -0,0 +1,337 @@
+package org.ilot.crawler.impl.extract;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Scans the raw bytes for <a href> and <base href> without building a tree. Comments, end tags and
+// the bodies of <script> and <style> are skipped, reading stops once maxBytes have been consumed.
+// Tag and attribute names are matched as ASCII, so the charset has to be ASCII compatible.
+public class StreamingLinkExtractor implements LinkExtractor {
+    public static final int DEFAULT_MAX_BYTES = 2 << 20;
+
+    private final int maxBytes;
+
+    public StreamingLinkExtractor() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    public StreamingLinkExtractor(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public Set<String> extract(InputStream body, Charset charset, String url) throws IOException {
+        Tokenizer tokenizer = new Tokenizer(body, maxBytes, charset == null ? StandardCharsets.UTF_8 : charset);
+        tokenizer.run();
+        URL base = resolve(url, tokenizer.base);
+        Set<String> links = new HashSet<>(tokenizer.hrefs.size() * 2);
+        for (String href : tokenizer.hrefs) {
+            URL link = resolve(base, href);
+            if (link != null) links.add(link.toExternalForm());
+        }
+        return links;
+    }
+
+    private static URL resolve(String url, String base) throws MalformedURLException {
+        URL documentUrl = new URL(url);
+        if (base == null) return documentUrl;
+        URL resolved = resolve(documentUrl, base);
+        return resolved == null ? documentUrl : resolved;
+    }
+
+    // same workarounds as Jsoup's abs: for query-only and dot-relative references
+    static URL resolve(URL base, String href) {
+        try {
+            if (href.startsWith("?")) href = base.getPath() + href;
+            if (href.indexOf('.') == 0 && base.getFile().indexOf('/') != 0) {
+                base = new URL(base.getProtocol(), base.getHost(), base.getPort(), "/" + base.getFile());
+            }
+            return new URL(base, href);
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    static String unescape(String value) {
+        int ampersand = value.indexOf('&');
+        if (ampersand < 0) return value;
+        StringBuilder unescaped = new StringBuilder(value.length()).append(value, 0, ampersand);
+        for (int i = ampersand; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '&') {
+                unescaped.append(c);
+                continue;
+            }
+            int end = i + 1;
+            if (end < value.length() && value.charAt(end) == '#') end++;
+            while (end < value.length() && end - i <= 10 && Character.isLetterOrDigit(value.charAt(end))) {
+                end++;
+            }
+            int codePoint = entity(value.substring(i + 1, end));
+            if (codePoint < 0) {
+                unescaped.append(c);
+                continue;
+            }
+            unescaped.appendCodePoint(codePoint);
+            i = end < value.length() && value.charAt(end) == ';' ? end : end - 1;
+        }
+        return unescaped.toString();
+    }
+
+    private static int entity(String name) {
+        switch (name) {
+            case "amp":
+                return '&';
+            case "lt":
+                return '<';
+            case "gt":
+                return '>';
+            case "quot":
+                return '"';
+            case "apos":
+                return '\'';
+            case "nbsp":
+                return ' ';
+            default:
+                if (name.length() < 2 || name.charAt(0) != '#') return -1;
+                try {
+                    boolean hex = name.charAt(1) == 'x' || name.charAt(1) == 'X';
+                    int codePoint = hex ? Integer.parseInt(name.substring(2), 16) : Integer.parseInt(name.substring(1));
+                    return Character.isValidCodePoint(codePoint) ? codePoint : -1;
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+        }
+    }
+
+    private static final class Tokenizer {
+        private static final int CHUNK_SIZE = 8192;
+        private static final byte[] HREF = {'h', 'r', 'e', 'f'};
+        private static final byte[] SCRIPT = {'s', 'c', 'r', 'i', 'p', 't'};
+        private static final byte[] STYLE = {'s', 't', 'y', 'l', 'e'};
+
+        private final InputStream in;
+        private final Charset charset;
+        private final byte[] chunk = new byte[CHUNK_SIZE];
+        private int position;
+        private int limit;
+        private int budget;
+        private int pushback = -1;
+
+        private final byte[] tagName = new byte[8];
+        private int tagNameLength;
+        private byte[] value = new byte[256];
+        private int valueLength;
+
+        private final List<String> hrefs = new ArrayList<>();
+        private String base;
+
+        private Tokenizer(InputStream in, int maxBytes, Charset charset) {
+            this.in = in;
+            this.budget = maxBytes;
+            this.charset = charset;
+        }
+
+        private void run() throws IOException {
+            int b;
+            while ((b = read()) >= 0) {
+                if (b != '<') continue;
+                b = read();
+                if (isLetter(b)) {
+                    readTagName(b);
+                    boolean anchor = is(tagName, tagNameLength, 'a');
+                    boolean baseTag = !anchor && equalsIgnoreCase(tagName, tagNameLength, "base");
+                    readAttributes(anchor || baseTag && base == null, baseTag);
+                    if (equalsIgnoreCase(tagName, tagNameLength, SCRIPT) || equalsIgnoreCase(tagName, tagNameLength, STYLE)) {
+                        skipRawText(equalsIgnoreCase(tagName, tagNameLength, SCRIPT) ? SCRIPT : STYLE);
+                    }
+                } else if (b == '!') {
+                    skipMarkupDeclaration();
+                } else if (b == '/' || b == '?') {
+                    skipPast('>');
+                } else if (b == '<') {
+                    pushback = b;
+                }
+            }
+        }
+
+        private void readTagName(int b) throws IOException {
+            tagNameLength = 0;
+            while (b >= 0 && !isWhitespace(b) && b != '>' && b != '/') {
+                if (tagNameLength < tagName.length) tagName[tagNameLength] = (byte) b;
+                tagNameLength++;
+                b = read();
+            }
+            pushback = b;
+        }
+
+        private void readAttributes(boolean collectHref, boolean baseTag) throws IOException {
+            while (true) {
+                int b = skipWhitespace(read());
+                if (b < 0 || b == '>') return;
+                if (b == '/') continue;
+
+                int nameLength = 0;
+                boolean href = true;
+                while (b >= 0 && !isWhitespace(b) && b != '=' && b != '>' && b != '/') {
+                    href &= nameLength < HREF.length && (b | 0x20) == HREF[nameLength];
+                    nameLength++;
+                    b = read();
+                }
+                href &= nameLength == HREF.length;
+                b = skipWhitespace(b);
+                if (b != '=') {
+                    pushback = b;
+                    continue;
+                }
+                b = skipWhitespace(read());
+                if (b < 0 || b == '>') return;
+
+                boolean collect = collectHref && href;
+                valueLength = 0;
+                if (b == '"' || b == '\'') {
+                    int quote = b;
+                    while ((b = read()) >= 0 && b != quote) {
+                        if (collect) append(b);
+                    }
+                } else {
+                    while (b >= 0 && !isWhitespace(b) && b != '>') {
+                        if (collect) append(b);
+                        b = read();
+                    }
+                    pushback = b;
+                }
+                if (collect) {
+                    String url = unescape(new String(value, 0, valueLength, charset)).trim();
+                    if (baseTag) {
+                        base = url;
+                        collectHref = false;
+                    } else {
+                        hrefs.add(url);
+                    }
+                }
+            }
+        }
+
+        // after "<!": comments end at "-->", doctype and other declarations at the first '>'
+        private void skipMarkupDeclaration() throws IOException {
+            int b = read();
+            if (b != '-') {
+                pushback = b;
+                skipPast('>');
+                return;
+            }
+            b = read();
+            if (b != '-') {
+                pushback = b;
+                skipPast('>');
+                return;
+            }
+            int dashes = 0;
+            while ((b = read()) >= 0) {
+                if (b == '>' && dashes >= 2) return;
+                dashes = b == '-' ? dashes + 1 : 0;
+            }
+        }
+
+        private void skipRawText(byte[] name) throws IOException {
+            int b;
+            while ((b = read()) >= 0) {
+                if (b != '<') continue;
+                if ((b = read()) != '/') {
+                    pushback = b;
+                    continue;
+                }
+                int matched = 0;
+                while (matched < name.length && ((b = read()) | 0x20) == name[matched]) {
+                    matched++;
+                }
+                if (matched == name.length) {
+                    b = read();
+                    if (b < 0 || b == '>') return;
+                    if (isWhitespace(b) || b == '/') {
+                        skipPast('>');
+                        return;
+                    }
+                }
+                pushback = b;
+            }
+        }
+
+        private void skipPast(int terminator) throws IOException {
+            int b;
+            do {
+                b = read();
+            } while (b >= 0 && b != terminator);
+        }
+
+        private int skipWhitespace(int b) throws IOException {
+            while (isWhitespace(b)) {
+                b = read();
+            }
+            return b;
+        }
+
+        private void append(int b) {
+            if (valueLength == value.length) {
+                byte[] grown = new byte[value.length * 2];
+                System.arraycopy(value, 0, grown, 0, valueLength);
+                value = grown;
+            }
+            value[valueLength++] = (byte) b;
+        }
+
+        private int read() throws IOException {
+            if (pushback >= 0) {
+                int b = pushback;
+                pushback = -1;
+                return b;
+            }
+            if (position == limit) {
+                if (budget <= 0) return -1;
+                int read = in.read(chunk, 0, Math.min(chunk.length, budget));
+                if (read <= 0) return -1;
+                budget -= read;
+                position = 0;
+                limit = read;
+            }
+            return chunk[position++] & 0xff;
+        }
+
+        private static boolean isLetter(int b) {
+            return (b | 0x20) >= 'a' && (b | 0x20) <= 'z';
+        }
+
+        private static boolean isWhitespace(int b) {
+            return b == ' ' || b == '\n' || b == '\t' || b == '\r' || b == '\f';
+        }
+
+        private static boolean is(byte[] name, int length, char c) {
+            return length == 1 && (name[0] | 0x20) == c;
+        }
+
+        private static boolean equalsIgnoreCase(byte[] name, int length, String expected) {
+            if (length != expected.length()) return false;
+            for (int i = 0; i < length; i++) {
+                if ((name[i] | 0x20) != expected.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        private static boolean equalsIgnoreCase(byte[] name, int length, byte[] expected) {
+            if (length != expected.length) return false;
+            for (int i = 0; i < length; i++) {
+                if ((name[i] | 0x20) != expected[i]) return false;
+            }
+            return true;
+        }
+    }
+}
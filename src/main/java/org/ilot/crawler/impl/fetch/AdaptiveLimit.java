@@ -0,0 +1,106 @@
+package org.ilot.crawler.impl.fetch;
+
+import java.util.function.LongSupplier;
+
+// A concurrency limit adjusted from the outcome of every request it lets through. It starts in slow
+// start, growing by one per success, and after the first drop grows by one per limit successes, and
+// only while it is actually used. A drop, or a request slower than latencyTolerance times the
+// baseline latency, cuts it by backoffRatio, at most once per baseline latency so one burst of slow
+// responses counts as a single congestion signal. The baseline follows the fastest responses and
+// drifts slowly up towards slower ones, so a host that is always slow stops being penalized for it.
+public class AdaptiveLimit {
+    private static final double DEFAULT_BACKOFF_RATIO = 0.5d;
+    private static final double DEFAULT_LATENCY_TOLERANCE = 2.0d;
+    private static final int BASELINE_DRIFT_SHIFT = 6;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final LongSupplier clock;
+
+    private int limit;
+    private int inFlight;
+    private int successes;
+    private boolean slowStart = true;
+    private long baselineNanos;
+    private long lastDecreaseAt;
+    private boolean decreased;
+
+    public AdaptiveLimit(int minLimit, int initialLimit, int maxLimit) {
+        this(minLimit, initialLimit, maxLimit, DEFAULT_BACKOFF_RATIO, DEFAULT_LATENCY_TOLERANCE, System::nanoTime);
+    }
+
+    AdaptiveLimit(int minLimit, int initialLimit, int maxLimit, double backoffRatio, double latencyTolerance, LongSupplier clock) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        }
+        if (backoffRatio <= 0d || backoffRatio >= 1d) {
+            throw new IllegalArgumentException("Backoff ratio must be in (0, 1)");
+        }
+        if (latencyTolerance <= 1d) {
+            throw new IllegalArgumentException("Latency tolerance must be greater than 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.clock = clock;
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= limit) return false;
+        inFlight++;
+        return true;
+    }
+
+    // the request completed in rttNanos, the permit is given back
+    public synchronized void onSuccess(long rttNanos) {
+        inFlight--;
+        if (baselineNanos == 0L || rttNanos < baselineNanos) {
+            baselineNanos = rttNanos;
+        } else {
+            baselineNanos += (rttNanos - baselineNanos) >> BASELINE_DRIFT_SHIFT;
+        }
+        if (rttNanos > latencyTolerance * baselineNanos) {
+            decrease();
+            return;
+        }
+        // a limit nobody comes close to using says nothing about how much more the host could take
+        if ((inFlight + 1) * 2 < limit) return;
+        if (slowStart || ++successes >= limit) {
+            successes = 0;
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    // the request timed out, failed or was turned away by the server, the permit is given back
+    public synchronized void onDropped() {
+        inFlight--;
+        decrease();
+    }
+
+    // the request ended without telling anything about the host, e.g. it was cancelled
+    public synchronized void onIgnored() {
+        inFlight--;
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private void decrease() {
+        long now = clock.getAsLong();
+        if (decreased && now - lastDecreaseAt < baselineNanos) return;
+        decreased = true;
+        lastDecreaseAt = now;
+        slowStart = false;
+        successes = 0;
+        limit = Math.max(minLimit, (int) (limit * backoffRatio));
+    }
+}
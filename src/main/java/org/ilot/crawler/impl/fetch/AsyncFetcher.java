@@ -0,0 +1,290 @@
+package org.ilot.crawler.impl.fetch;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.ManagedNHttpClientConnectionFactory;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.ManagedNHttpClientConnection;
+import org.apache.http.nio.conn.NHttpConnectionFactory;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.nio.reactor.IOSession;
+import org.apache.http.util.EntityUtils;
+import org.ilot.crawler.metrics.CrawlMetrics;
+
+import javax.net.ssl.SSLException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Connections are pooled per host and kept alive for as long as the server allows, capped at keepAlive.
+// Connections idle for longer than idleTimeout are closed by a background sweep, which also drops
+// expired DNS entries. connectionReuseRatio() tells how many requests went out without a new handshake.
+// How many requests are open at once is not fixed: an AdaptiveLimit for the whole fetcher and one per
+// host, capped at maxConnections and maxConnectionsPerHost, follow the latency and failures of past
+// requests, and requests over either limit wait in the fetcher until they fit.
+public class AsyncFetcher implements Closeable {
+    private static final String USER_AGENT = "ilot-crawler";
+    private static final long DEFAULT_KEEP_ALIVE_MILLIS = 30_000L;
+    private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 10_000L;
+    private static final long DEFAULT_DNS_TTL_SECONDS = 300L;
+    private static final long DEFAULT_DNS_NEGATIVE_TTL_SECONDS = 30L;
+    private static final int INITIAL_LIMIT = 16;
+    private static final int INITIAL_LIMIT_PER_HOST = 2;
+
+    private final CloseableHttpAsyncClient client;
+    private final PoolingNHttpClientConnectionManager connectionManager;
+    private final DnsResolver dnsResolver;
+    private final ScheduledExecutorService evictor;
+    private final FetchLimiter limiter;
+    private final CrawlMetrics metrics;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+
+    public AsyncFetcher(int maxConnections, int maxConnectionsPerHost) {
+        this(maxConnections, maxConnectionsPerHost, CrawlMetrics.disabled());
+    }
+
+    public AsyncFetcher(int maxConnections, int maxConnectionsPerHost, CrawlMetrics metrics) {
+        this(maxConnections,
+                maxConnectionsPerHost,
+                DEFAULT_KEEP_ALIVE_MILLIS,
+                DEFAULT_IDLE_TIMEOUT_MILLIS,
+                new CachingDnsResolver(DEFAULT_DNS_TTL_SECONDS, DEFAULT_DNS_NEGATIVE_TTL_SECONDS, TimeUnit.SECONDS),
+                metrics);
+    }
+
+    public AsyncFetcher(int maxConnections,
+                        int maxConnectionsPerHost,
+                        long keepAliveMillis,
+                        long idleTimeoutMillis,
+                        DnsResolver dnsResolver,
+                        CrawlMetrics metrics) {
+        this.metrics = metrics;
+        this.dnsResolver = dnsResolver;
+        DefaultConnectingIOReactor ioReactor;
+        try {
+            ioReactor = new DefaultConnectingIOReactor(IOReactorConfig.custom()
+                    .setIoThreadCount(Runtime.getRuntime().availableProcessors())
+                    .setSoKeepAlive(true)
+                    .build());
+        } catch (IOReactorException e) {
+            throw new IllegalStateException("Could not create the I/O reactor", e);
+        }
+        this.connectionManager = new PoolingNHttpClientConnectionManager(
+                ioReactor,
+                new CountingConnectionFactory(),
+                RegistryBuilder.<SchemeIOSessionStrategy>create()
+                        .register("http", NoopIOSessionStrategy.INSTANCE)
+                        .register("https", SSLIOSessionStrategy.getDefaultStrategy())
+                        .build(),
+                dnsResolver);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+        this.limiter = new FetchLimiter(
+                new AdaptiveLimit(1, Math.min(INITIAL_LIMIT, maxConnections), maxConnections),
+                () -> new AdaptiveLimit(1, Math.min(INITIAL_LIMIT_PER_HOST, maxConnectionsPerHost), maxConnectionsPerHost));
+
+        this.client = HttpAsyncClients.custom()
+                .setUserAgent(USER_AGENT)
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy((response, context) -> {
+                    long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return keepAlive > 0 ? Math.min(keepAlive, keepAliveMillis) : keepAliveMillis;
+                })
+                .build();
+        this.client.start();
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fetcher-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepInterval = Math.max(1L, idleTimeoutMillis / 2);
+        this.evictor.scheduleWithFixedDelay(() -> evictIdle(idleTimeoutMillis), sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+
+        metrics.gauge("crawler.connections.opened", connectionsOpened, AtomicLong::get);
+        metrics.gauge("crawler.connections.reuse-ratio", this, AsyncFetcher::connectionReuseRatio);
+        metrics.gauge("crawler.fetch.concurrency-limit", limiter, FetchLimiter::getLimit);
+        metrics.gauge("crawler.fetch.in-flight", limiter, FetchLimiter::getInFlight);
+        metrics.gauge("crawler.fetch.waiting", limiter, FetchLimiter::getWaiting);
+    }
+
+    public CompletableFuture<Page> fetch(String url, long timeout) {
+        return fetch(url, timeout, null, null);
+    }
+
+    // a conditional request when either validator is given, an unchanged page comes back as a 304 without content
+    public CompletableFuture<Page> fetch(String url, long timeout, String etag, String lastModified) {
+        CompletableFuture<Page> page = new CompletableFuture<>();
+        HttpGet request;
+        try {
+            request = new HttpGet(url);
+        } catch (IllegalArgumentException e) {
+            page.completeExceptionally(e);
+            return page;
+        }
+        request.setConfig(RequestConfig.custom()
+                .setConnectTimeout((int) timeout)
+                .setSocketTimeout((int) timeout)
+                .setConnectionRequestTimeout((int) timeout)
+                .build());
+        if (etag != null) request.setHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        if (lastModified != null) request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+
+        HttpHost host = URIUtils.extractHost(request.getURI());
+        if (host == null) {
+            page.completeExceptionally(new IllegalArgumentException("No host in url: " + url));
+            return page;
+        }
+        limiter.submit(host, page, permit -> {
+            requests.incrementAndGet();
+            execute(url, request, page, permit, CrawlMetrics.start(), false);
+        });
+        return page;
+    }
+
+    // a retry is part of the same request, it is neither counted again nor timed on its own
+    private void execute(String url, HttpGet request, CompletableFuture<Page> page, FetchLimiter.Permit permit, long start, boolean retried) {
+        Future<HttpResponse> response;
+        try {
+            response = client.execute(request, new FutureCallback<HttpResponse>() {
+                @Override
+                public void completed(HttpResponse response) {
+                    int statusCode = response.getStatusLine().getStatusCode();
+                    metrics.record(CrawlMetrics.Stage.FETCH, start);
+                    metrics.fetched(statusCode);
+                    permit.completed(statusCode);
+                    try {
+                        page.complete(toPage(url, response));
+                    } catch (IOException | RuntimeException e) {
+                        page.completeExceptionally(e);
+                    }
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    // mostly a kept-alive connection the server dropped before the pool noticed,
+                    // a GET can go again under the same permit
+                    if (!retried && isRetriable(e) && !page.isDone()) {
+                        request.reset();
+                        execute(url, request, page, permit, start, true);
+                        return;
+                    }
+                    metrics.record(CrawlMetrics.Stage.FETCH, start);
+                    permit.failed(e);
+                    page.completeExceptionally(e);
+                }
+
+                @Override
+                public void cancelled() {
+                    permit.cancelled();
+                    page.cancel(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            // the client is closed, nothing was sent
+            permit.cancelled();
+            page.completeExceptionally(e);
+            return;
+        }
+        // cancelling the page aborts the request and gives its connection back to the pool
+        page.whenComplete((result, error) -> {
+            if (page.isCancelled()) response.cancel(true);
+        });
+    }
+
+    // what DefaultHttpRequestRetryHandler retries an idempotent request on: the connection broke,
+    // it did not time out, fail to resolve or refuse a handshake
+    private static boolean isRetriable(Exception e) {
+        return e instanceof IOException
+                && !(e instanceof InterruptedIOException)
+                && !(e instanceof UnknownHostException)
+                && !(e instanceof ConnectException)
+                && !(e instanceof SSLException);
+    }
+
+    private void evictIdle(long idleTimeoutMillis) {
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+        if (dnsResolver instanceof CachingDnsResolver) ((CachingDnsResolver) dnsResolver).evictExpired();
+        limiter.evictIdle(TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis));
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    public long connectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    // share of requests served over a connection that was already open
+    public double connectionReuseRatio() {
+        long sent = requests.get();
+        return sent == 0 ? 0d : Math.max(0d, 1d - (double) connectionsOpened.get() / sent);
+    }
+
+    // how many requests may be open at once right now
+    public int concurrencyLimit() {
+        return limiter.getLimit();
+    }
+
+    @Override
+    public void close() throws IOException {
+        evictor.shutdownNow();
+        client.close();
+    }
+
+    private static Page toPage(String url, HttpResponse response) throws IOException {
+        HttpEntity entity = response.getEntity();
+        ContentType contentType = entity == null ? null : ContentType.get(entity);
+        byte[] content = entity == null ? null : EntityUtils.toByteArray(entity);
+        return new Page(url,
+                response.getStatusLine().getStatusCode(),
+                contentType == null ? null : contentType.getMimeType(),
+                contentType == null ? null : contentType.getCharset(),
+                content == null ? new byte[0] : content,
+                headerValue(response, HttpHeaders.ETAG),
+                headerValue(response, HttpHeaders.LAST_MODIFIED));
+    }
+
+    private static String headerValue(HttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header == null ? null : header.getValue();
+    }
+
+    private final class CountingConnectionFactory implements NHttpConnectionFactory<ManagedNHttpClientConnection> {
+        @Override
+        public ManagedNHttpClientConnection create(IOSession session, ConnectionConfig config) {
+            connectionsOpened.incrementAndGet();
+            return ManagedNHttpClientConnectionFactory.INSTANCE.create(session, config);
+        }
+    }
+}
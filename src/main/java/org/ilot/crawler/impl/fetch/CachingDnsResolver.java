@@ -0,0 +1,88 @@
+package org.ilot.crawler.impl.fetch;
+
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Caches resolved addresses for ttl and failed lookups for negativeTtl, so a crawl that keeps
+// coming back to the same hosts, or to hosts that do not exist, asks the resolver once per expiry.
+public class CachingDnsResolver implements DnsResolver {
+    private final DnsResolver delegate;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final LongSupplier clock;
+    private final ConcurrentMap<String, Entry> cache = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CachingDnsResolver(long ttl, long negativeTtl, TimeUnit unit) {
+        this(SystemDefaultDnsResolver.INSTANCE, ttl, negativeTtl, unit, System::nanoTime);
+    }
+
+    CachingDnsResolver(DnsResolver delegate, long ttl, long negativeTtl, TimeUnit unit, LongSupplier clock) {
+        this.delegate = delegate;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.negativeTtlNanos = unit.toNanos(negativeTtl);
+        this.clock = clock;
+    }
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        long now = clock.getAsLong();
+        Entry entry = cache.get(host);
+        if (entry != null && now - entry.expiresAt < 0) {
+            hits.incrementAndGet();
+            return entry.get(host);
+        }
+        misses.incrementAndGet();
+        try {
+            InetAddress[] addresses = delegate.resolve(host);
+            cache.put(host, new Entry(addresses, now + ttlNanos));
+            return addresses.clone();
+        } catch (UnknownHostException e) {
+            cache.put(host, new Entry(null, now + negativeTtlNanos));
+            throw e;
+        }
+    }
+
+    // expired entries are otherwise only replaced when their host is looked up again
+    public void evictExpired() {
+        long now = clock.getAsLong();
+        cache.values().removeIf(entry -> now - entry.expiresAt >= 0);
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private static final class Entry {
+        private final InetAddress[] addresses;
+        private final long expiresAt;
+
+        private Entry(InetAddress[] addresses, long expiresAt) {
+            this.addresses = addresses;
+            this.expiresAt = expiresAt;
+        }
+
+        private InetAddress[] get(String host) throws UnknownHostException {
+            if (addresses == null) throw new UnknownHostException(host);
+            // callers may reorder the array they get back
+            return addresses.clone();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package org.ilot.crawler.impl.fetch;
+
+import org.ilot.crawler.metrics.CrawlMetrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Decides when a fetch may go out: one AdaptiveLimit for the whole fetcher and one per host, both
+// fed with the outcome of every fetch. A fetch over either limit waits in its host's queue and is
+// started when an earlier one completes, taking hosts round robin so one busy host cannot starve
+// the rest. Fetches are started outside the lock.
+class FetchLimiter {
+    private final AdaptiveLimit global;
+    private final Supplier<AdaptiveLimit> hostLimits;
+    private final LongSupplier clock;
+    private final Lock lock = new ReentrantLock();
+    // guarded by lock
+    private final Map<Object, HostQueue> hosts = new HashMap<>();
+    private final ArrayDeque<HostQueue> ready = new ArrayDeque<>();
+    private int waiting;
+
+    FetchLimiter(AdaptiveLimit global, Supplier<AdaptiveLimit> hostLimits) {
+        this(global, hostLimits, System::nanoTime);
+    }
+
+    FetchLimiter(AdaptiveLimit global, Supplier<AdaptiveLimit> hostLimits, LongSupplier clock) {
+        this.global = global;
+        this.hostLimits = hostLimits;
+        this.clock = clock;
+    }
+
+    // start runs once both limits allow it, unless the fetch is cancelled first
+    void submit(Object host, Future<?> fetch, Consumer<Permit> start) {
+        lock.lock();
+        try {
+            HostQueue queue = hosts.computeIfAbsent(host, key -> new HostQueue(hostLimits.get()));
+            queue.waiting.addLast(new Waiting(fetch, start));
+            waiting++;
+            markReady(queue);
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    int getLimit() {
+        return global.getLimit();
+    }
+
+    int getInFlight() {
+        return global.getInFlight();
+    }
+
+    int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // forgets the learned limit of hosts nothing was fetched from for idleNanos
+    void evictIdle(long idleNanos) {
+        long now = clock.getAsLong();
+        lock.lock();
+        try {
+            Iterator<HostQueue> queues = hosts.values().iterator();
+            while (queues.hasNext()) {
+                HostQueue queue = queues.next();
+                if (queue.waiting.isEmpty() && queue.limit.getInFlight() == 0 && now - queue.lastUsed >= idleNanos) {
+                    queues.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int hosts() {
+        lock.lock();
+        try {
+            return hosts.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain() {
+        List<Started> started = null;
+        lock.lock();
+        try {
+            while (!ready.isEmpty()) {
+                HostQueue queue = ready.peekFirst();
+                Waiting next = queue.waiting.peekFirst();
+                if (next != null && next.fetch.isDone()) {
+                    queue.waiting.pollFirst();
+                    waiting--;
+                    continue;
+                }
+                // the host is at its limit, it is marked ready again when one of its fetches completes
+                if (next == null || !queue.limit.tryAcquire()) {
+                    ready.pollFirst();
+                    queue.ready = false;
+                    continue;
+                }
+                if (!global.tryAcquire()) {
+                    queue.limit.onIgnored();
+                    break;
+                }
+                queue.waiting.pollFirst();
+                waiting--;
+                queue.lastUsed = clock.getAsLong();
+                ready.pollFirst();
+                if (queue.waiting.isEmpty()) {
+                    queue.ready = false;
+                } else {
+                    ready.addLast(queue);
+                }
+                if (started == null) started = new ArrayList<>();
+                started.add(new Started(next, new Permit(queue, queue.lastUsed)));
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (started == null) return;
+        for (Started fetch : started) {
+            fetch.waiting.start.accept(fetch.permit);
+        }
+    }
+
+    private void markReady(HostQueue queue) {
+        if (!queue.ready && !queue.waiting.isEmpty()) {
+            queue.ready = true;
+            ready.addLast(queue);
+        }
+    }
+
+    private void release(Permit permit, Outcome outcome, long rttNanos) {
+        lock.lock();
+        try {
+            outcome.apply(global, rttNanos);
+            outcome.apply(permit.queue.limit, rttNanos);
+            markReady(permit.queue);
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    private enum Outcome {
+        SUCCESS, DROPPED, IGNORED;
+
+        private void apply(AdaptiveLimit limit, long rttNanos) {
+            switch (this) {
+                case SUCCESS:
+                    limit.onSuccess(rttNanos);
+                    break;
+                case DROPPED:
+                    limit.onDropped();
+                    break;
+                default:
+                    limit.onIgnored();
+            }
+        }
+    }
+
+    // handed to a started fetch, exactly one of its methods has to be called when the fetch ends
+    final class Permit {
+        private final HostQueue queue;
+        private final long startedAt;
+
+        private Permit(HostQueue queue, long startedAt) {
+            this.queue = queue;
+            this.startedAt = startedAt;
+        }
+
+        // a server turning requests away is as much a congestion signal as one not answering them
+        void completed(int statusCode) {
+            release(this, statusCode == 429 || statusCode == 503 ? Outcome.DROPPED : Outcome.SUCCESS, clock.getAsLong() - startedAt);
+        }
+
+        // only timeouts and broken connections say the host is struggling, a bad url or host name does not
+        void failed(Throwable error) {
+            CrawlMetrics.ErrorType type = CrawlMetrics.ErrorType.of(error);
+            release(this, type == CrawlMetrics.ErrorType.TIMEOUT || type == CrawlMetrics.ErrorType.IO
+                    ? Outcome.DROPPED : Outcome.IGNORED, 0L);
+        }
+
+        void cancelled() {
+            release(this, Outcome.IGNORED, 0L);
+        }
+    }
+
+    private static final class HostQueue {
+        private final AdaptiveLimit limit;
+        private final ArrayDeque<Waiting> waiting = new ArrayDeque<>();
+        private boolean ready;
+        private long lastUsed;
+
+        private HostQueue(AdaptiveLimit limit) {
+            this.limit = limit;
+        }
+    }
+
+    private static final class Waiting {
+        private final Future<?> fetch;
+        private final Consumer<Permit> start;
+
+        private Waiting(Future<?> fetch, Consumer<Permit> start) {
+            this.fetch = fetch;
+            this.start = start;
+        }
+    }
+
+    private static final class Started {
+        private final Waiting waiting;
+        private final Permit permit;
+
+        private Started(Waiting waiting, Permit permit) {
+            this.waiting = waiting;
+            this.permit = permit;
+        }
+    }
+}
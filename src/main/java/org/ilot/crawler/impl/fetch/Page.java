@@ -0,0 +1,81 @@
+package org.ilot.crawler.impl.fetch;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+public class Page {
+    private final String url;
+    private final int statusCode;
+    private final String contentType;
+    private final Charset charset;
+    private final byte[] content;
+    private final String etag;
+    private final String lastModified;
+
+    public Page(String url, int statusCode, String contentType, Charset charset, byte[] content) {
+        this(url, statusCode, contentType, charset, content, null, null);
+    }
+
+    public Page(String url, int statusCode, String contentType, Charset charset, byte[] content, String etag, String lastModified) {
+        this.url = url;
+        this.statusCode = statusCode;
+        this.contentType = contentType;
+        this.charset = charset;
+        this.content = content;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    // null when the response did not declare one
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    // the validators a later request can send to ask whether the page changed, null when not sent
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public InputStream openContent() {
+        return new ByteArrayInputStream(content);
+    }
+
+    public String getBody() {
+        return new String(content, charset == null ? StandardCharsets.UTF_8 : charset);
+    }
+
+    public boolean isHtml() {
+        return statusCode == 200 && contentType != null && contentType.contains("html");
+    }
+
+    @Override
+    public String toString() {
+        return "Page{" +
+                "url=" + url +
+                ", statusCode=" + statusCode +
+                ", contentType=" + contentType +
+                '}';
+    }
+}
@@ -0,0 +1,341 @@
+package org.ilot.crawler.impl.fetch;
+
+import org.ilot.crawler.metrics.CrawlMetrics;
+import org.ilot.crawler.storage.AppendLog;
+import org.ilot.crawler.storage.VarInts;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// Responses of earlier crawls keyed by canonical url, so a recrawl asks the server whether a page changed
+// instead of downloading and parsing it again. Every response that came with an ETag or Last-Modified is
+// appended to the current segment file as one deflated record holding the page and the links extracted
+// from it, segments roll over at segmentSize. An index log tells where the latest record of every url is
+// and which validators it had; it is replayed into memory on open, so a lookup never touches the disk
+// and only a 304 reads its record back. Records a url replaced stay in their segment until it is deleted.
+public class ResponseCache implements Closeable {
+    private static final String INDEX_LOG = "index.log";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".data";
+    private static final long DEFAULT_SEGMENT_SIZE = 64L << 20;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final ConcurrentMap<String, Entry> index = new ConcurrentHashMap<>();
+    private final AppendLog indexLog;
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+
+    // guarded by this
+    private AppendLog segment;
+    private int segmentId;
+    private long segmentLength;
+    private long segmentDurable;
+
+    public ResponseCache(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public ResponseCache(Path directory, long segmentSize) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        int lastSegment = 0;
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : segments) {
+                String name = path.getFileName().toString();
+                lastSegment = Math.max(lastSegment,
+                        Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        Path indexPath = directory.resolve(INDEX_LOG);
+        this.indexLog = new AppendLog(indexPath, replayIndex(indexPath));
+        this.segmentId = lastSegment;
+        this.segmentLength = sizeOf(segmentPath(lastSegment));
+        this.segmentDurable = segmentLength;
+        this.segment = new AppendLog(segmentPath(lastSegment), segmentLength);
+    }
+
+    // the validators to send with a request for the url, null when it was never cached
+    public Entry lookup(String url) {
+        lookups.increment();
+        Entry entry = index.get(url);
+        if (entry != null) hits.increment();
+        return entry;
+    }
+
+    // the cached page and links a 304 just confirmed, null when the url is not cached
+    public CachedResponse revalidated(String url) throws IOException {
+        Entry entry = index.get(url);
+        if (entry == null) return null;
+        CachedResponse response = decode(entry, read(entry));
+        revalidations.increment();
+        return response;
+    }
+
+    // pages without validators are not kept, there would be no way to ask whether they changed
+    public void put(String url, Page page, Collection<String> links) throws IOException {
+        if (page.getEtag() == null && page.getLastModified() == null) return;
+        byte[] record = encode(page, links);
+        synchronized (this) {
+            if (segmentLength >= segmentSize) roll();
+            long offset = segmentLength + VarInts.size(record.length);
+            segment.append(record);
+            segmentLength = offset + record.length;
+            Entry entry = new Entry(url, segmentId, offset, record.length, page.getEtag(), page.getLastModified());
+            indexLog.append(entry.encode());
+            index.put(url, entry);
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public long lookups() {
+        return lookups.sum();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long revalidations() {
+        return revalidations.sum();
+    }
+
+    // share of lookups that found the url cached and so sent a conditional request
+    public double hitRatio() {
+        long sent = lookups.sum();
+        return sent == 0 ? 0d : (double) hits.sum() / sent;
+    }
+
+    // share of conditional requests the server answered with 304
+    public double revalidationRatio() {
+        long conditional = hits.sum();
+        return conditional == 0 ? 0d : (double) revalidations.sum() / conditional;
+    }
+
+    public void instrument(CrawlMetrics metrics) {
+        metrics.gauge("crawler.cache.entries", this, ResponseCache::size);
+        metrics.gauge("crawler.cache.hit-ratio", this, ResponseCache::hitRatio);
+        metrics.gauge("crawler.cache.revalidation-ratio", this, ResponseCache::revalidationRatio);
+    }
+
+    // the segment first, so the index never points past what reached the disk
+    public synchronized void sync() throws IOException {
+        segmentDurable = segment.sync();
+        indexLog.sync();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        segment.close();
+        indexLog.close();
+    }
+
+    private void roll() throws IOException {
+        segment.close();
+        indexLog.sync();
+        segmentId++;
+        segmentLength = 0L;
+        segmentDurable = 0L;
+        segment = new AppendLog(segmentPath(segmentId), 0L);
+    }
+
+    private byte[] read(Entry entry) throws IOException {
+        synchronized (this) {
+            // cached during this run and still in the write buffer
+            if (entry.segment == segmentId && entry.offset + entry.length > segmentDurable) sync();
+        }
+        // a 304 saved a download, opening the segment costs little next to that
+        Path path = segmentPath(entry.segment);
+        ByteBuffer record = ByteBuffer.allocate(entry.length);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (record.hasRemaining()) {
+                if (channel.read(record, entry.offset + record.position()) < 0) throw new EOFException(path.toString());
+            }
+        }
+        return record.array();
+    }
+
+    // Returns the length of the index log worth keeping. Records are appended to the index after their
+    // segment record, so after a crash the first entry pointing past the end of its segment and all
+    // entries after it are lost; they are cut off, or the next records appended would make them valid again.
+    private long replayIndex(Path path) throws IOException {
+        Map<Integer, Long> segmentLengths = new HashMap<>();
+        long[] valid = {0L};
+        boolean[] truncated = {false};
+        try {
+            AppendLog.read(path, sizeOf(path), record -> {
+                if (truncated[0]) return;
+                Entry entry = Entry.decode(record);
+                long length = segmentLengths.computeIfAbsent(entry.segment, id -> sizeOf(segmentPath(id)));
+                if (entry.offset + entry.length > length) {
+                    truncated[0] = true;
+                    return;
+                }
+                index.put(entry.url, entry);
+                valid[0] += VarInts.size(record.length) + record.length;
+            });
+        } catch (EOFException e) {
+            // the last record was cut short
+        }
+        return valid[0];
+    }
+
+    private Path segmentPath(int id) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    private static long sizeOf(Path path) {
+        try {
+            return Files.exists(path) ? Files.size(path) : 0L;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] encode(Page page, Collection<String> links) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(page.getContent().length / 4 + 64);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeInt(page.getStatusCode());
+            writeString(out, page.getContentType());
+            writeString(out, page.getCharset() == null ? null : page.getCharset().name());
+            out.writeInt(links.size());
+            for (String link : links) writeString(out, link);
+            out.writeInt(page.getContent().length);
+            out.write(page.getContent());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static CachedResponse decode(Entry entry, byte[] record) throws IOException {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(record)))) {
+            int statusCode = in.readInt();
+            String contentType = readString(in);
+            String charset = readString(in);
+            int linkCount = in.readInt();
+            List<String> links = new ArrayList<>(linkCount);
+            for (int i = 0; i < linkCount; i++) links.add(readString(in));
+            byte[] content = new byte[in.readInt()];
+            in.readFully(content);
+            Page page = new Page(entry.url, statusCode, contentType, charset == null ? null : Charset.forName(charset),
+                    content, entry.etag, entry.lastModified);
+            return new CachedResponse(page, Collections.unmodifiableList(links));
+        }
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // where the latest record of a url is, with the validators of its response
+    public static final class Entry {
+        private final String url;
+        private final int segment;
+        private final long offset;
+        private final int length;
+        private final String etag;
+        private final String lastModified;
+
+        private Entry(String url, int segment, long offset, int length, String etag, String lastModified) {
+            this.url = url;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        private byte[] encode() {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(url.length() + 64);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                writeString(out, url);
+                out.writeInt(segment);
+                out.writeLong(offset);
+                out.writeInt(length);
+                writeString(out, etag);
+                writeString(out, lastModified);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+
+        private static Entry decode(byte[] record) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+                return new Entry(readString(in), in.readInt(), in.readLong(), in.readInt(), readString(in), readString(in));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public static final class CachedResponse {
+        private final Page page;
+        private final List<String> links;
+
+        private CachedResponse(Page page, List<String> links) {
+            this.page = page;
+            this.links = links;
+        }
+
+        public Page getPage() {
+            return page;
+        }
+
+        public List<String> getLinks() {
+            return links;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.ilot.crawler.impl.url;
+
+import org.ilot.crawler.algorithms.visited.Fingerprints;
+import org.ilot.crawler.storage.Codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// A canonical URL as its interned origin plus the UTF-8 bytes of path and query. The 64-bit hash is
+// computed once, it keys the visited set and makes most unequal comparisons a single long compare.
+public final class CompactUrl {
+    private final HostDictionary.Host host;
+    private final byte[] pathAndQuery;
+    private final long hash64;
+
+    CompactUrl(HostDictionary.Host host, byte[] pathAndQuery) {
+        this.host = host;
+        this.pathAndQuery = pathAndQuery;
+        this.hash64 = Fingerprints.mix(host.getHash() * 31 + Fingerprints.of(pathAndQuery, 0, pathAndQuery.length));
+    }
+
+    public HostDictionary.Host getHost() {
+        return host;
+    }
+
+    public String getHostName() {
+        return host.getName();
+    }
+
+    public String getPathAndQuery() {
+        return new String(pathAndQuery, StandardCharsets.UTF_8);
+    }
+
+    // the stored bytes, not a copy, for the filters of this package to read
+    byte[] pathAndQueryBytes() {
+        return pathAndQuery;
+    }
+
+    public long hash64() {
+        return hash64;
+    }
+
+    // the canonical form is stored, so decoding only has to split off the origin again
+    public static Codec<CompactUrl> codec(UrlCanonicalizer canonicalizer) {
+        return new Codec<CompactUrl>() {
+            @Override
+            public byte[] encode(CompactUrl url) {
+                return url.toString().getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public CompactUrl decode(byte[] bytes) {
+                return canonicalizer.canonicalize(new String(bytes, StandardCharsets.UTF_8));
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompactUrl)) return false;
+        CompactUrl that = (CompactUrl) o;
+        return hash64 == that.hash64
+                && (host == that.host || host.getOrigin().equals(that.host.getOrigin()))
+                && Arrays.equals(pathAndQuery, that.pathAndQuery);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash64 ^ (hash64 >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return host.getOrigin() + getPathAndQuery();
+    }
+}
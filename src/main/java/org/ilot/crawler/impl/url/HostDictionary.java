@@ -0,0 +1,59 @@
+package org.ilot.crawler.impl.url;
+
+import org.ilot.crawler.algorithms.visited.Fingerprints;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Origins repeat across most of a crawl, so each one is stored once and shared by every CompactUrl on it.
+public class HostDictionary {
+    private final ConcurrentMap<String, Host> hosts = new ConcurrentHashMap<>();
+    private final AtomicInteger ids = new AtomicInteger();
+
+    public Host intern(String origin, String name) {
+        Host host = hosts.get(origin);
+        if (host != null) return host;
+        return hosts.computeIfAbsent(origin, key -> new Host(ids.getAndIncrement(), key, name));
+    }
+
+    public int size() {
+        return hosts.size();
+    }
+
+    public static final class Host {
+        private final int id;
+        private final String origin;
+        private final String name;
+        private final long hash;
+
+        private Host(int id, String origin, String name) {
+            this.id = id;
+            this.origin = origin;
+            this.name = name;
+            this.hash = Fingerprints.of(origin);
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        // scheme, host and non-default port, e.g. https://example.com:8443
+        public String getOrigin() {
+            return origin;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        long getHash() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return origin;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.ilot.crawler.impl.url;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Normalizes http(s) URLs in one pass over the string, without java.net.URI:
+// lower-case scheme and host, no fragment, user info or default port, dot-segments removed,
+// percent-escapes in upper case and the query sorted with tracking parameters dropped.
+// Tracking parameters ending in '*' match by prefix. Anything else returns null.
+public class UrlCanonicalizer {
+    public static final Set<String> DEFAULT_TRACKING_PARAMETERS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "utm_*", "gclid", "dclid", "fbclid", "msclkid", "yclid", "igshid", "mc_cid", "mc_eid", "_ga", "_hsenc", "_hsmi")));
+
+    private final HostDictionary hosts;
+    private final Set<String> trackingParameters;
+    private final List<String> trackingPrefixes = new ArrayList<>();
+    private final boolean removeTrailingSlash;
+
+    public UrlCanonicalizer() {
+        this(new HostDictionary(), DEFAULT_TRACKING_PARAMETERS, false);
+    }
+
+    public UrlCanonicalizer(HostDictionary hosts, Set<String> trackingParameters, boolean removeTrailingSlash) {
+        this.hosts = hosts;
+        this.trackingParameters = new HashSet<>();
+        for (String parameter : trackingParameters) {
+            if (parameter.endsWith("*")) trackingPrefixes.add(parameter.substring(0, parameter.length() - 1));
+            else this.trackingParameters.add(parameter);
+        }
+        this.removeTrailingSlash = removeTrailingSlash;
+    }
+
+    public HostDictionary getHosts() {
+        return hosts;
+    }
+
+    public CompactUrl canonicalize(String url) {
+        int start = 0;
+        int end = url.length();
+        while (start < end && url.charAt(start) <= ' ') start++;
+        while (end > start && url.charAt(end - 1) <= ' ') end--;
+
+        int defaultPort;
+        String scheme;
+        if (url.regionMatches(true, start, "http://", 0, 7)) {
+            scheme = "http://";
+            defaultPort = 80;
+            start += 7;
+        } else if (url.regionMatches(true, start, "https://", 0, 8)) {
+            scheme = "https://";
+            defaultPort = 443;
+            start += 8;
+        } else {
+            return null;
+        }
+
+        int authorityEnd = start;
+        while (authorityEnd < end && "/?#".indexOf(url.charAt(authorityEnd)) < 0) authorityEnd++;
+        int hostStart = url.lastIndexOf('@', authorityEnd - 1) + 1;
+        if (hostStart < start) hostStart = start;
+        int hostEnd = authorityEnd;
+        int port = defaultPort;
+        int colon = url.lastIndexOf(':', authorityEnd - 1);
+        if (colon >= hostStart && url.lastIndexOf(']', authorityEnd - 1) < colon) {
+            hostEnd = colon;
+            if (colon + 1 < authorityEnd) {
+                port = parsePort(url, colon + 1, authorityEnd);
+                if (port < 0) return null;
+            }
+        }
+        if (hostEnd > hostStart && url.charAt(hostEnd - 1) == '.') hostEnd--;
+        if (hostEnd == hostStart) return null;
+
+        String name = url.substring(hostStart, hostEnd).toLowerCase(Locale.ROOT);
+        String origin = port == defaultPort ? scheme + name : scheme + name + ':' + port;
+        HostDictionary.Host host = hosts.intern(origin, name);
+
+        int fragment = url.indexOf('#', authorityEnd);
+        if (fragment < 0 || fragment > end) fragment = end;
+        int query = url.indexOf('?', authorityEnd);
+        if (query < 0 || query > fragment) query = fragment;
+
+        StringBuilder pathAndQuery = new StringBuilder(fragment - authorityEnd + 1);
+        appendPath(url, authorityEnd, query, pathAndQuery);
+        if (removeTrailingSlash && pathAndQuery.length() > 1 && pathAndQuery.charAt(pathAndQuery.length() - 1) == '/') {
+            pathAndQuery.setLength(pathAndQuery.length() - 1);
+        }
+        if (query < fragment) appendQuery(url, query + 1, fragment, pathAndQuery);
+        return new CompactUrl(host, toUtf8(pathAndQuery));
+    }
+
+    private static int parsePort(String url, int start, int end) {
+        if (end - start > 5) return -1;
+        int port = 0;
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            port = port * 10 + c - '0';
+        }
+        return port > 65535 ? -1 : port;
+    }
+
+    // RFC 3986 remove_dot_segments, written segment by segment into the builder
+    private static void appendPath(String url, int start, int end, StringBuilder out) {
+        out.append('/');
+        if (start < end && url.charAt(start) == '/') start++;
+        if (start >= end) return;
+        int segment = start;
+        while (segment <= end) {
+            int next = url.indexOf('/', segment);
+            if (next < 0 || next > end) next = end;
+            boolean last = next == end;
+            if (isDot(url, segment, next)) {
+                // nothing to write, the directory stays open
+            } else if (isDoubleDot(url, segment, next)) {
+                if (out.length() > 1) out.setLength(out.lastIndexOf("/", out.length() - 2) + 1);
+            } else {
+                appendEscaped(url, segment, next, out);
+                if (!last) out.append('/');
+            }
+            segment = next + 1;
+        }
+    }
+
+    private static boolean isDot(String url, int start, int end) {
+        return end - start == 1 && url.charAt(start) == '.'
+                || end - start == 3 && url.regionMatches(true, start, "%2e", 0, 3);
+    }
+
+    private static boolean isDoubleDot(String url, int start, int end) {
+        switch (end - start) {
+            case 2:
+                return isDot(url, start, start + 1) && isDot(url, start + 1, end);
+            case 4:
+                return isDot(url, start, start + 1) && isDot(url, start + 1, end)
+                        || isDot(url, start, start + 3) && isDot(url, start + 3, end);
+            case 6:
+                return isDot(url, start, start + 3) && isDot(url, start + 3, end);
+            default:
+                return false;
+        }
+    }
+
+    private void appendQuery(String url, int start, int end, StringBuilder out) {
+        // [start, end) pairs of the parameters that survive, insertion sorted since queries are short
+        int[] parameters = new int[8];
+        int count = 0;
+        for (int parameter = start; parameter < end; ) {
+            int next = url.indexOf('&', parameter);
+            if (next < 0 || next > end) next = end;
+            if (next > parameter && !isTracking(url, parameter, next)) {
+                if (count * 2 == parameters.length) parameters = Arrays.copyOf(parameters, parameters.length * 2);
+                int i = count++;
+                while (i > 0 && compare(url, parameters[2 * i - 2], parameters[2 * i - 1], parameter, next) > 0) {
+                    parameters[2 * i] = parameters[2 * i - 2];
+                    parameters[2 * i + 1] = parameters[2 * i - 1];
+                    i--;
+                }
+                parameters[2 * i] = parameter;
+                parameters[2 * i + 1] = next;
+            }
+            parameter = next + 1;
+        }
+        for (int i = 0; i < count; i++) {
+            out.append(i == 0 ? '?' : '&');
+            appendEscaped(url, parameters[2 * i], parameters[2 * i + 1], out);
+        }
+    }
+
+    private boolean isTracking(String url, int start, int end) {
+        int equals = url.indexOf('=', start);
+        int nameEnd = equals < 0 || equals > end ? end : equals;
+        for (String prefix : trackingPrefixes) {
+            if (nameEnd - start >= prefix.length() && url.regionMatches(true, start, prefix, 0, prefix.length())) return true;
+        }
+        return !trackingParameters.isEmpty() && trackingParameters.contains(url.substring(start, nameEnd));
+    }
+
+    private static int compare(String url, int start1, int end1, int start2, int end2) {
+        int length = Math.min(end1 - start1, end2 - start2);
+        for (int i = 0; i < length; i++) {
+            int diff = url.charAt(start1 + i) - url.charAt(start2 + i);
+            if (diff != 0) return diff;
+        }
+        return (end1 - start1) - (end2 - start2);
+    }
+
+    private static void appendEscaped(String url, int start, int end, StringBuilder out) {
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            if (c == '%' && i + 2 < end && isHex(url.charAt(i + 1)) && isHex(url.charAt(i + 2))) {
+                out.append('%')
+                        .append(Character.toUpperCase(url.charAt(i + 1)))
+                        .append(Character.toUpperCase(url.charAt(i + 2)));
+                i += 2;
+            } else if (c == ' ') {
+                out.append("%20");
+            } else {
+                out.append(c);
+            }
+        }
+    }
+
+    private static boolean isHex(char c) {
+        return Character.digit(c, 16) >= 0;
+    }
+
+    private static byte[] toUtf8(StringBuilder value) {
+        int length = value.length();
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) return value.toString().getBytes(StandardCharsets.UTF_8);
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+}
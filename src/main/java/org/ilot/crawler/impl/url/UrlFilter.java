@@ -0,0 +1,259 @@
+package org.ilot.crawler.impl.url;
+
+import org.ilot.crawler.algorithms.concurrent.Node;
+import org.ilot.crawler.metrics.CrawlMetrics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Scope rules compiled once and checked against every extracted link, cheapest first, in one pass:
+// allowed host suffixes in a trie over the reversed host labels, whose verdict is cached per interned
+// host; allowed and excluded path prefixes in one byte trie over the path, the longest matching prefix
+// wins; blocked file extensions, compared against the last path segment in place; and every exclude
+// regex in one alternation that is matched once against the whole URL. Empty rule sets allow anything.
+public class UrlFilter implements Predicate<CompactUrl> {
+    public enum Rule {
+        HOST, PATH, EXTENSION, PATTERN
+    }
+
+    private static final Rule[] RULES = Rule.values();
+    private static final int NO_VERDICT = 0;
+    private static final int ALLOW = 1;
+    private static final int DENY = 2;
+
+    private final HostTrie hosts;
+    private final PathTrie paths;
+    private final int defaultPathVerdict;
+    private final byte[][] extensions;
+    private final Pattern patterns;
+    private final List<String> patternSources;
+    private final int[] patternGroups;
+
+    private final ConcurrentMap<HostDictionary.Host, Boolean> hostVerdicts = new ConcurrentHashMap<>();
+    private final LongAdder[] rejected = new LongAdder[RULES.length];
+    private final LongAdder[] rejectedByPattern;
+
+    public UrlFilter(Collection<String> allowedHosts,
+                     Collection<String> allowedPathPrefixes,
+                     Collection<String> excludedPathPrefixes,
+                     Collection<String> blockedExtensions,
+                     Collection<String> excludePatterns) {
+        this.hosts = allowedHosts.isEmpty() ? null : HostTrie.compile(allowedHosts);
+        this.paths = new PathTrie();
+        for (String prefix : allowedPathPrefixes) paths.insert(prefix.getBytes(StandardCharsets.UTF_8), ALLOW);
+        // an exclude wins over an allow for the very same prefix
+        for (String prefix : excludedPathPrefixes) paths.insert(prefix.getBytes(StandardCharsets.UTF_8), DENY);
+        this.defaultPathVerdict = allowedPathPrefixes.isEmpty() ? ALLOW : DENY;
+        this.extensions = new byte[blockedExtensions.size()][];
+        int i = 0;
+        for (String extension : blockedExtensions) {
+            String normalized = extension.startsWith(".") ? extension.substring(1) : extension;
+            extensions[i++] = normalized.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII);
+        }
+        this.patternSources = Collections.unmodifiableList(new ArrayList<>(excludePatterns));
+        this.patternGroups = new int[patternSources.size()];
+        this.patterns = patternSources.isEmpty() ? null : combine(patternSources, patternGroups);
+        this.rejectedByPattern = new LongAdder[patternSources.size()];
+        for (int p = 0; p < rejectedByPattern.length; p++) rejectedByPattern[p] = new LongAdder();
+        for (Rule rule : RULES) rejected[rule.ordinal()] = new LongAdder();
+    }
+
+    public static UrlFilter acceptAll() {
+        return new UrlFilter(Collections.emptySet(), Collections.emptySet(), Collections.emptySet(),
+                Collections.emptySet(), Collections.emptySet());
+    }
+
+    public static UrlFilter allowingHosts(String... hosts) {
+        return new UrlFilter(Arrays.asList(hosts), Collections.emptySet(), Collections.emptySet(),
+                Collections.emptySet(), Collections.emptySet());
+    }
+
+    @Override
+    public boolean test(CompactUrl url) {
+        Rule rule = reject(url);
+        if (rule == null) return true;
+        rejected[rule.ordinal()].increment();
+        return false;
+    }
+
+    // the same rules as a search predicate or a scope for nodes
+    public Predicate<Node<CompactUrl>> forNodes() {
+        return node -> test(node.getElement());
+    }
+
+    public long rejected(Rule rule) {
+        return rejected[rule.ordinal()].sum();
+    }
+
+    // rejections by each exclude pattern, in the order they were given
+    public Map<String, Long> rejectedByPattern() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int p = 0; p < rejectedByPattern.length; p++) {
+            counts.merge(patternSources.get(p), rejectedByPattern[p].sum(), Long::sum);
+        }
+        return counts;
+    }
+
+    public void instrument(CrawlMetrics metrics) {
+        for (Rule rule : RULES) {
+            metrics.gauge("crawler.links.rejected." + rule.name().toLowerCase(Locale.ROOT), rejected[rule.ordinal()], LongAdder::sum);
+        }
+    }
+
+    private Rule reject(CompactUrl url) {
+        if (hosts != null && !hostVerdicts.computeIfAbsent(url.getHost(), host -> hosts.matches(host.getName()))) {
+            return Rule.HOST;
+        }
+        byte[] bytes = url.pathAndQueryBytes();
+        int pathEnd = 0;
+        while (pathEnd < bytes.length && bytes[pathEnd] != '?') pathEnd++;
+        if (paths.verdict(bytes, pathEnd, defaultPathVerdict) == DENY) return Rule.PATH;
+        if (extensions.length > 0 && hasBlockedExtension(bytes, pathEnd)) return Rule.EXTENSION;
+        if (patterns != null) {
+            Matcher matcher = patterns.matcher(url.toString());
+            if (matcher.find()) {
+                for (int p = 0; p < rejectedByPattern.length; p++) {
+                    if (matcher.start(patternGroups[p]) >= 0) {
+                        rejectedByPattern[p].increment();
+                        break;
+                    }
+                }
+                return Rule.PATTERN;
+            }
+        }
+        return null;
+    }
+
+    private boolean hasBlockedExtension(byte[] path, int pathEnd) {
+        int dot = -1;
+        for (int i = pathEnd - 1; i >= 0 && path[i] != '/'; i--) {
+            if (path[i] == '.') {
+                dot = i;
+                break;
+            }
+        }
+        if (dot < 0) return false;
+        int length = pathEnd - dot - 1;
+        for (byte[] extension : extensions) {
+            if (extension.length == length && equalsIgnoreCase(path, dot + 1, extension)) return true;
+        }
+        return false;
+    }
+
+    private static boolean equalsIgnoreCase(byte[] bytes, int offset, byte[] lowerCase) {
+        for (int i = 0; i < lowerCase.length; i++) {
+            byte b = bytes[offset + i];
+            if (b >= 'A' && b <= 'Z') b += 'a' - 'A';
+            if (b != lowerCase[i]) return false;
+        }
+        return true;
+    }
+
+    // Every pattern becomes a group of one alternation, so one find tells whether and which one matched.
+    // The groups of a pattern are renumbered by the ones before it, numbered back references do not survive.
+    private static Pattern combine(List<String> sources, int[] groups) {
+        StringBuilder combined = new StringBuilder();
+        int group = 1;
+        for (int p = 0; p < sources.size(); p++) {
+            // compiled on its own first, so a broken pattern is reported as itself
+            Pattern pattern = Pattern.compile(sources.get(p));
+            groups[p] = group;
+            group += 1 + pattern.matcher("").groupCount();
+            if (p > 0) combined.append('|');
+            combined.append('(').append(sources.get(p)).append(')');
+        }
+        return Pattern.compile(combined.toString());
+    }
+
+    // "example.com" allows example.com and every host below it
+    private static final class HostTrie {
+        private final Map<String, HostTrie> children = new HashMap<>();
+        private boolean terminal;
+
+        private static HostTrie compile(Collection<String> suffixes) {
+            HostTrie root = new HostTrie();
+            for (String suffix : suffixes) {
+                String host = suffix.toLowerCase(Locale.ROOT);
+                if (host.startsWith("*.")) host = host.substring(2);
+                if (host.startsWith(".")) host = host.substring(1);
+                if (host.endsWith(".")) host = host.substring(0, host.length() - 1);
+                HostTrie node = root;
+                int end = host.length();
+                while (end > 0) {
+                    int start = host.lastIndexOf('.', end - 1) + 1;
+                    node = node.children.computeIfAbsent(host.substring(start, end), label -> new HostTrie());
+                    end = start - 1;
+                }
+                node.terminal = true;
+            }
+            return root;
+        }
+
+        private boolean matches(String host) {
+            HostTrie node = this;
+            int end = host.length();
+            while (end > 0) {
+                int start = host.lastIndexOf('.', end - 1) + 1;
+                node = node.children.get(host.substring(start, end));
+                if (node == null) return false;
+                if (node.terminal) return true;
+                end = start - 1;
+            }
+            return false;
+        }
+    }
+
+    private static final class PathTrie {
+        private byte[] keys = new byte[0];
+        private PathTrie[] children = new PathTrie[0];
+        private int verdict = NO_VERDICT;
+
+        private void insert(byte[] prefix, int verdict) {
+            PathTrie node = this;
+            for (byte b : prefix) {
+                PathTrie child = node.child(b);
+                if (child == null) {
+                    child = new PathTrie();
+                    node.keys = Arrays.copyOf(node.keys, node.keys.length + 1);
+                    node.children = Arrays.copyOf(node.children, node.children.length + 1);
+                    node.keys[node.keys.length - 1] = b;
+                    node.children[node.children.length - 1] = child;
+                }
+                node = child;
+            }
+            node.verdict = Math.max(node.verdict, verdict);
+        }
+
+        private PathTrie child(byte b) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == b) return children[i];
+            }
+            return null;
+        }
+
+        private int verdict(byte[] path, int end, int defaultVerdict) {
+            int verdict = this.verdict == NO_VERDICT ? defaultVerdict : this.verdict;
+            PathTrie node = this;
+            for (int i = 0; i < end; i++) {
+                node = node.child(path[i]);
+                if (node == null) break;
+                if (node.verdict != NO_VERDICT) verdict = node.verdict;
+            }
+            return verdict;
+        }
+    }
+}
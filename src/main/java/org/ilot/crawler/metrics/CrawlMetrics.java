@@ -0,0 +1,163 @@
+package org.ilot.crawler.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToDoubleFunction;
+
+// Every meter is registered up front and looked up by ordinal, so recording is a nanoTime and an
+// array read away from the meter and allocates nothing. disabled() records into no-op meters.
+// Meters carry a crawler tag: crawlers sharing a registry each need an instance of their own, see named.
+public class CrawlMetrics {
+    public enum Stage {
+        // waiting on the frontier, polling it and handing nodes to the executor
+        AWAIT_NOT_EMPTY, FRONTIER_POLL, DISPATCH,
+        // getNeighbours as the algorithm sees it, and its fetch, fingerprint and parse steps inside WebCrawler
+        EXPAND, FETCH, FINGERPRINT, PARSE
+    }
+
+    public enum ErrorType {
+        TIMEOUT, CONNECTION, IO, INTERRUPTED, OTHER;
+
+        public static ErrorType of(Throwable error) {
+            while ((error instanceof CompletionException || error instanceof ExecutionException
+                    || error instanceof UncheckedIOException) && error.getCause() != null) {
+                error = error.getCause();
+            }
+            if (error instanceof SocketTimeoutException || error instanceof ConnectTimeoutException
+                    || error instanceof TimeoutException) return TIMEOUT;
+            if (error instanceof ConnectException || error instanceof UnknownHostException
+                    || error instanceof NoRouteToHostException) return CONNECTION;
+            if (error instanceof InterruptedException || error instanceof InterruptedIOException) return INTERRUPTED;
+            if (error instanceof IOException) return IO;
+            return OTHER;
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(CrawlMetrics.class);
+    private static final Stage[] STAGES = Stage.values();
+    private static final ErrorType[] ERROR_TYPES = ErrorType.values();
+    private static final String[] STATUS_CLASSES = {"other", "1xx", "2xx", "3xx", "4xx", "5xx"};
+    private static final String CRAWLER_TAG = "crawler";
+    private static final String DEFAULT_CRAWLER = "crawler";
+
+    private final MeterRegistry registry;
+    private final String crawler;
+    private final boolean enabled;
+    private final Timer[] stages = new Timer[STAGES.length];
+    private final Counter[] errors = new Counter[ERROR_TYPES.length];
+    private final Counter[] fetches = new Counter[STATUS_CLASSES.length];
+    private final AtomicBoolean[] reported = new AtomicBoolean[ERROR_TYPES.length];
+
+    public CrawlMetrics(MeterRegistry registry) {
+        this(registry, DEFAULT_CRAWLER);
+    }
+
+    public CrawlMetrics(MeterRegistry registry, String crawler) {
+        this(registry, crawler, true);
+    }
+
+    private CrawlMetrics(MeterRegistry registry, String crawler, boolean enabled) {
+        this.registry = registry;
+        this.crawler = crawler;
+        this.enabled = enabled;
+        for (Stage stage : STAGES) {
+            stages[stage.ordinal()] = Timer.builder("crawler.stage.duration")
+                    .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                    .tag(CRAWLER_TAG, crawler)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(100))
+                    .maximumExpectedValue(Duration.ofMinutes(1))
+                    .register(registry);
+        }
+        for (ErrorType type : ERROR_TYPES) {
+            errors[type.ordinal()] = Counter.builder("crawler.errors")
+                    .tag("type", type.name().toLowerCase(Locale.ROOT))
+                    .tag(CRAWLER_TAG, crawler)
+                    .register(registry);
+            reported[type.ordinal()] = new AtomicBoolean();
+        }
+        for (int i = 0; i < STATUS_CLASSES.length; i++) {
+            fetches[i] = Counter.builder("crawler.fetches")
+                    .tag("status", STATUS_CLASSES[i])
+                    .tag(CRAWLER_TAG, crawler)
+                    .register(registry);
+        }
+    }
+
+    public static CrawlMetrics disabled() {
+        return new CrawlMetrics(new CompositeMeterRegistry(), DEFAULT_CRAWLER, false);
+    }
+
+    // the same registry under another crawler tag, for a second crawler publishing next to this one
+    public CrawlMetrics named(String crawler) {
+        return new CrawlMetrics(registry, crawler, enabled);
+    }
+
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    public void record(Stage stage, long startNanos) {
+        stages[stage.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void error(Throwable error) {
+        error(null, error);
+    }
+
+    // The first error of each type is logged as a warning, so a failure mode shows up without debug logging;
+    // every error is logged at debug together with what failed, usually the url.
+    public void error(Object subject, Throwable error) {
+        ErrorType type = ErrorType.of(error);
+        errors[type.ordinal()].increment();
+        if (reported[type.ordinal()].compareAndSet(false, true)) {
+            log.warn("First {} error{}, more are counted in crawler.errors and logged at debug",
+                    type.name().toLowerCase(Locale.ROOT), describe(subject), error);
+        } else if (log.isDebugEnabled()) {
+            log.debug("{} error{}", type.name().toLowerCase(Locale.ROOT), describe(subject), error);
+        }
+    }
+
+    private static String describe(Object subject) {
+        return subject == null ? "" : " on " + subject;
+    }
+
+    public void fetched(int statusCode) {
+        fetches[statusCode >= 100 && statusCode < 600 ? statusCode / 100 : 0].increment();
+    }
+
+    // Gauges are sampled when scraped and hold the source weakly, so an abandoned crawl is not kept alive.
+    // The registry would hand back a gauge already registered under the same name and tags, still reading
+    // the first source, so a second one is refused rather than left unpublished.
+    public <T> void gauge(String name, T source, ToDoubleFunction<T> value) {
+        if (!enabled) return;
+        synchronized (registry) {
+            if (registry.find(name).tag(CRAWLER_TAG, crawler).gauge() != null) {
+                throw new IllegalStateException("Gauge " + name + " is already registered for crawler " + crawler
+                        + ", give each crawler its own CrawlMetrics.named(...)");
+            }
+            Gauge.builder(name, source, value).tag(CRAWLER_TAG, crawler).register(registry);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.ilot.crawler.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// crawls built with this instance publish to the actuator's registry, a second crawler takes crawlMetrics.named(...)
+@Configuration
+public class CrawlMetricsConfiguration {
+
+    @Bean
+    public CrawlMetrics crawlMetrics(MeterRegistry meterRegistry) {
+        return new CrawlMetrics(meterRegistry);
+    }
+}
@@ -0,0 +1,81 @@
+package org.ilot.crawler.storage;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+// varint-length-prefixed records, only the prefix up to the last sync is guaranteed to be durable
+public class AppendLog implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    // drops whatever was written after validLength, e.g. records appended after the last checkpoint
+    public AppendLog(Path path, long validLength) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.channel.truncate(validLength);
+        this.channel.position(validLength);
+    }
+
+    public void append(byte[] record) throws IOException {
+        if (buffer.remaining() < record.length + VarInts.MAX_SIZE) {
+            drain();
+            if (buffer.remaining() < record.length + VarInts.MAX_SIZE) {
+                ByteBuffer large = ByteBuffer.allocate(record.length + VarInts.MAX_SIZE);
+                VarInts.write(large, record.length);
+                large.put(record).flip();
+                while (large.hasRemaining()) channel.write(large);
+                return;
+            }
+        }
+        VarInts.write(buffer, record.length);
+        buffer.put(record);
+    }
+
+    // returns the durable length of the log
+    public long sync() throws IOException {
+        drain();
+        channel.force(false);
+        return channel.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        sync();
+        channel.close();
+    }
+
+    public static void read(Path path, long length, Consumer<byte[]> consumer) throws IOException {
+        if (length == 0 || !Files.exists(path)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE))) {
+            long position = 0;
+            while (position < length) {
+                int recordLength = 0;
+                for (int shift = 0; ; shift += 7) {
+                    int b = in.readUnsignedByte();
+                    position++;
+                    recordLength |= (b & 0x7f) << shift;
+                    if (b < 0x80) break;
+                }
+                byte[] record = new byte[recordLength];
+                in.readFully(record);
+                position += recordLength;
+                consumer.accept(record);
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+}
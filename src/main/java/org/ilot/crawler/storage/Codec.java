@@ -0,0 +1,6 @@
+package org.ilot.crawler.storage;
+
+public interface Codec<T> {
+    byte[] encode(T value);
+    T decode(byte[] bytes);
+}
@@ -0,0 +1,20 @@
+package org.ilot.crawler.storage;
+
+import java.nio.charset.StandardCharsets;
+
+public final class Codecs {
+    public static final Codec<String> UTF8_STRING = new Codec<String>() {
+        @Override
+        public byte[] encode(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    private Codecs() {
+    }
+}
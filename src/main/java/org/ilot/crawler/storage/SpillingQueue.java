@@ -0,0 +1,289 @@
+package org.ilot.crawler.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// FIFO queue with an in-memory head and tail, everything in between lives in append-only memory-mapped segment files
+public class SpillingQueue<T> extends AbstractQueue<T> implements Closeable {
+    public static final int DEFAULT_TAIL_CAPACITY = 1 << 16;
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+    private final Path directory;
+    private final Codec<T> codec;
+    private final int tailCapacity;
+    private final int segmentSize;
+
+    private final Deque<T> head = new ArrayDeque<>();
+    private final Deque<T> tail = new ArrayDeque<>();
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private long size;
+    private long spilled;
+    // changes whenever elements move, iterators fail fast on it
+    private int modCount;
+
+    public SpillingQueue(Path directory, Codec<T> codec) {
+        this(directory, codec, DEFAULT_TAIL_CAPACITY, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public SpillingQueue(Path directory, Codec<T> codec, int tailCapacity, int segmentSize) {
+        if (tailCapacity < 1) throw new IllegalArgumentException("Tail capacity must be positive");
+        this.directory = directory;
+        this.codec = codec;
+        this.tailCapacity = tailCapacity;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized boolean offer(T element) {
+        if (element == null) throw new NullPointerException();
+        tail.addLast(element);
+        size++;
+        modCount++;
+        if (tail.size() >= tailCapacity) spill();
+        return true;
+    }
+
+    @Override
+    public synchronized T poll() {
+        if (head.isEmpty() && !refill()) return null;
+        size--;
+        modCount++;
+        return head.pollFirst();
+    }
+
+    @Override
+    public synchronized T peek() {
+        if (head.isEmpty() && !refill()) return null;
+        return head.peekFirst();
+    }
+
+    @Override
+    public synchronized int size() {
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+    public synchronized long longSize() {
+        return size;
+    }
+
+    public synchronized long spilledElements() {
+        return spilled;
+    }
+
+    // In queue order: the head, then the spilled segments read through a mapping of their own, then the tail.
+    // Fails fast once the queue changes, including a peek that pulls a segment into memory. No remove.
+    @Override
+    public synchronized Iterator<T> iterator() {
+        List<Iterator<T>> parts = new ArrayList<>(segments.size() + 2);
+        parts.add(head.iterator());
+        for (Segment segment : segments) parts.add(new SegmentIterator(segment));
+        parts.add(tail.iterator());
+        return new Itr(parts.iterator());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments) {
+            segment.delete();
+        }
+        segments.clear();
+        head.clear();
+        tail.clear();
+        size = 0;
+        modCount++;
+    }
+
+    private void spill() {
+        try {
+            while (!tail.isEmpty()) {
+                byte[] record = codec.encode(tail.pollFirst());
+                Segment segment = segments.peekLast();
+                if (segment == null || !segment.append(record)) {
+                    if (segment != null) segment.seal();
+                    // a name of its own, a crashed run or another queue may have left segments in the directory
+                    segment = new Segment(Files.createTempFile(directory, "segment-", ".bin"),
+                            Math.max(segmentSize, record.length + VarInts.MAX_SIZE));
+                    segments.addLast(segment);
+                    segment.append(record);
+                }
+                spilled++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // oldest segment first, the tail only once nothing is left on disk
+    private boolean refill() {
+        modCount++;
+        try {
+            while (!segments.isEmpty()) {
+                Segment segment = segments.peekFirst();
+                int read = segment.readInto(head, tailCapacity, codec);
+                if (segment.isExhausted()) {
+                    segments.pollFirst();
+                    segment.delete();
+                }
+                if (read > 0) return true;
+                // only the segment still being written can be drained without being exhausted
+                if (!segment.isExhausted()) break;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (tail.isEmpty()) return false;
+        head.addAll(tail);
+        tail.clear();
+        return true;
+    }
+
+    private final class Itr implements Iterator<T> {
+        private final Iterator<Iterator<T>> parts;
+        private final int expectedModCount;
+        private Iterator<T> current = Collections.emptyIterator();
+
+        private Itr(Iterator<Iterator<T>> parts) {
+            this.parts = parts;
+            this.expectedModCount = modCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            synchronized (SpillingQueue.this) {
+                checkForModification();
+                while (!current.hasNext() && parts.hasNext()) current = parts.next();
+                return current.hasNext();
+            }
+        }
+
+        @Override
+        public T next() {
+            synchronized (SpillingQueue.this) {
+                if (!hasNext()) throw new NoSuchElementException();
+                return current.next();
+            }
+        }
+
+        private void checkForModification() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        }
+    }
+
+    // maps the segment only once the iteration gets to it
+    private final class SegmentIterator implements Iterator<T> {
+        private final Segment segment;
+        private ByteBuffer records;
+
+        private SegmentIterator(Segment segment) {
+            this.segment = segment;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (records == null) {
+                try {
+                    records = segment.unread();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return records.hasRemaining();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            byte[] record = new byte[VarInts.read(records)];
+            records.get(record);
+            return codec.decode(record);
+        }
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final int capacity;
+        private MappedByteBuffer buffer;
+        private int writePosition;
+        private int readPosition;
+        private boolean sealed;
+
+        private Segment(Path path, int capacity) throws IOException {
+            this.path = path;
+            this.capacity = capacity;
+            this.buffer = map(FileChannel.MapMode.READ_WRITE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        private boolean append(byte[] record) {
+            if (sealed || capacity - writePosition < record.length + VarInts.MAX_SIZE) return false;
+            buffer.position(writePosition);
+            VarInts.write(buffer, record.length);
+            buffer.put(record);
+            writePosition = buffer.position();
+            return true;
+        }
+
+        // drops the mapping until reads reach this segment
+        private void seal() {
+            sealed = true;
+            buffer = null;
+        }
+
+        private <T> int readInto(Deque<T> target, int maxElements, Codec<T> codec) throws IOException {
+            if (buffer == null) buffer = map(FileChannel.MapMode.READ_ONLY, StandardOpenOption.READ);
+            buffer.position(readPosition);
+            int read = 0;
+            while (read < maxElements && buffer.position() < writePosition) {
+                byte[] record = new byte[VarInts.read(buffer)];
+                buffer.get(record);
+                target.addLast(codec.decode(record));
+                read++;
+            }
+            readPosition = buffer.position();
+            return read;
+        }
+
+        // the records not read yet, without moving the read position
+        private ByteBuffer unread() throws IOException {
+            ByteBuffer view = buffer != null ? buffer.duplicate() : map(FileChannel.MapMode.READ_ONLY, StandardOpenOption.READ);
+            view.limit(writePosition).position(readPosition);
+            return view;
+        }
+
+        // a segment still being written to may receive more records later
+        private boolean isExhausted() {
+            return sealed && readPosition >= writePosition;
+        }
+
+        private void delete() throws IOException {
+            buffer = null;
+            Files.deleteIfExists(path);
+        }
+
+        private MappedByteBuffer map(FileChannel.MapMode mode, StandardOpenOption... options) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, options)) {
+                return channel.map(mode, 0, capacity);
+            }
+        }
+    }
+}
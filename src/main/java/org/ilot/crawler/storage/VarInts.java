@@ -0,0 +1,36 @@
+package org.ilot.crawler.storage;
+
+import java.nio.ByteBuffer;
+
+public final class VarInts {
+    public static final int MAX_SIZE = 5;
+
+    private VarInts() {
+    }
+
+    public static int size(int value) {
+        int size = 1;
+        while ((value & ~0x7f) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    public static void write(ByteBuffer buffer, int value) {
+        while ((value & ~0x7f) != 0) {
+            buffer.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public static int read(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) return value;
+        }
+    }
+}
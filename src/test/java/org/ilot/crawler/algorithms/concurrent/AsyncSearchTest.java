@@ -0,0 +1,55 @@
+package org.ilot.crawler.algorithms.concurrent;
+
+import org.ilot.crawler.algorithms.concurrent.frontier.FifoFrontier;
+import org.ilot.crawler.algorithms.visited.ConcurrentVisitedSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AsyncSearchTest {
+    private static final int WIDTH = 8;
+    private static final int LEVELS = 6;
+
+    @Test
+    void queuesANodeReachedFromManyParentsOnce() {
+        AtomicInteger fetched = new AtomicInteger();
+        AtomicInteger queued = new AtomicInteger();
+        FifoFrontier<Integer> frontier = new FifoFrontier<>() {
+            @Override
+            public void add(Node<Integer> node) {
+                queued.incrementAndGet();
+                super.add(node);
+            }
+        };
+        new AsyncSearch<Integer>(
+                Executors.newFixedThreadPool(4),
+                // every node links to every node of the next level
+                (node, timeout) -> CompletableFuture.supplyAsync(() -> {
+                    fetched.incrementAndGet();
+                    Set<Integer> next = new HashSet<>();
+                    int level = node / WIDTH + 1;
+                    for (int child = level * WIDTH; child < (level + 1) * WIDTH && level < LEVELS; child++) {
+                        next.add(child);
+                    }
+                    return next;
+                }),
+                Function.identity(),
+                node -> false,
+                500L,
+                0L,
+                16,
+                new ConcurrentVisitedSet<>(),
+                frontier).traverse(0);
+
+        // the root and every node of the five levels below it
+        assertEquals(1 + (LEVELS - 1) * WIDTH, fetched.get());
+        assertEquals(1 + (LEVELS - 1) * WIDTH, queued.get());
+    }
+}
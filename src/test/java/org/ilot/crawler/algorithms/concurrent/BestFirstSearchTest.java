@@ -0,0 +1,49 @@
+package org.ilot.crawler.algorithms.concurrent;
+
+import org.ilot.crawler.algorithms.concurrent.frontier.Scorer;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BestFirstSearchTest {
+    private static final int NODES = 2000;
+
+    private final List<Integer> expanded = new CopyOnWriteArrayList<>();
+
+    // every node links to its two children and to the root, node i also links to i / 10
+    private final BiFunction<Integer, Long, Set<Integer>> getNeighbours = (node, timeout) -> {
+        expanded.add(node);
+        Set<Integer> neighbours = new HashSet<>();
+        neighbours.add(0);
+        neighbours.add(node / 10);
+        for (int child = 2 * node + 1; child <= 2 * node + 2 && child < NODES; child++) {
+            neighbours.add(child);
+        }
+        return neighbours;
+    };
+
+    @Test
+    void expandsEveryNodeOnce() {
+        new BestFirstSearch<>(Executors.newFixedThreadPool(8), getNeighbours, Function.identity(), node -> false,
+                100L, 1000L, Scorer.mostInlinks()).traverse(0);
+        assertEquals(NODES, expanded.size());
+        assertEquals(NODES, new HashSet<>(expanded).size());
+    }
+
+    @Test
+    void findsTheTarget() {
+        Optional<Integer> result = new BestFirstSearch<Integer>(Executors.newFixedThreadPool(8), getNeighbours,
+                Function.identity(), node -> node.getElement() == NODES - 1, 100L, 1000L, Scorer.shallowFirst())
+                .search(0);
+        assertEquals(Optional.of(NODES - 1), result);
+    }
+}
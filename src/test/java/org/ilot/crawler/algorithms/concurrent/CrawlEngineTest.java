@@ -0,0 +1,150 @@
+package org.ilot.crawler.algorithms.concurrent;
+
+import org.ilot.crawler.algorithms.concurrent.frontier.HostPartitionedFrontier;
+import org.ilot.crawler.algorithms.visited.FingerprintVisitedSet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrawlEngineTest {
+    private static final int NODES = 4095;
+
+    private final ConcurrentMap<Integer, AtomicInteger> expansions = new ConcurrentHashMap<>();
+    private final ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+    // binary tree over 0..NODES-1
+    private final BiFunction<Integer, Long, Set<Integer>> getNeighbours = (node, timeout) -> {
+        expansions.computeIfAbsent(node, key -> new AtomicInteger()).incrementAndGet();
+        Set<Integer> children = new HashSet<>();
+        for (int child = 2 * node + 1; child <= 2 * node + 2 && child < NODES; child++) {
+            children.add(child);
+        }
+        return children;
+    };
+
+    @AfterEach
+    void shutDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void runsManyJobsWithTheirOwnScopeAndDepth() throws Exception {
+        try (CrawlEngine<Integer> engine = engine(0)) {
+            List<CompletableFuture<Optional<Integer>>> results = new ArrayList<>();
+            List<List<Integer>> expanded = new ArrayList<>();
+            for (int seed = 0; seed < 100; seed++) {
+                List<Integer> nodes = new CopyOnWriteArrayList<>();
+                expanded.add(nodes);
+                CrawlJob<Integer> job = CrawlJob.<Integer>traverse(seed, node -> node % 2 == 1, 3)
+                        .withListener((node, neighbours) -> nodes.add(node.getElement()));
+                results.add(engine.submit(job));
+            }
+            for (CompletableFuture<Optional<Integer>> result : results) {
+                assertEquals(Optional.empty(), result.get(10, TimeUnit.SECONDS));
+            }
+            // the seed, its odd child and that child's odd child, as far as the tree goes
+            assertEquals(List.of(0, 1, 3), sorted(expanded.get(0)));
+            assertEquals(List.of(10, 21, 43), sorted(expanded.get(10)));
+            assertEquals(0, engine.runningJobs());
+        }
+    }
+
+    @Test
+    void sharesExpansionsBetweenOverlappingJobs() throws Exception {
+        try (CrawlEngine<Integer> engine = engine(NODES)) {
+            CompletableFuture<Optional<Integer>> first = engine.submit(CrawlJob.traverse(0, node -> true, 20));
+            first.get(10, TimeUnit.SECONDS);
+            CompletableFuture<Optional<Integer>> second = engine.submit(CrawlJob.traverse(0, node -> true, 20));
+            second.get(10, TimeUnit.SECONDS);
+            assertEquals(NODES, expansions.size());
+            assertTrue(expansions.values().stream().allMatch(count -> count.get() == 1));
+            assertEquals(NODES, engine.cacheHits());
+        }
+    }
+
+    @Test
+    void searchEndsOnlyItsOwnJob() throws Exception {
+        try (CrawlEngine<Integer> engine = engine(0)) {
+            CompletableFuture<Optional<Integer>> search = engine.submit(
+                    CrawlJob.search(0, node -> true, 20, node -> node.getElement() == 100));
+            CompletableFuture<Optional<Integer>> traversal = engine.submit(CrawlJob.traverse(1, node -> true, 20));
+            assertEquals(Optional.of(100), search.get(10, TimeUnit.SECONDS));
+            assertEquals(Optional.empty(), traversal.get(10, TimeUnit.SECONDS));
+            // the traversal still covered its whole subtree
+            assertTrue(expansions.keySet().containsAll(List.of(1, 3, 4, 2047, 3070)));
+        }
+    }
+
+    @Test
+    void keepsEachJobToItsFrontiersHostLimit() throws Exception {
+        // four hosts, node % 4, at most one expansion per host and job at a time
+        ConcurrentMap<Integer, AtomicInteger> running = new ConcurrentHashMap<>();
+        AtomicInteger maxRunning = new AtomicInteger();
+        BiFunction<Integer, Long, Set<Integer>> politeNeighbours = (node, timeout) -> {
+            int now = running.computeIfAbsent(node % 4, host -> new AtomicInteger()).incrementAndGet();
+            maxRunning.accumulateAndGet(now, Math::max);
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.get(node % 4).decrementAndGet();
+            return getNeighbours.apply(node, timeout);
+        };
+        try (CrawlEngine<Integer> engine = new CrawlEngine<>(executorService, politeNeighbours, Function.identity(), 1000L,
+                FingerprintVisitedSet.create(Integer::longValue, NODES), 64, 0,
+                () -> new HostPartitionedFrontier<>(node -> node % 4, 1, 0, TimeUnit.MILLISECONDS, 0, TimeUnit.MILLISECONDS))) {
+            engine.submit(CrawlJob.traverse(0, node -> true, 8)).get(10, TimeUnit.SECONDS);
+        }
+        assertEquals(255, expansions.size());
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    void releasesTheVisitsOfFinishedJobs() throws Exception {
+        FingerprintVisitedSet<Integer> visited = FingerprintVisitedSet.create(Integer::longValue, NODES);
+        try (CrawlEngine<Integer> engine = engine(visited, 0)) {
+            for (int round = 0; round < 3; round++) {
+                engine.submit(CrawlJob.traverse(0, node -> true, 20)).get(10, TimeUnit.SECONDS);
+            }
+            // released right after the result completes
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (visited.size() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(0, visited.size());
+        }
+    }
+
+    private CrawlEngine<Integer> engine(int cacheSize) {
+        return engine(FingerprintVisitedSet.create(Integer::longValue, NODES), cacheSize);
+    }
+
+    private CrawlEngine<Integer> engine(FingerprintVisitedSet<Integer> visited, int cacheSize) {
+        return new CrawlEngine<>(executorService, getNeighbours, Function.identity(), 1000L, visited, 64, cacheSize);
+    }
+
+    private static List<Integer> sorted(List<Integer> elements) {
+        List<Integer> sorted = new ArrayList<>(elements);
+        sorted.sort(null);
+        return sorted;
+    }
+}
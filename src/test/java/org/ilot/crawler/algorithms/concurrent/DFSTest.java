@@ -0,0 +1,76 @@
+package org.ilot.crawler.algorithms.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DFSTest {
+    private static final int NODES = 4095;
+
+    private final List<Integer> expanded = new CopyOnWriteArrayList<>();
+
+    // binary tree over 0..NODES-1
+    private final BiFunction<Integer, Long, Set<Integer>> getNeighbours = (node, timeout) -> {
+        expanded.add(node);
+        Set<Integer> children = new HashSet<>();
+        for (int child = 2 * node + 1; child <= 2 * node + 2 && child < NODES; child++) {
+            children.add(child);
+        }
+        return children;
+    };
+
+    @Test
+    void expandsEveryNodeOnce() {
+        new DFS<>(new ForkJoinPool(8), getNeighbours, Function.identity(), node -> false, 1000L).traverse(0);
+        assertEquals(NODES, expanded.size());
+        assertEquals(NODES, new HashSet<>(expanded).size());
+    }
+
+    @Test
+    void singleWorkerGoesDepthFirst() {
+        new DFS<>(new ForkJoinPool(1), getNeighbours, Function.identity(), node -> false, 1000L).traverse(0);
+        // every node is a child of a node on the current root path
+        List<Integer> path = new ArrayList<>();
+        path.add(expanded.get(0));
+        for (Integer node : expanded.subList(1, expanded.size())) {
+            while ((node - 1) / 2 != path.get(path.size() - 1)) {
+                path.remove(path.size() - 1);
+            }
+            path.add(node);
+        }
+    }
+
+    @Test
+    void stopsAtMaxDepth() {
+        new DFS<>(new ForkJoinPool(4), getNeighbours, Function.identity(), node -> false, 1000L, 3).traverse(0);
+        assertEquals(7, expanded.size());
+    }
+
+    @Test
+    void searchShortCircuitsOtherBranches() {
+        int target = 2 * NODES / 3;
+        Optional<Integer> result = new DFS<>(new ForkJoinPool(4), getNeighbours, Function.identity(),
+                node -> node.getElement() == target, 1000L).search(0);
+        assertEquals(Optional.of(target), result);
+        assertTrue(expanded.size() < NODES, "expanded " + expanded.size());
+    }
+
+    @Test
+    void rejectsPlainExecutors() {
+        assertThrows(IllegalArgumentException.class, () -> new DFS<>(
+                ExecutorServiceFactory.createDefaultExecutorService(ExecutorServiceType.EXECUTOR_SERVICE),
+                getNeighbours, Function.identity(), node -> false, 1000L));
+    }
+}
@@ -0,0 +1,91 @@
+package org.ilot.crawler.algorithms.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LevelSynchronousBFSTest {
+    private static final int NODES = 511;
+    private static final int SLOW_NODE = 1;
+
+    private final List<Integer> started = new CopyOnWriteArrayList<>();
+    private final List<Integer> finished = new CopyOnWriteArrayList<>();
+
+    // binary tree, node 1 (first child of the root) answers much slower than the rest
+    private final BiFunction<Integer, Long, Set<Integer>> getNeighbours = (node, timeout) -> {
+        started.add(node);
+        try {
+            Thread.sleep(node == SLOW_NODE ? 500 : 2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Set<Integer> children = new HashSet<>();
+        for (int child = 2 * node + 1; child <= 2 * node + 2 && child < NODES; child++) {
+            children.add(child);
+        }
+        finished.add(node);
+        return children;
+    };
+
+    @Test
+    void strictLevelsExpandInOrder() {
+        new LevelSynchronousBFS<>(Executors.newFixedThreadPool(16), getNeighbours, Function.identity(), node -> false, 100L, 1000L)
+                .traverse(0);
+        assertEquals(NODES, started.size());
+        for (int i = 1; i < started.size(); i++) {
+            assertTrue(depth(started.get(i - 1)) <= depth(started.get(i)), "out of level order at " + i);
+        }
+    }
+
+    @Test
+    void relaxedLevelsDoNotWaitForStragglers() {
+        new LevelSynchronousBFS<>(Executors.newFixedThreadPool(16), getNeighbours, Function.identity(), node -> false, 100L, 1000L, 0.5d)
+                .traverse(0);
+        assertEquals(NODES, started.size());
+        int slowFinished = finished.indexOf(SLOW_NODE);
+        assertTrue(finished.subList(0, slowFinished).stream().anyMatch(node -> depth(node) > 2));
+    }
+
+    @Test
+    void relaxedLevelsAreNotSlowerOnASkewedGraph() {
+        long strict = timeSkewedTraversal(1d);
+        long relaxed = timeSkewedTraversal(0.5d);
+        // the children of the first straggler run alongside the second one instead of after it
+        assertTrue(relaxed + TimeUnit.MILLISECONDS.toNanos(150) < strict,
+                "relaxed " + TimeUnit.NANOSECONDS.toMillis(relaxed) + "ms, strict " + TimeUnit.NANOSECONDS.toMillis(strict) + "ms");
+    }
+
+    // The root has eight children. Node 1 takes 200ms and has four children of 300ms each, node 2 takes 600ms
+    // and has none. Strict levels take 600 + 300ms, relaxed ones can finish with node 2.
+    private static long timeSkewedTraversal(double levelFraction) {
+        BiFunction<Integer, Long, Set<Integer>> skewed = (node, timeout) -> {
+            try {
+                Thread.sleep(node == 1 ? 200 : node == 2 ? 600 : node >= 100 ? 300 : 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Set<Integer> children = new HashSet<>();
+            if (node == 0) for (int child = 1; child <= 8; child++) children.add(child);
+            if (node == 1) for (int child = 100; child < 104; child++) children.add(child);
+            return children;
+        };
+        long start = System.nanoTime();
+        new LevelSynchronousBFS<>(Executors.newFixedThreadPool(16), skewed, Function.identity(), node -> false, 5000L, 1000L, levelFraction)
+                .traverse(0);
+        return System.nanoTime() - start;
+    }
+
+    private static int depth(int node) {
+        return 31 - Integer.numberOfLeadingZeros(node + 1);
+    }
+}
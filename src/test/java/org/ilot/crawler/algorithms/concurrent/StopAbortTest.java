@@ -0,0 +1,130 @@
+package org.ilot.crawler.algorithms.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StopAbortTest {
+    private static final int CHAIN = 10;
+
+    private final ExecutorService executorService = Executors.newFixedThreadPool(8);
+    private final AtomicInteger fetched = new AtomicInteger();
+    private final AtomicInteger interrupted = new AtomicInteger();
+
+    @AfterEach
+    void shutdown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void executorIsReusedAcrossRuns() {
+        BiFunction<Integer, Long, Set<Integer>> chain = (node, timeout) -> {
+            fetched.incrementAndGet();
+            return node + 1 < CHAIN ? Collections.singleton(node + 1) : Collections.emptySet();
+        };
+        for (int run = 0; run < 3; run++) {
+            new UnorderedSearch<>(executorService, chain, Function.identity(), node -> false, 20L, 0L).traverse(0);
+            new BFS<>(executorService, chain, Function.identity(), node -> false, 20L, 0L).traverse(0);
+        }
+        assertFalse(executorService.isShutdown());
+        assertEquals(6 * CHAIN, fetched.get());
+    }
+
+    @Test
+    void foundResultInterruptsSlowFetches() {
+        // the root links to 1..8, node 8 links to the target while 1..7 take a minute
+        BiFunction<Integer, Long, Set<Integer>> getNeighbours = (node, timeout) -> {
+            Set<Integer> neighbours = new HashSet<>();
+            if (node == 0) {
+                for (int child = 1; child <= 8; child++) neighbours.add(child);
+            } else if (node == 8) {
+                neighbours.add(100);
+            } else {
+                sleep(60_000);
+            }
+            return neighbours;
+        };
+        Optional<Integer> result = assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                new UnorderedSearch<>(executorService, getNeighbours, Function.identity(),
+                        node -> node.getElement() == 100, 20L, 0L).search(0));
+        assertEquals(Optional.of(100), result);
+        // a slow node not started yet when the result came in is skipped instead of interrupted
+        assertTrue(interrupted.get() <= 7);
+    }
+
+    @Test
+    void stopDrainsAndContinueResumes() {
+        AtomicReference<AbstractGraphAlgorithm<Integer>> algorithm = new AtomicReference<>();
+        BiFunction<Integer, Long, Set<Integer>> chain = (node, timeout) -> {
+            fetched.incrementAndGet();
+            if (node == 3) algorithm.get().stop();
+            return node + 1 < CHAIN ? Collections.singleton(node + 1) : Collections.emptySet();
+        };
+        algorithm.set(new UnorderedSearch<>(executorService, chain, Function.identity(), node -> false, 20L, 0L));
+        algorithm.get().traverse(0);
+        // the fetch that called stop still hands its child to the frontier
+        assertEquals(4, fetched.get());
+        algorithm.get().continueTraversingFrom(Collections.emptyList());
+        assertEquals(CHAIN, fetched.getAndSet(0));
+
+        algorithm.set(new DFS<>(new ForkJoinPool(4), chain, Function.identity(), node -> false, 0L));
+        algorithm.get().traverse(0);
+        assertEquals(4, fetched.get());
+        algorithm.get().continueTraversingFrom(Collections.emptyList());
+        assertEquals(CHAIN, fetched.get());
+    }
+
+    @Test
+    void abortCancelsRunningFetches() {
+        BiFunction<Integer, Long, Set<Integer>> slow = (node, timeout) -> {
+            sleep(60_000);
+            return Collections.emptySet();
+        };
+        LevelSynchronousBFS<Integer> bfs = new LevelSynchronousBFS<>(executorService, slow, Function.identity(),
+                node -> false, 20L, 0L);
+        new Thread(() -> {
+            sleep(200);
+            bfs.abort();
+        }).start();
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> bfs.traverse(0));
+        assertEquals(1, interrupted.get());
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    void traverseIgnoresTheSearchPredicate() {
+        BiFunction<Integer, Long, Set<Integer>> chain = (node, timeout) -> {
+            fetched.incrementAndGet();
+            return node + 1 < CHAIN ? Collections.singleton(node + 1) : Collections.emptySet();
+        };
+        new BFS<>(executorService, chain, Function.identity(), node -> true, 20L, 0L).traverse(0);
+        assertEquals(CHAIN, fetched.get());
+        assertTrue(new BFS<>(executorService, chain, Function.identity(), node -> true, 20L, 0L).search(0).isPresent());
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            interrupted.incrementAndGet();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.ilot.crawler.algorithms.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class TerminationTest {
+    private final AtomicInteger fetched = new AtomicInteger();
+
+    @Test
+    void waitsForFetchesSlowerThanIsEmptyTimeout() {
+        // a chain where every fetch takes ten times the idle timeout
+        BiFunction<Integer, Long, Set<Integer>> slowChain = (node, timeout) -> {
+            sleep(200);
+            fetched.incrementAndGet();
+            return node < 3 ? Collections.singleton(node + 1) : Collections.emptySet();
+        };
+        new BFS<>(Executors.newFixedThreadPool(4), slowChain, Function.identity(), node -> false, 20L, 0L).traverse(0);
+        assertEquals(4, fetched.getAndSet(0));
+        new UnorderedSearch<>(Executors.newFixedThreadPool(4), slowChain, Function.identity(), node -> false, 20L, 0L).traverse(0);
+        assertEquals(4, fetched.getAndSet(0));
+        new AsyncSearch<Integer>(Executors.newFixedThreadPool(4),
+                (node, timeout) -> CompletableFuture.supplyAsync(() -> slowChain.apply(node, timeout)),
+                Function.identity(), node -> false, 20L, 0L, 8).traverse(0);
+        assertEquals(4, fetched.getAndSet(0));
+    }
+
+    @Test
+    void finishesAsSoonAsQuiescent() {
+        BiFunction<Integer, Long, Set<Integer>> tree = (node, timeout) -> {
+            fetched.incrementAndGet();
+            Set<Integer> children = new HashSet<>();
+            for (int child = 2 * node + 1; child <= 2 * node + 2 && child < 500; child++) {
+                children.add(child);
+            }
+            return children;
+        };
+        // an idle timeout of a minute would show up as a timeout here if it were still what ends the crawl
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            new UnorderedSearch<>(Executors.newFixedThreadPool(8), tree, Function.identity(), node -> false, 60_000L, 0L)
+                    .traverse(0);
+            new BFS<>(Executors.newFixedThreadPool(8), tree, Function.identity(), node -> false, 60_000L, 0L)
+                    .traverse(0);
+        });
+        assertEquals(1000, fetched.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
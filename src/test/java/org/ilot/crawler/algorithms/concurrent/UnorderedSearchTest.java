@@ -0,0 +1,68 @@
+package org.ilot.crawler.algorithms.concurrent;
+
+import org.ilot.crawler.algorithms.concurrent.frontier.FifoFrontier;
+import org.ilot.crawler.algorithms.visited.ConcurrentVisitedSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UnorderedSearchTest {
+    private static final int NODES = 1000;
+
+    private final AtomicInteger fetched = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger peakRunning = new AtomicInteger();
+
+    // binary tree over 0..NODES-1 with a millisecond of simulated latency per fetch
+    private final BiFunction<Integer, Long, Set<Integer>> getNeighbours = (node, timeout) -> {
+        peakRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Set<Integer> children = new HashSet<>();
+        for (int child = 2 * node + 1; child <= 2 * node + 2 && child < NODES; child++) {
+            children.add(child);
+        }
+        fetched.incrementAndGet();
+        running.decrementAndGet();
+        return children;
+    };
+
+    @Test
+    void waitPolicyKeepsInFlightTasksUnderHighWatermark() {
+        search(SaturationPolicy.WAIT).traverse(0);
+        assertEquals(NODES, fetched.get());
+        assertTrue(peakRunning.get() <= 16, "peak " + peakRunning.get());
+    }
+
+    @Test
+    void callerRunsPolicyVisitsEveryNode() {
+        search(SaturationPolicy.CALLER_RUNS).traverse(0);
+        assertEquals(NODES, fetched.get());
+    }
+
+    private UnorderedSearch<Integer> search(SaturationPolicy saturationPolicy) {
+        return new UnorderedSearch<>(
+                Executors.newFixedThreadPool(64),
+                getNeighbours,
+                Function.identity(),
+                node -> false,
+                500L,
+                1000L,
+                new ConcurrentVisitedSet<>(),
+                new FifoFrontier<>(),
+                16,
+                8,
+                saturationPolicy);
+    }
+}
@@ -0,0 +1,92 @@
+package org.ilot.crawler.algorithms.concurrent.frontier;
+
+import org.ilot.crawler.algorithms.concurrent.Node;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HostPartitionedFrontierTest {
+
+    @Test
+    void limitsConcurrencyPerHost() {
+        HostPartitionedFrontier<String> frontier = new HostPartitionedFrontier<>(e -> e.charAt(0), 1, 0, TimeUnit.MILLISECONDS);
+        frontier.add(Node.of("a1"));
+        frontier.add(Node.of("a2"));
+        frontier.add(Node.of("b1"));
+
+        Node<String> first = frontier.poll();
+        Node<String> second = frontier.poll();
+        assertEquals("a1", first.getElement());
+        assertEquals("b1", second.getElement());
+        assertNull(frontier.poll());
+        assertFalse(frontier.isEmpty());
+
+        frontier.done(first);
+        assertEquals("a2", frontier.poll().getElement());
+        assertTrue(frontier.isEmpty());
+        assertEquals(2, frontier.hostCount());
+    }
+
+    @Test
+    void delaysConsecutiveFetchesFromOneHost() {
+        HostPartitionedFrontier<String> frontier = new HostPartitionedFrontier<>(e -> e.charAt(0), 2, 200, TimeUnit.MILLISECONDS);
+        frontier.add(Node.of("a1"));
+        frontier.add(Node.of("a2"));
+
+        long start = System.nanoTime();
+        assertNotNull(frontier.poll());
+        Node<String> next = null;
+        while (next == null) {
+            next = frontier.poll();
+        }
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals("a2", next.getElement());
+    }
+
+    @Test
+    void waitsForAReleasedHostInsteadOfSpinning() throws InterruptedException {
+        HostPartitionedFrontier<String> frontier = new HostPartitionedFrontier<>(e -> e.charAt(0), 1, 0, TimeUnit.MILLISECONDS);
+        frontier.add(Node.of("a1"));
+        frontier.add(Node.of("a2"));
+        Node<String> first = frontier.poll();
+        Thread worker = new Thread(() -> {
+            sleep(10);
+            frontier.done(first);
+        });
+        worker.start();
+        // one poll blocks until the worker frees the host's only slot
+        assertEquals("a2", frontier.poll().getElement());
+        worker.join();
+    }
+
+    @Test
+    void dropsHostsThatWentIdle() {
+        HostPartitionedFrontier<String> frontier = new HostPartitionedFrontier<>(e -> e.charAt(0), 1, 0, TimeUnit.MILLISECONDS);
+        frontier.add(Node.of("a1"));
+        frontier.add(Node.of("b1"));
+        frontier.done(frontier.poll());
+        frontier.done(frontier.poll());
+        assertEquals(2, frontier.hostCount());
+
+        sleep(60);
+        assertNull(frontier.poll());
+        assertEquals(0, frontier.hostCount());
+        frontier.add(Node.of("a2"));
+        assertEquals("a2", frontier.poll().getElement());
+        assertEquals(1, frontier.hostCount());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
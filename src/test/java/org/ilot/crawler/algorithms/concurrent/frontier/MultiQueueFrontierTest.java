@@ -0,0 +1,83 @@
+package org.ilot.crawler.algorithms.concurrent.frontier;
+
+import org.ilot.crawler.algorithms.concurrent.Node;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MultiQueueFrontierTest {
+
+    @Test
+    void singleQueuePollsInScoreOrder() {
+        MultiQueueFrontier<String> frontier = new MultiQueueFrontier<>(Scorer.shallowFirst(), 1);
+        frontier.add(Node.of("c", 3));
+        frontier.add(Node.of("a", 1));
+        frontier.add(Node.of("b", 2));
+        assertEquals("a", frontier.poll().getElement());
+        assertEquals("b", frontier.poll().getElement());
+        assertEquals("c", frontier.poll().getElement());
+        assertNull(frontier.poll());
+    }
+
+    @Test
+    void newInlinksPromoteQueuedElements() {
+        MultiQueueFrontier<String> frontier = new MultiQueueFrontier<>(Scorer.mostInlinks(), 1);
+        frontier.add(Node.of("popular", 1));
+        frontier.add(Node.of("hub", 1));
+        frontier.add(Node.of("hub", 1));
+        frontier.add(Node.of("popular", 2));
+        frontier.add(Node.of("popular", 2));
+        assertEquals(2, frontier.size());
+        assertEquals("popular", frontier.poll().getElement());
+        assertEquals("hub", frontier.poll().getElement());
+        // the stale entries of both elements are skipped
+        assertNull(frontier.poll());
+        assertTrue(frontier.isEmpty());
+    }
+
+    @Test
+    void concurrentConsumersHandOutEveryElementOnce() throws InterruptedException {
+        int elements = 20_000;
+        int threads = 8;
+        MultiQueueFrontier<Integer> frontier = new MultiQueueFrontier<>(Scorer.mostInlinks(), 2 * threads);
+        ExecutorService producers = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int offset = t * elements / threads;
+            // every producer adds every element, all but the first add of an element are inlinks
+            producers.execute(() -> {
+                for (int i = 0; i < elements; i++) {
+                    frontier.add(Node.of((i + offset) % elements));
+                }
+            });
+        }
+        producers.shutdown();
+        assertTrue(producers.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(elements, frontier.size());
+
+        Set<Integer> polled = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        ExecutorService consumers = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            consumers.execute(() -> {
+                while (!frontier.isEmpty()) {
+                    Node<Integer> node = frontier.poll();
+                    if (node != null && !polled.add(node.getElement())) duplicates.incrementAndGet();
+                }
+            });
+        }
+        consumers.shutdown();
+        assertTrue(consumers.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(elements, polled.size());
+        assertEquals(0, duplicates.get());
+        assertNull(frontier.poll());
+    }
+}
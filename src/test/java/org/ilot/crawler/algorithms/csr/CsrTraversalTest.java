@@ -0,0 +1,88 @@
+package org.ilot.crawler.algorithms.csr;
+
+import org.ilot.crawler.benchmark.SyntheticGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CsrTraversalTest {
+    private static final int NODES = 20_000;
+
+    private final SyntheticGraph powerLaw = SyntheticGraph.powerLaw(NODES, 4, 42);
+    private final CsrGraph<Integer> graph = CsrGraph.fromNeighbours(0, powerLaw.getNeighbours());
+
+    @Test
+    void builderKeepsEveryEdgeAndTransposes() {
+        assertEquals(NODES, graph.vertexCount());
+        long edges = 0;
+        for (int node = 0; node < NODES; node++) {
+            int id = graph.idOf(node);
+            assertEquals(powerLaw.neighbours(node).size(), graph.degree(id));
+            edges += graph.degree(id);
+        }
+        assertEquals(edges, graph.edgeCount());
+        assertEquals(edges, graph.transpose().edgeCount());
+        assertSame(graph, graph.transpose().transpose());
+    }
+
+    @Test
+    void parallelBfsAgreesWithSequentialDepths() {
+        CsrBFS<Integer> sequential = CsrBFS.createTraversing(graph);
+        // a small pool still splits the bottom-up levels into many tasks
+        ParallelCsrBFS<Integer> parallel = ParallelCsrBFS.createTraversing(graph, new ForkJoinPool(4));
+        sequential.traverse(0);
+        parallel.traverse(0);
+        assertEquals(NODES, sequential.visitedCount());
+        assertEquals(NODES, parallel.visitedCount());
+        for (int node = 0; node < NODES; node++) {
+            assertEquals(sequential.depthOf(node), parallel.depthOf(node), "depth of " + node);
+        }
+    }
+
+    @Test
+    void dfsVisitsInPreOrder() {
+        SyntheticGraph tree = SyntheticGraph.tree(3, 5);
+        CsrGraph<Integer> treeGraph = CsrGraph.fromNeighbours(0, tree.getNeighbours());
+        List<Integer> order = new ArrayList<>();
+        CsrDFS.createTraversing(treeGraph, vertex -> order.add(treeGraph.elementOf(vertex))).traverse(0);
+        assertEquals(tree.size(), order.size());
+        // every vertex after the root is a child of a vertex on the current root path
+        List<Integer> path = new ArrayList<>(Arrays.asList(order.get(0)));
+        for (Integer vertex : order.subList(1, order.size())) {
+            while (!tree.neighbours(path.get(path.size() - 1)).contains(vertex)) {
+                path.remove(path.size() - 1);
+            }
+            path.add(vertex);
+        }
+    }
+
+    @Test
+    void searchesStopAtTheTarget() {
+        int target = NODES - 1;
+        assertEquals(Optional.of(target), CsrBFS.createSearching(graph, node -> node == target).search(0));
+        assertEquals(Optional.of(target), CsrDFS.createSearching(graph, node -> node == target).search(0));
+        assertEquals(Optional.of(target), ParallelCsrBFS.createSearching(graph, node -> node == target).search(0));
+        assertFalse(CsrBFS.createSearching(graph, node -> node < 0).search(0).isPresent());
+    }
+
+    @Test
+    void continueSkipsVisitedVertices() {
+        SyntheticGraph chain = SyntheticGraph.chain(100);
+        CsrGraph<Integer> chainGraph = CsrGraph.fromNeighbours(0, chain.getNeighbours());
+        ParallelCsrBFS<Integer> bfs = ParallelCsrBFS.createTraversing(chainGraph);
+        bfs.continueTraversingFrom(Arrays.asList(50));
+        assertEquals(50, bfs.visitedCount());
+        bfs.traverse(0);
+        assertEquals(100, bfs.visitedCount());
+        assertEquals(49, bfs.depthOf(49));
+        assertEquals(49, bfs.depthOf(99));
+    }
+}
@@ -0,0 +1,84 @@
+package org.ilot.crawler.algorithms.visited;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FingerprintVisitedSetTest {
+
+    @Test
+    void addsEachElementOnceAcrossResizes() {
+        FingerprintVisitedSet<String> visited = FingerprintVisitedSet.forStrings(16);
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(visited.add("http://example.com/" + i));
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertFalse(visited.add("http://example.com/" + i));
+            assertTrue(visited.contains("http://example.com/" + i));
+        }
+        assertFalse(visited.contains("http://example.com/missing"));
+        assertEquals(100_000, visited.size());
+        assertTrue(visited.memoryUsage() >= 100_000 * Long.BYTES);
+    }
+
+    @Test
+    void offHeapWithBloomFilterAgreesWithTable() {
+        FingerprintVisitedSet<String> visited = FingerprintVisitedSet.createWithBloomFilter(Fingerprints::of, 10_000, true, 0.01);
+        for (int i = 0; i < 20_000; i++) {
+            visited.add("http://example.com/" + i);
+        }
+        for (int i = 0; i < 20_000; i++) {
+            assertTrue(visited.contains("http://example.com/" + i));
+            assertFalse(visited.contains("http://example.org/" + i));
+        }
+        assertTrue(visited.falsePositiveRate() < 1e-12);
+        assertTrue(visited.bloomFilterFalsePositiveRate() > 0d);
+    }
+
+    @Test
+    void releasingAPartitionKeepsEveryOtherElement() {
+        FingerprintVisitedSet<String> visited = FingerprintVisitedSet.forStrings(16);
+        FingerprintVisitedSet<String> first = visited.partition(1);
+        FingerprintVisitedSet<String> second = visited.partition(2);
+        for (int i = 0; i < 50_000; i++) {
+            visited.add("http://example.com/" + i);
+            assertTrue(first.add("http://example.org/" + i));
+            assertTrue(second.add("http://example.org/" + i));
+        }
+        first.release();
+        assertEquals(100_000, visited.size());
+        for (int i = 0; i < 50_000; i++) {
+            assertTrue(visited.contains("http://example.com/" + i));
+            assertTrue(second.contains("http://example.org/" + i));
+            assertFalse(first.contains("http://example.org/" + i));
+        }
+        // a late add is taken out again
+        assertTrue(first.add("http://example.org/late"));
+        assertEquals(100_000, visited.size());
+    }
+
+    @Test
+    void concurrentAddsAreAtomic() throws InterruptedException {
+        FingerprintVisitedSet<String> visited = FingerprintVisitedSet.forStrings(1_000);
+        AtomicInteger added = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        for (int thread = 0; thread < 8; thread++) {
+            executorService.execute(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    if (visited.add("http://example.com/" + i)) added.incrementAndGet();
+                }
+            });
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(50_000, added.get());
+        assertEquals(50_000, visited.size());
+    }
+}
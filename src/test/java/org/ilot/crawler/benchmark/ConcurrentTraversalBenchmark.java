@@ -0,0 +1,108 @@
+package org.ilot.crawler.benchmark;
+
+import org.ilot.crawler.algorithms.concurrent.AbstractGraphAlgorithm;
+import org.ilot.crawler.algorithms.concurrent.BFS;
+import org.ilot.crawler.algorithms.concurrent.BestFirstSearch;
+import org.ilot.crawler.algorithms.concurrent.DFS;
+import org.ilot.crawler.algorithms.concurrent.ExecutorServiceFactory;
+import org.ilot.crawler.algorithms.concurrent.ExecutorServiceType;
+import org.ilot.crawler.algorithms.concurrent.UnorderedSearch;
+import org.ilot.crawler.algorithms.concurrent.frontier.Scorer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+// Scaling across pool sizes with and without simulated fetch latency, e.g.
+// mvn -Pbenchmark verify -Djmh.args="ConcurrentTraversalBenchmark -p shape=POWER_LAW -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ConcurrentTraversalBenchmark {
+    private static final long IS_EMPTY_TIMEOUT_MILLIS = 20L;
+
+    @Param({"BFS", "UNORDERED_SEARCH", "DFS", "BEST_FIRST"})
+    private String algorithm;
+
+    @Param({"WIDE_TREE", "POWER_LAW", "DEEP_CHAIN"})
+    private SyntheticGraph.Shape shape;
+
+    @Param({"1", "4", "16", "64"})
+    private int threads;
+
+    @Param({"0", "200"})
+    private long latencyMicros;
+
+    private BiFunction<Integer, Long, Set<Integer>> getNeighbours;
+    // reused by every traversal of the trial, as a long running crawler would
+    private ExecutorService executorService;
+
+    @Setup
+    public void setUp() {
+        getNeighbours = shape.create().getNeighbours(latencyMicros, TimeUnit.MICROSECONDS);
+        executorService = ExecutorServiceFactory.createCustomExecutorService(
+                "DFS".equals(algorithm) ? ExecutorServiceType.FORK_JOIN_POOL : ExecutorServiceType.EXECUTOR_SERVICE, threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Benchmark
+    public void traverse(NodeCounter counter) {
+        AbstractGraphAlgorithm<Integer> graphAlgorithm;
+        switch (algorithm) {
+            case "BFS":
+                graphAlgorithm = new BFS<>(executorService, getNeighbours,
+                        Function.identity(), node -> false, IS_EMPTY_TIMEOUT_MILLIS, 0L);
+                break;
+            case "DFS":
+                graphAlgorithm = new DFS<>(executorService, getNeighbours,
+                        Function.identity(), node -> false, 0L);
+                break;
+            case "BEST_FIRST":
+                graphAlgorithm = new BestFirstSearch<>(executorService, getNeighbours,
+                        Function.identity(), node -> false, IS_EMPTY_TIMEOUT_MILLIS, 0L, Scorer.mostInlinks());
+                break;
+            default:
+                graphAlgorithm = new UnorderedSearch<>(executorService, getNeighbours,
+                        Function.identity(), node -> false, IS_EMPTY_TIMEOUT_MILLIS, 0L);
+        }
+        graphAlgorithm.addListener((node, neighbours) -> counter.expanded.incrementAndGet());
+        graphAlgorithm.traverse(0);
+        counter.nodes += counter.expanded.getAndSet(0);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class NodeCounter {
+        private final AtomicLong expanded = new AtomicLong();
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+}
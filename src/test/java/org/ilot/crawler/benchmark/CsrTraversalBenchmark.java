@@ -0,0 +1,66 @@
+package org.ilot.crawler.benchmark;
+
+import org.ilot.crawler.algorithms.GraphAlgorithm;
+import org.ilot.crawler.algorithms.csr.CsrBFS;
+import org.ilot.crawler.algorithms.csr.CsrDFS;
+import org.ilot.crawler.algorithms.csr.CsrGraph;
+import org.ilot.crawler.algorithms.csr.ParallelCsrBFS;
+import org.ilot.crawler.algorithms.sequential.BFS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// one full traversal of an in-memory power-law graph, the CSR conversion happens once in setUp
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CsrTraversalBenchmark {
+
+    @Param({"SEQUENTIAL_BFS", "CSR_BFS", "CSR_DFS", "PARALLEL_CSR_BFS"})
+    private String algorithm;
+
+    @Param({"1000000"})
+    private int nodes;
+
+    private SyntheticGraph graph;
+    private CsrGraph<Integer> csrGraph;
+
+    @Setup
+    public void setUp() {
+        graph = SyntheticGraph.powerLaw(nodes, 8, 42);
+        csrGraph = CsrGraph.fromNeighbours(0, graph.getNeighbours());
+        csrGraph.transpose();
+    }
+
+    @Benchmark
+    public void traverse() {
+        GraphAlgorithm<Integer> graphAlgorithm;
+        switch (algorithm) {
+            case "SEQUENTIAL_BFS":
+                graphAlgorithm = BFS.createTraversing(graph.getNeighbours());
+                break;
+            case "CSR_BFS":
+                graphAlgorithm = CsrBFS.createTraversing(csrGraph);
+                break;
+            case "CSR_DFS":
+                graphAlgorithm = CsrDFS.createTraversing(csrGraph);
+                break;
+            default:
+                graphAlgorithm = ParallelCsrBFS.createTraversing(csrGraph);
+        }
+        graphAlgorithm.traverse(0);
+    }
+}
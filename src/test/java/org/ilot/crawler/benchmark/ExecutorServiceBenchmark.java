@@ -0,0 +1,127 @@
+package org.ilot.crawler.benchmark;
+
+import org.ilot.crawler.algorithms.concurrent.ExecutorServiceFactory;
+import org.ilot.crawler.algorithms.concurrent.ExecutorServiceType;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+// Run with -prof gc, the benchmark profile's default, for the allocation rate and heap churn of each pool.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ExecutorServiceBenchmark {
+
+    @Param({"EXECUTOR_SERVICE", "FORK_JOIN_POOL"})
+    private ExecutorServiceType executorServiceType;
+
+    @Param({"200"})
+    private int concurrency;
+
+    @Param({"50"})
+    private long latencyMillis;
+
+    private SyntheticGraph graph;
+    private BiFunction<Integer, Long, Set<Integer>> getNeighbours;
+
+    @Setup
+    public void setUp() {
+        graph = SyntheticGraph.tree(10, 3);
+        getNeighbours = graph.getNeighbours(latencyMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // one dispatcher hands every node of the tree to the pool, the same shape as the crawler's dispatch loop
+    // but without the algorithm's own waits, so only the executors differ
+    @Benchmark
+    public void dispatch(FootprintCounters counters) throws InterruptedException {
+        ExecutorService executorService = ExecutorServiceFactory.createCustomExecutorService(executorServiceType, concurrency);
+        BlockingQueue<Integer> discovered = new LinkedBlockingQueue<>();
+        discovered.add(0);
+        for (int dispatched = 0; dispatched < graph.size(); dispatched++) {
+            Integer node = discovered.take();
+            executorService.execute(() -> discovered.addAll(getNeighbours.apply(node, 0L)));
+        }
+        // every node is dispatched and the pool's threads are still up
+        counters.sample();
+        executorService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.MINUTES);
+        counters.record(graph.size());
+    }
+
+    // Thread stacks live outside the heap, so the resident set is sampled next to the used heap; both are
+    // the largest seen in the iteration, in KiB. rssKib stays -1 where /proc/self/status cannot be read.
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class FootprintCounters {
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        public long peakThreads;
+        public long heapUsedKib;
+        public long rssKib;
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            threads.resetPeakThreadCount();
+            peakThreads = 0;
+            heapUsedKib = 0;
+            rssKib = -1;
+            nodes = 0;
+        }
+
+        @Setup(Level.Invocation)
+        public void resetPeak() {
+            threads.resetPeakThreadCount();
+        }
+
+        void sample() {
+            heapUsedKib = Math.max(heapUsedKib, memory.getHeapMemoryUsage().getUsed() / 1024);
+            rssKib = Math.max(rssKib, residentSetKib());
+        }
+
+        void record(int visitedNodes) {
+            peakThreads = Math.max(peakThreads, threads.getPeakThreadCount());
+            nodes += visitedNodes;
+        }
+
+        private static long residentSetKib() {
+            try {
+                for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                    // VmRSS:     123456 kB
+                    if (line.startsWith("VmRSS:")) {
+                        return Long.parseLong(line.substring("VmRSS:".length(), line.length() - "kB".length()).trim());
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // not Linux
+            }
+            return -1;
+        }
+    }
+}
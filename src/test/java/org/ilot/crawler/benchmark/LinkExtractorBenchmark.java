@@ -0,0 +1,73 @@
+package org.ilot.crawler.benchmark;
+
+import org.ilot.crawler.impl.extract.JsoupLinkExtractor;
+import org.ilot.crawler.impl.extract.LinkExtractor;
+import org.ilot.crawler.impl.extract.StreamingLinkExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// runs over the bundled pages in src/test/resources/corpus, point -Dcorpus.dir at a directory of saved pages to use another set
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class LinkExtractorBenchmark {
+
+    @Param({"STREAMING", "JSOUP"})
+    private String extractor;
+
+    private LinkExtractor linkExtractor;
+    private List<byte[]> pages;
+
+    @Setup
+    public void setUp() throws IOException, URISyntaxException {
+        linkExtractor = "JSOUP".equals(extractor) ? new JsoupLinkExtractor() : new StreamingLinkExtractor();
+        String corpusDir = System.getProperty("corpus.dir");
+        Path corpus = corpusDir != null
+                ? Paths.get(corpusDir)
+                : Paths.get(LinkExtractorBenchmark.class.getResource("/corpus").toURI());
+        try (Stream<Path> files = Files.list(corpus)) {
+            pages = files.filter(Files::isRegularFile).sorted().map(LinkExtractorBenchmark::read).collect(Collectors.toList());
+        }
+    }
+
+    // one operation extracts the links of every page in the corpus
+    @Benchmark
+    public void extract(Blackhole blackhole) throws IOException {
+        for (byte[] page : pages) {
+            blackhole.consume(linkExtractor.extract(new ByteArrayInputStream(page), StandardCharsets.UTF_8, "https://www.example.com/section/page.html"));
+        }
+    }
+
+    private static byte[] read(Path file) {
+        try {
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
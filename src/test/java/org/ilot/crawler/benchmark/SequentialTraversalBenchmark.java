@@ -0,0 +1,72 @@
+package org.ilot.crawler.benchmark;
+
+import org.ilot.crawler.algorithms.GraphAlgorithm;
+import org.ilot.crawler.algorithms.sequential.BFS;
+import org.ilot.crawler.algorithms.sequential.DFS;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+// nodes is reported per second next to the traversals per second, run with -prof gc for the allocation rate
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SequentialTraversalBenchmark {
+
+    @Param({"BFS", "DFS"})
+    private String algorithm;
+
+    @Param({"WIDE_TREE", "POWER_LAW", "DEEP_CHAIN"})
+    private SyntheticGraph.Shape shape;
+
+    @Param({"0"})
+    private long latencyMicros;
+
+    private BiFunction<Integer, Long, Set<Integer>> getNeighbours;
+
+    @Setup
+    public void setUp() {
+        getNeighbours = shape.create().getNeighbours(latencyMicros, TimeUnit.MICROSECONDS);
+    }
+
+    @Benchmark
+    public void traverse(NodeCounter counter) {
+        Function<Integer, Set<Integer>> counted = node -> {
+            counter.nodes++;
+            return getNeighbours.apply(node, 0L);
+        };
+        GraphAlgorithm<Integer> graphAlgorithm = "DFS".equals(algorithm)
+                ? DFS.createTraversing(counted)
+                : BFS.createTraversing(counted);
+        graphAlgorithm.traverse(0);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class NodeCounter {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.ilot.crawler.benchmark;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+// in-memory site graph over int ids, root is always 0
+public class SyntheticGraph {
+    public enum Shape {
+        WIDE_TREE {
+            @Override
+            public SyntheticGraph create() {
+                return tree(16, 3);
+            }
+        },
+        POWER_LAW {
+            @Override
+            public SyntheticGraph create() {
+                return powerLaw(5000, 3, 42L);
+            }
+        },
+        DEEP_CHAIN {
+            @Override
+            public SyntheticGraph create() {
+                return chain(5000);
+            }
+        };
+
+        public abstract SyntheticGraph create();
+    }
+
+    private final int[][] adjacency;
+
+    private SyntheticGraph(int[][] adjacency) {
+        this.adjacency = adjacency;
+    }
+
+    public static SyntheticGraph tree(int branching, int depth) {
+        int nodes = 1;
+        for (int level = 0, width = 1; level < depth; level++) {
+            width *= branching;
+            nodes += width;
+        }
+        int[][] adjacency = new int[nodes][];
+        for (int node = 0; node < nodes; node++) {
+            int firstChild = node * branching + 1;
+            int children = Math.max(0, Math.min(branching, nodes - firstChild));
+            adjacency[node] = new int[children];
+            for (int i = 0; i < children; i++) {
+                adjacency[node][i] = firstChild + i;
+            }
+        }
+        return new SyntheticGraph(adjacency);
+    }
+
+    public static SyntheticGraph chain(int length) {
+        int[][] adjacency = new int[length][];
+        for (int node = 0; node < length; node++) {
+            adjacency[node] = node + 1 < length ? new int[]{node + 1} : new int[0];
+        }
+        return new SyntheticGraph(adjacency);
+    }
+
+    // preferential attachment: every new page links to edgesPerNode earlier pages picked by degree
+    // and is linked back from them, giving the few hubs and long tail of a site graph
+    public static SyntheticGraph powerLaw(int nodes, int edgesPerNode, long seed) {
+        Random random = new Random(seed);
+        int[][] adjacency = new int[nodes][0];
+        int[] degrees = new int[nodes];
+        int[] endpoints = new int[nodes * edgesPerNode * 2];
+        int endpointCount = 0;
+        for (int node = 1; node < nodes; node++) {
+            int links = Math.min(edgesPerNode, node);
+            for (int i = 0; i < links; i++) {
+                int target = endpointCount == 0 ? 0 : endpoints[random.nextInt(endpointCount)];
+                if (contains(adjacency[node], degrees[node], target)) continue;
+                adjacency[node] = append(adjacency[node], degrees[node]++, target);
+                adjacency[target] = append(adjacency[target], degrees[target]++, node);
+                endpoints[endpointCount++] = node;
+                endpoints[endpointCount++] = target;
+            }
+        }
+        for (int node = 0; node < nodes; node++) {
+            adjacency[node] = Arrays.copyOf(adjacency[node], degrees[node]);
+        }
+        return new SyntheticGraph(adjacency);
+    }
+
+    private static boolean contains(int[] targets, int size, int target) {
+        for (int i = 0; i < size; i++) {
+            if (targets[i] == target) return true;
+        }
+        return false;
+    }
+
+    private static int[] append(int[] targets, int size, int target) {
+        if (size == targets.length) targets = Arrays.copyOf(targets, Math.max(4, size * 2));
+        targets[size] = target;
+        return targets;
+    }
+
+    public int size() {
+        return adjacency.length;
+    }
+
+    public Set<Integer> neighbours(Integer node) {
+        int[] targets = adjacency[node];
+        Set<Integer> neighbours = new HashSet<>(targets.length * 2);
+        for (int target : targets) {
+            neighbours.add(target);
+        }
+        return neighbours;
+    }
+
+    public Function<Integer, Set<Integer>> getNeighbours() {
+        return this::neighbours;
+    }
+
+    // simulates the round trip of a fetch by sleeping before answering
+    public BiFunction<Integer, Long, Set<Integer>> getNeighbours(long latency, TimeUnit unit) {
+        return (node, timeout) -> {
+            if (latency > 0) {
+                try {
+                    unit.sleep(latency);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return neighbours(node);
+        };
+    }
+}
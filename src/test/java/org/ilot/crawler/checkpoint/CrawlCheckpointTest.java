@@ -0,0 +1,149 @@
+package org.ilot.crawler.checkpoint;
+
+import org.ilot.crawler.algorithms.concurrent.LevelSynchronousBFS;
+import org.ilot.crawler.algorithms.concurrent.Node;
+import org.ilot.crawler.algorithms.concurrent.frontier.FifoFrontier;
+import org.ilot.crawler.algorithms.concurrent.frontier.Frontier;
+import org.ilot.crawler.algorithms.visited.ConcurrentVisitedSet;
+import org.ilot.crawler.algorithms.visited.VisitedSet;
+import org.ilot.crawler.storage.AppendLog;
+import org.ilot.crawler.storage.Codec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrawlCheckpointTest {
+    private static final int NODES = 511;
+    private static final Codec<Integer> INT_CODEC = new Codec<Integer>() {
+        @Override
+        public byte[] encode(Integer value) {
+            return ByteBuffer.allocate(Integer.BYTES).putInt(value).array();
+        }
+
+        @Override
+        public Integer decode(byte[] bytes) {
+            return ByteBuffer.wrap(bytes).getInt();
+        }
+    };
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void resumesWithoutRefetchingCompletedNodes() throws IOException {
+        Map<Integer, AtomicInteger> firstRun = new ConcurrentHashMap<>();
+        try (CrawlCheckpoint<Integer> checkpoint = new CrawlCheckpoint<>(directory, INT_CODEC, 10, TimeUnit.MILLISECONDS)) {
+            LevelSynchronousBFS<Integer> bfs = bfs(neighbours(firstRun), node -> node.getElement() == 300,
+                    new ConcurrentVisitedSet<>(), checkpoint);
+            bfs.search(0);
+        }
+        assertTrue(firstRun.size() < NODES);
+
+        Map<Integer, AtomicInteger> secondRun = new ConcurrentHashMap<>();
+        try (CrawlCheckpoint<Integer> checkpoint = new CrawlCheckpoint<>(directory, INT_CODEC, 10, TimeUnit.MILLISECONDS)) {
+            VisitedSet<Integer> visited = new ConcurrentVisitedSet<>();
+            List<Node<Integer>> pending = checkpoint.restore(visited);
+            assertFalse(pending.isEmpty());
+            for (Node<Integer> node : pending) {
+                // node n of the tree is discovered at depth log2(n + 1)
+                assertEquals(31 - Integer.numberOfLeadingZeros(node.getElement() + 1), node.getLevel());
+                assertTrue(visited.contains(node.getElement()));
+            }
+            bfs(neighbours(secondRun), node -> false, visited, checkpoint).resumeTraversing(pending);
+        }
+
+        Set<Integer> all = new HashSet<>(firstRun.keySet());
+        all.addAll(secondRun.keySet());
+        assertEquals(NODES, all.size());
+        secondRun.forEach((node, fetches) -> assertEquals(1, fetches.get(), "node " + node));
+        // only nodes the first run fetched but never finished expanding may be fetched again
+        Set<Integer> refetched = new HashSet<>(secondRun.keySet());
+        refetched.retainAll(firstRun.keySet());
+        assertTrue(refetched.size() < 32, "refetched " + refetched.size());
+    }
+
+    @Test
+    void neverRecordsANodeCompletedBeforeItsChildren() throws Exception {
+        int nodes = 200_000;
+        try (CrawlCheckpoint<Integer> checkpoint = new CrawlCheckpoint<>(directory, INT_CODEC, 1, TimeUnit.HOURS)) {
+            Frontier<Integer> frontier = checkpoint.journal(new FifoFrontier<>());
+            // expands the way a worker does: children into the frontier, then the node is reported expanded
+            Thread worker = new Thread(() -> {
+                for (int node = 0; node < nodes; node++) {
+                    Set<Integer> children = Set.of(2 * node + 1, 2 * node + 2);
+                    children.forEach(child -> frontier.add(Node.of(child)));
+                    checkpoint.expanded(Node.of(node), children);
+                }
+            });
+            worker.start();
+            int checkpoints = 0;
+            while (worker.isAlive() || checkpoints == 0) {
+                checkpoint.checkpoint();
+                checkpoints++;
+                Set<Integer> discovered = new HashSet<>();
+                read("discovered", discovered::add);
+                read("completed", node -> {
+                    assertTrue(discovered.contains(2 * node + 1) && discovered.contains(2 * node + 2),
+                            "node " + node + " completed without its children");
+                });
+            }
+            worker.join();
+        }
+    }
+
+    private void read(String log, Consumer<Integer> consumer) throws IOException {
+        Properties state = new Properties();
+        try (InputStream in = Files.newInputStream(directory.resolve("checkpoint.properties"))) {
+            state.load(in);
+        }
+        long length = Long.parseLong(state.getProperty(log + ".length"));
+        // a discovered record leads with the node's level
+        int offset = log.equals("discovered") ? Integer.BYTES : 0;
+        AppendLog.read(directory.resolve(log + ".log"), length,
+                record -> consumer.accept(INT_CODEC.decode(Arrays.copyOfRange(record, offset, record.length))));
+    }
+
+    private static LevelSynchronousBFS<Integer> bfs(BiFunction<Integer, Long, Set<Integer>> getNeighbours,
+                                                    Predicate<Node<Integer>> searchPredicate,
+                                                    VisitedSet<Integer> visited,
+                                                    CrawlCheckpoint<Integer> checkpoint) {
+        LevelSynchronousBFS<Integer> bfs = new LevelSynchronousBFS<>(Executors.newFixedThreadPool(8), getNeighbours,
+                Function.identity(), searchPredicate, 100L, 1000L, 1d, visited, checkpoint.journal(new FifoFrontier<>()));
+        bfs.addListener(checkpoint);
+        return bfs;
+    }
+
+    private static BiFunction<Integer, Long, Set<Integer>> neighbours(Map<Integer, AtomicInteger> fetched) {
+        return (node, timeout) -> {
+            fetched.computeIfAbsent(node, n -> new AtomicInteger()).incrementAndGet();
+            Set<Integer> children = new HashSet<>();
+            for (int child = 2 * node + 1; child <= 2 * node + 2 && child < NODES; child++) {
+                children.add(child);
+            }
+            return children;
+        };
+    }
+}
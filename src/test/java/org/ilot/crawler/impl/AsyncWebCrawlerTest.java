@@ -0,0 +1,277 @@
+package org.ilot.crawler.impl;
+
+import com.sun.net.httpserver.HttpServer;
+import org.ilot.crawler.CrawlResult;
+import org.ilot.crawler.impl.dedup.NearDuplicateIndex;
+import org.ilot.crawler.impl.url.CompactUrl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncWebCrawlerTest {
+    private static final int PAGES = 200;
+    private static final int COPIES = 31;
+
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> copies = new ConcurrentHashMap<>();
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        // page i links to its children 2i+1, 2i+2 and back to the root
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            hits.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+            int page = path.equals("/") ? 0 : Integer.parseInt(path.substring(1));
+            StringBuilder html = new StringBuilder("<html><body><a href=\"/\">root</a>");
+            for (int child = 2 * page + 1; child <= 2 * page + 2 && child < PAGES; child++) {
+                html.append("<a href=\"/").append(child).append("\">").append(child).append("</a>");
+            }
+            byte[] body = html.append("</body></html>").toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        // the same article under every path, each copy linking to two more
+        server.createContext("/copies/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            copies.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+            int page = path.equals("/copies/") ? 0 : Integer.parseInt(path.substring("/copies/".length()));
+            StringBuilder html = new StringBuilder("<html><body><p>");
+            for (int word = 0; word < 64; word++) {
+                html.append("word").append(word).append(' ');
+            }
+            html.append("</p>");
+            for (int child = 2 * page + 1; child <= 2 * page + 2 && child < COPIES; child++) {
+                html.append("<a href=\"/copies/").append(child).append("\">next</a>");
+            }
+            byte[] body = html.append("</body></html>").toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void fetchesEveryPageExactlyOnce() throws IOException {
+        try (WebCrawler crawler = WebCrawler.createAsync(32, 8)) {
+            crawler.crawl("http://localhost:" + server.getAddress().getPort() + "/");
+        }
+        assertEquals(PAGES, hits.size());
+        hits.values().forEach(count -> assertEquals(1, count.get()));
+    }
+
+    @Test
+    void crawlsManySeedsOnOneEngine() throws Exception {
+        String root = "http://localhost:" + server.getAddress().getPort() + "/";
+        try (WebCrawler crawler = WebCrawler.createAsync(8, 2)) {
+            crawler.crawlAll(List.of(root + "1", root + "2"), 2).get(30, TimeUnit.SECONDS);
+        }
+        // each seed and the pages one link away from it, the root they share included
+        assertEquals(Set.of("/1", "/2", "/", "/3", "/4", "/5", "/6"), hits.keySet());
+    }
+
+    @Test
+    void findsThePageTheSearchPredicateMatchesWithEitherAlgorithm() throws IOException {
+        String root = "http://localhost:" + server.getAddress().getPort() + "/";
+        for (boolean async : new boolean[]{true, false}) {
+            WebCrawler.Builder builder = WebCrawler.builder()
+                    .searchPredicate(node -> node.getElement().getPathAndQuery().equals("/5"));
+            if (async) builder.async(4, 4);
+            try (WebCrawler crawler = builder.build()) {
+                assertEquals(Optional.of(root + "5"), crawler.crawlAndFind(root).map(CompactUrl::toString));
+            }
+            // the match is found before its page is fetched
+            assertTrue(hits.containsKey("/2"));
+            assertFalse(hits.containsKey("/5"));
+            hits.clear();
+        }
+    }
+
+    @Test
+    void followsNearDuplicatesUnlessAskedNotTo() throws IOException {
+        String root = "http://localhost:" + server.getAddress().getPort() + "/copies/";
+        try (WebCrawler crawler = WebCrawler.createAsync(4, 4)) {
+            crawler.crawl(root);
+        }
+        assertEquals(COPIES, copies.size());
+        copies.clear();
+        try (WebCrawler crawler = WebCrawler.builder().async(4, 4).nearDuplicates(new NearDuplicateIndex(3)).build()) {
+            crawler.crawl(root);
+        }
+        // the root and the two copies it links to, whose own links are not followed
+        assertEquals(3, copies.size());
+    }
+
+    @Test
+    void streamFetchesOnlyAsFastAsTheSubscriberConsumes() throws Exception {
+        List<WebCrawler.CrawledPage> pages = new CopyOnWriteArrayList<>();
+        AtomicInteger maxLag = new AtomicInteger();
+        CountDownLatch completed = new CountDownLatch(1);
+        try (WebCrawler crawler = WebCrawler.createAsync(4, 4)) {
+            crawler.stream("http://localhost:" + server.getAddress().getPort() + "/").subscribe(new Flow.Subscriber<CrawlResult<CompactUrl>>() {
+                private Flow.Subscription subscription;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onNext(CrawlResult<CompactUrl> result) {
+                    pages.add((WebCrawler.CrawledPage) result);
+                    maxLag.accumulateAndGet(hits.size() - pages.size(), Math::max);
+                    sleep(10);
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    completed.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    completed.countDown();
+                }
+            });
+            assertTrue(completed.await(30, TimeUnit.SECONDS));
+        }
+        assertEquals(PAGES, pages.size());
+        assertTrue(pages.stream().allMatch(page -> page.getPage() != null && page.getPage().getStatusCode() == 200));
+        // an unbounded hand-over would have fetched the whole site while the first pages were consumed
+        assertTrue(maxLag.get() <= 32, "fetched ahead by " + maxLag.get());
+    }
+
+    @Test
+    void cancellingTheStreamAbortsTheCrawl() throws Exception {
+        try (WebCrawler crawler = WebCrawler.createAsync(4, 4)) {
+            crawler.stream("http://localhost:" + server.getAddress().getPort() + "/").subscribe(new Flow.Subscriber<CrawlResult<CompactUrl>>() {
+                private Flow.Subscription subscription;
+                private int received;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onNext(CrawlResult<CompactUrl> result) {
+                    if (++received == 3) subscription.cancel();
+                    else subscription.request(1);
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                }
+
+                @Override
+                public void onComplete() {
+                }
+            });
+            sleep(1000);
+        }
+        assertTrue(hits.size() < PAGES / 4, "fetched " + hits.size());
+    }
+
+    @Test
+    void rejectsASecondStreamWhileOneIsRunning() throws Exception {
+        CompletableFuture<Throwable> rejected = new CompletableFuture<>();
+        CountDownLatch firstCompleted = new CountDownLatch(1);
+        try (WebCrawler crawler = WebCrawler.createAsync(4, 4)) {
+            String root = "http://localhost:" + server.getAddress().getPort() + "/";
+            crawler.stream(root).subscribe(new Flow.Subscriber<CrawlResult<CompactUrl>>() {
+                private Flow.Subscription subscription;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onNext(CrawlResult<CompactUrl> result) {
+                    sleep(5);
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    firstCompleted.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    firstCompleted.countDown();
+                }
+            });
+            crawler.stream(root).subscribe(new Flow.Subscriber<CrawlResult<CompactUrl>>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(CrawlResult<CompactUrl> result) {
+                    rejected.completeExceptionally(new AssertionError("second stream received " + result.getElement()));
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    rejected.complete(error);
+                }
+
+                @Override
+                public void onComplete() {
+                    rejected.completeExceptionally(new AssertionError("second stream completed"));
+                }
+            });
+            assertTrue(rejected.get(10, TimeUnit.SECONDS) instanceof IllegalStateException);
+            assertTrue(firstCompleted.await(30, TimeUnit.SECONDS));
+        }
+        // the first stream alone fetched the site, once
+        assertEquals(PAGES, hits.size());
+        hits.values().forEach(count -> assertEquals(1, count.get()));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.ilot.crawler.impl.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.OptionalLong;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NearDuplicateIndexTest {
+    private static final String[] WORDS = {
+            "crawler", "frontier", "visited", "fetch", "parse", "link", "host", "page", "queue", "thread",
+            "latency", "budget", "mirror", "session", "calendar", "archive", "index", "content", "shingle", "hash"};
+
+    @Test
+    void ignoresMarkupAndCase() {
+        long page = fingerprint(page("sid=1", 0, 7));
+        assertEquals(page, fingerprint(page("sid=2", 0, 7)));
+        assertEquals(page, fingerprint(page("sid=3", 0, 7).toUpperCase()));
+    }
+
+    @Test
+    void findsPagesAFewWordsApart() {
+        NearDuplicateIndex index = new NearDuplicateIndex(3);
+        assertTrue(index.addIfDistinct(fingerprint(page("a", 0, 7))));
+        // the same article with a different date line
+        assertFalse(index.addIfDistinct(fingerprint(page("b", 0, 7) + "<p>updated 2026 10 18</p>")));
+        // another article
+        assertTrue(index.addIfDistinct(fingerprint(page("c", 3, 13))));
+        assertEquals(2, index.size());
+        assertEquals(1, index.duplicates());
+    }
+
+    @Test
+    void lookupIsExactWithinTheDistance() {
+        NearDuplicateIndex index = new NearDuplicateIndex(3);
+        long fingerprint = 0x0123456789abcdefL;
+        index.addIfDistinct(fingerprint);
+        // three bits flipped in three different blocks, and four bits in one
+        assertTrue(index.containsNear(fingerprint ^ 1L ^ (1L << 20) ^ (1L << 40)));
+        assertFalse(index.containsNear(fingerprint ^ 0xfL));
+        assertFalse(index.containsNear(~fingerprint));
+    }
+
+    @Test
+    void findsEveryFingerprintWithinTheDistanceOnKeysOfSixteenBitsOrMore() {
+        Random random = new Random(7);
+        for (int maxDistance = 0; maxDistance <= 7; maxDistance++) {
+            NearDuplicateIndex index = new NearDuplicateIndex(maxDistance);
+            assertTrue(index.keyBits() >= 16, "keys of " + index.keyBits() + " bits at distance " + maxDistance);
+            long fingerprint = random.nextLong();
+            index.addIfDistinct(fingerprint);
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(index.containsNear(fingerprint ^ randomBits(random, maxDistance)));
+                assertFalse(index.containsNear(fingerprint ^ randomBits(random, maxDistance + 1)));
+            }
+        }
+        assertEquals(4, new NearDuplicateIndex(3).tables());
+        assertEquals(120, new NearDuplicateIndex(7).tables());
+    }
+
+    @Test
+    void ignoresScriptsAndStyles() {
+        String code = "<script type=\"text/javascript\">var tracking = {session: 42, page: 'home'};</script>"
+                + "<STYLE>body { margin: 0 auto; font: 12px sans-serif }</STYLE>";
+        String page = page("a", 0, 7);
+        assertEquals(fingerprint(page), fingerprint(page.replace("<p>", code + "<p>")));
+        // only a script or style element hides its text, and one left open hides the rest of the page
+        assertEquals(fingerprint(page), fingerprint(page.replace("<p>", "<scripture><p>")));
+        assertFalse(SimHash.of(("<script>" + page).getBytes(StandardCharsets.UTF_8), 16).isPresent());
+    }
+
+    @Test
+    void leavesShortPagesAlone() {
+        assertFalse(SimHash.of("<html><body>root 1 2</body></html>".getBytes(StandardCharsets.UTF_8), 16).isPresent());
+    }
+
+    // a few hundred words of text cycling through a stride of the word list, with a session id in its links
+    private static String page(String sessionId, int offset, int stride) {
+        StringBuilder html = new StringBuilder("<html><body><a href=\"/home?").append(sessionId).append("\">Home</a><p>");
+        for (int i = 0; i < 300; i++) {
+            html.append(WORDS[(offset + i * stride + i / WORDS.length) % WORDS.length]).append(i % 12 == 11 ? ". " : " ");
+        }
+        return html.append("</p></body></html>").toString();
+    }
+
+    private static long randomBits(Random random, int count) {
+        long bits = 0L;
+        while (Long.bitCount(bits) < count) {
+            bits |= 1L << random.nextInt(Long.SIZE);
+        }
+        return bits;
+    }
+
+    private static long fingerprint(String html) {
+        OptionalLong fingerprint = SimHash.of(html.getBytes(StandardCharsets.UTF_8), 16);
+        assertTrue(fingerprint.isPresent());
+        return fingerprint.getAsLong();
+    }
+}
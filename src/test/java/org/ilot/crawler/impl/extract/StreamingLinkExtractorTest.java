@@ -0,0 +1,72 @@
+package org.ilot.crawler.impl.extract;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreamingLinkExtractorTest {
+    private static final String URL = "http://example.com/dir/page.html";
+
+    private final StreamingLinkExtractor extractor = new StreamingLinkExtractor();
+
+    @Test
+    void resolvesAgainstFirstBase() throws IOException {
+        Set<String> links = extract(extractor,
+                "<base href='/other/'><base href='/ignored/'><a href=a.html>a</a><a href=\"../b.html\">b</a>");
+        assertEquals(set("http://example.com/other/a.html", "http://example.com/b.html"), links);
+    }
+
+    @Test
+    void skipsCommentsScriptsAndStyles() throws IOException {
+        Set<String> links = extract(extractor,
+                "<!-- <a href='/comment'> --><script>var a = '<a href=\"/script\">'; var b = '</scriptx>';</script>"
+                        + "<style>a:after { content: '<a href=/style>' }</STYLE ><A HREF = '/kept' >x</A>");
+        assertEquals(set("http://example.com/kept"), links);
+    }
+
+    @Test
+    void decodesEntitiesAndCharset() throws IOException {
+        byte[] page = "<a href=\"/search?q=caf&#233;&amp;p=2\">x</a><a href='/é'>y</a><a href=\"\">self</a>"
+                .getBytes(StandardCharsets.ISO_8859_1);
+        Set<String> links = extractor.extract(new ByteArrayInputStream(page), StandardCharsets.ISO_8859_1, URL);
+        assertEquals(set("http://example.com/search?q=café&p=2", "http://example.com/é", URL), links);
+    }
+
+    @Test
+    void stopsAtByteBudget() throws IOException {
+        String page = "<a href='/first'>1</a><a href='/second'>2</a>";
+        Set<String> links = extract(new StreamingLinkExtractor(page.indexOf("<a href='/second'")), page);
+        assertEquals(set("http://example.com/first"), links);
+    }
+
+    @Test
+    void matchesJsoupOnCorpus() throws IOException {
+        JsoupLinkExtractor jsoup = new JsoupLinkExtractor();
+        for (String name : Arrays.asList("blog-article.html", "docs-with-base.html", "news-front-page.html")) {
+            String url = "https://www.example.com/section/sub/" + name;
+            assertEquals(extract(jsoup, name, url), extract(extractor, name, url), name);
+        }
+    }
+
+    private static Set<String> extract(LinkExtractor extractor, String page) throws IOException {
+        return extractor.extract(new ByteArrayInputStream(page.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8, URL);
+    }
+
+    private static Set<String> extract(LinkExtractor extractor, String name, String url) throws IOException {
+        try (InputStream body = StreamingLinkExtractorTest.class.getResourceAsStream("/corpus/" + name)) {
+            return extractor.extract(body, StandardCharsets.UTF_8, url);
+        }
+    }
+
+    private static Set<String> set(String... links) {
+        return new HashSet<>(Arrays.asList(links));
+    }
+}
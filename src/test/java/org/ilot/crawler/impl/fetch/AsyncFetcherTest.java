@@ -0,0 +1,171 @@
+package org.ilot.crawler.impl.fetch;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.ilot.crawler.metrics.CrawlMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncFetcherTest {
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = "<html></html>".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void reusesKeptAliveConnections() throws IOException {
+        AtomicInteger lookups = new AtomicInteger();
+        CachingDnsResolver dnsResolver = new CachingDnsResolver(host -> {
+            lookups.incrementAndGet();
+            return new InetAddress[]{InetAddress.getLoopbackAddress()};
+        }, 1, 1, TimeUnit.MINUTES, System::nanoTime);
+        try (AsyncFetcher fetcher = new AsyncFetcher(4, 1, 30_000L, 10_000L, dnsResolver, CrawlMetrics.disabled())) {
+            for (int i = 0; i < 20; i++) {
+                Page page = fetcher.fetch("http://localhost:" + server.getAddress().getPort() + "/" + i, 1000L).join();
+                assertEquals(200, page.getStatusCode());
+            }
+            assertEquals(20, fetcher.requests());
+            assertEquals(1, fetcher.connectionsOpened());
+            assertEquals(0.95d, fetcher.connectionReuseRatio(), 1e-9);
+        }
+        assertTrue(lookups.get() <= 1);
+    }
+
+    @Test
+    void sendsAGetAgainOnceWhenItsKeptAliveConnectionIsDropped() throws IOException {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        List<String> requests = new CopyOnWriteArrayList<>();
+        try (ServerSocket stub = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            CompletableFuture<Void> served = CompletableFuture.runAsync(() -> {
+                try {
+                    // answers the first request and keeps the connection, then hangs up on the second
+                    try (Socket socket = stub.accept()) {
+                        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                        requests.add(readRequest(in));
+                        respond(socket.getOutputStream());
+                        requests.add(readRequest(in));
+                    }
+                    try (Socket socket = stub.accept()) {
+                        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                        requests.add(readRequest(in));
+                        respond(socket.getOutputStream());
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            String root = "http://127.0.0.1:" + stub.getLocalPort() + "/";
+            try (AsyncFetcher fetcher = new AsyncFetcher(4, 1, new CrawlMetrics(registry))) {
+                assertEquals(200, fetcher.fetch(root + "first", 5000L).join().getStatusCode());
+                assertEquals(200, fetcher.fetch(root + "second", 5000L).join().getStatusCode());
+                assertEquals(2, fetcher.requests());
+                assertEquals(2, fetcher.connectionsOpened());
+            }
+            served.join();
+        }
+        assertEquals(List.of("GET /first HTTP/1.1", "GET /second HTTP/1.1", "GET /second HTTP/1.1"), requests);
+        assertEquals(2, registry.get("crawler.stage.duration").tag("stage", "fetch").timer().count());
+        assertEquals(2d, registry.get("crawler.fetches").tag("status", "2xx").counter().count());
+    }
+
+    @Test
+    void cachesLookupsAndFailuresUntilTheyExpire() throws UnknownHostException {
+        AtomicLong now = new AtomicLong();
+        AtomicInteger lookups = new AtomicInteger();
+        InetAddress[] addresses = {InetAddress.getLoopbackAddress()};
+        CachingDnsResolver dnsResolver = new CachingDnsResolver(host -> {
+            lookups.incrementAndGet();
+            if (host.equals("missing.example")) throw new UnknownHostException(host);
+            return addresses;
+        }, 10, 2, TimeUnit.SECONDS, now::get);
+
+        assertArrayEquals(addresses, dnsResolver.resolve("a.example"));
+        assertArrayEquals(addresses, dnsResolver.resolve("a.example"));
+        assertThrows(UnknownHostException.class, () -> dnsResolver.resolve("missing.example"));
+        assertThrows(UnknownHostException.class, () -> dnsResolver.resolve("missing.example"));
+        assertEquals(2, lookups.get());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        assertThrows(UnknownHostException.class, () -> dnsResolver.resolve("missing.example"));
+        dnsResolver.resolve("a.example");
+        assertEquals(3, lookups.get());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        dnsResolver.evictExpired();
+        assertEquals(0, dnsResolver.size());
+        dnsResolver.resolve("a.example");
+        assertEquals(4, lookups.get());
+        assertEquals(3, dnsResolver.hits());
+    }
+
+    @Test
+    void failsFetchesToUnresolvableHosts() throws IOException {
+        CachingDnsResolver dnsResolver = new CachingDnsResolver(host -> {
+            throw new UnknownHostException(host);
+        }, 1, 1, TimeUnit.MINUTES, System::nanoTime);
+        try (AsyncFetcher fetcher = new AsyncFetcher(4, 1, 30_000L, 10_000L, dnsResolver, CrawlMetrics.disabled())) {
+            CompletionException error = assertThrows(CompletionException.class,
+                    () -> fetcher.fetch("http://nowhere.example/", 1000L).join());
+            assertEquals(CrawlMetrics.ErrorType.CONNECTION, CrawlMetrics.ErrorType.of(error));
+        }
+    }
+
+    // the request line, the headers up to the blank line are skipped
+    private static String readRequest(BufferedReader in) throws IOException {
+        String requestLine = in.readLine();
+        String line = requestLine;
+        while (line != null && !line.isEmpty()) line = in.readLine();
+        return requestLine;
+    }
+
+    private static void respond(OutputStream out) throws IOException {
+        out.write(("HTTP/1.1 200 OK\r\n"
+                + "Content-Type: text/html; charset=utf-8\r\n"
+                + "Content-Length: 13\r\n"
+                + "\r\n"
+                + "<html></html>").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+}
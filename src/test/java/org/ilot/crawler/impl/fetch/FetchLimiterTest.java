@@ -0,0 +1,113 @@
+package org.ilot.crawler.impl.fetch;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FetchLimiterTest {
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void growsInSlowStartAndHalvesOnDrop() {
+        AtomicLong now = new AtomicLong();
+        AdaptiveLimit limit = new AdaptiveLimit(1, 4, 64, 0.5d, 2.0d, now::get);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        assertFalse(limit.tryAcquire());
+        // the last two completions leave the limit less than half used
+        for (int i = 0; i < 4; i++) {
+            limit.onSuccess(RTT);
+        }
+        assertEquals(6, limit.getLimit());
+
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        limit.onDropped();
+        assertEquals(3, limit.getLimit());
+        // a second drop within the same round trip is the same congestion
+        limit.onDropped();
+        assertEquals(3, limit.getLimit());
+
+        now.addAndGet(2 * RTT);
+        assertTrue(limit.tryAcquire());
+        limit.onSuccess(3 * RTT);
+        assertEquals(1, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    void growsByOnePerWindowOnceOutOfSlowStart() {
+        AdaptiveLimit limit = new AdaptiveLimit(1, 4, 64, 0.5d, 2.0d, () -> 0L);
+        assertTrue(limit.tryAcquire());
+        limit.onDropped();
+        assertEquals(2, limit.getLimit());
+
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        limit.onSuccess(RTT);
+        assertEquals(2, limit.getLimit());
+        limit.onSuccess(RTT);
+        assertEquals(3, limit.getLimit());
+
+        // nothing is learned while the limit is barely used
+        for (int i = 0; i < 16; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.onSuccess(RTT);
+        }
+        assertEquals(3, limit.getLimit());
+    }
+
+    @Test
+    void queuesFetchesOverTheHostLimitUntilEarlierOnesComplete() {
+        FetchLimiter limiter = new FetchLimiter(new AdaptiveLimit(1, 4, 4), () -> new AdaptiveLimit(1, 1, 1));
+        List<FetchLimiter.Permit> started = new ArrayList<>();
+        List<String> order = new ArrayList<>();
+
+        for (String fetch : new String[]{"a1", "a2", "b1", "a3"}) {
+            limiter.submit(fetch.substring(0, 1), new CompletableFuture<>(), permit -> {
+                order.add(fetch);
+                started.add(permit);
+            });
+        }
+        assertEquals(List.of("a1", "b1"), order);
+        assertEquals(2, limiter.getWaiting());
+
+        started.get(0).completed(200);
+        assertEquals(List.of("a1", "b1", "a2"), order);
+        started.get(2).failed(new SocketTimeoutException());
+        assertEquals(List.of("a1", "b1", "a2", "a3"), order);
+        assertEquals(0, limiter.getWaiting());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    void skipsFetchesCancelledWhileWaiting() {
+        FetchLimiter limiter = new FetchLimiter(new AdaptiveLimit(1, 1, 1), () -> new AdaptiveLimit(1, 1, 4));
+        List<FetchLimiter.Permit> started = new ArrayList<>();
+        CompletableFuture<Object> cancelled = new CompletableFuture<>();
+
+        limiter.submit("a", new CompletableFuture<>(), started::add);
+        limiter.submit("b", cancelled, started::add);
+        limiter.submit("c", new CompletableFuture<>(), started::add);
+        cancelled.cancel(false);
+
+        started.get(0).cancelled();
+        assertEquals(2, started.size());
+        assertEquals(0, limiter.getWaiting());
+        started.get(1).completed(200);
+        assertEquals(0, limiter.getInFlight());
+        limiter.evictIdle(0L);
+        assertEquals(0, limiter.hosts());
+    }
+}
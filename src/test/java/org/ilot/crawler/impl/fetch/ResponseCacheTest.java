@@ -0,0 +1,175 @@
+package org.ilot.crawler.impl.fetch;
+
+import com.sun.net.httpserver.HttpServer;
+import org.ilot.crawler.impl.WebCrawler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseCacheTest {
+    private static final int PAGES = 31;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void survivesReopeningAcrossSegments() throws IOException {
+        try (ResponseCache cache = new ResponseCache(directory, 256)) {
+            for (int i = 0; i < 20; i++) {
+                cache.put("http://a.com/" + i, page(i, "\"v" + i + "\"", null), List.of("http://a.com/" + (i + 1)));
+            }
+            cache.put("http://a.com/plain", page(99, null, null), List.of());
+            // read back before anything was synced
+            assertArrayEquals(html(19), cache.revalidated("http://a.com/19").getPage().getContent());
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.filter(path -> path.getFileName().toString().startsWith("segment-")).count() > 1);
+        }
+        try (ResponseCache cache = new ResponseCache(directory, 256)) {
+            assertEquals(20, cache.size());
+            assertNull(cache.lookup("http://a.com/plain"));
+            assertEquals("\"v7\"", cache.lookup("http://a.com/7").getEtag());
+            ResponseCache.CachedResponse cached = cache.revalidated("http://a.com/7");
+            assertArrayEquals(html(7), cached.getPage().getContent());
+            assertEquals(List.of("http://a.com/8"), cached.getLinks());
+            assertEquals(StandardCharsets.UTF_8, cached.getPage().getCharset());
+            assertEquals(0.5d, cache.hitRatio());
+            assertEquals(1d, cache.revalidationRatio());
+        }
+    }
+
+    @Test
+    void dropsAnIndexRecordCutShort() throws IOException {
+        try (ResponseCache cache = new ResponseCache(directory)) {
+            cache.put("http://a.com/1", page(1, null, "Sat, 17 Oct 2026 10:00:00 GMT"), List.of());
+        }
+        // a length prefix of 16 followed by two of its bytes
+        Files.write(directory.resolve("index.log"), new byte[]{16, 1, 2}, StandardOpenOption.APPEND);
+        try (ResponseCache cache = new ResponseCache(directory)) {
+            assertEquals(1, cache.size());
+            cache.put("http://a.com/2", page(2, "\"v2\"", null), List.of());
+        }
+        try (ResponseCache cache = new ResponseCache(directory)) {
+            assertEquals("Sat, 17 Oct 2026 10:00:00 GMT", cache.lookup("http://a.com/1").getLastModified());
+            assertArrayEquals(html(2), cache.revalidated("http://a.com/2").getPage().getContent());
+        }
+    }
+
+    @Test
+    void recrawlRevalidatesInsteadOfDownloading() throws IOException {
+        Map<String, AtomicInteger> downloads = new ConcurrentHashMap<>();
+        AtomicInteger notModified = new AtomicInteger();
+        HttpServer server = startServer(downloads, notModified);
+        String root = "http://localhost:" + server.getAddress().getPort() + "/";
+        try {
+            try (ResponseCache cache = new ResponseCache(directory)) {
+                crawl(root, cache);
+                assertEquals(PAGES, cache.size());
+                assertEquals(0d, cache.hitRatio());
+            }
+            try (ResponseCache cache = new ResponseCache(directory)) {
+                crawl(root, cache);
+                assertEquals(1d, cache.hitRatio());
+                assertEquals(1d, cache.revalidationRatio());
+            }
+        } finally {
+            server.stop(0);
+        }
+        // the second crawl found every page through the cached links alone
+        assertEquals(PAGES, downloads.size());
+        downloads.values().forEach(count -> assertEquals(1, count.get()));
+        assertEquals(PAGES, notModified.get());
+    }
+
+    @Test
+    void downloadsAPageAgainWhenItsRecordIsUnreadable() throws IOException {
+        Map<String, AtomicInteger> downloads = new ConcurrentHashMap<>();
+        AtomicInteger notModified = new AtomicInteger();
+        HttpServer server = startServer(downloads, notModified);
+        String root = "http://localhost:" + server.getAddress().getPort() + "/";
+        try {
+            try (ResponseCache cache = new ResponseCache(directory)) {
+                crawl(root, cache);
+            }
+            List<Path> segments;
+            try (Stream<Path> files = Files.list(directory)) {
+                segments = files.filter(path -> path.getFileName().toString().startsWith("segment-")).collect(Collectors.toList());
+            }
+            // same length, so the index still takes every record for whole
+            for (Path segment : segments) {
+                Files.write(segment, new byte[(int) Files.size(segment)]);
+            }
+            try (ResponseCache cache = new ResponseCache(directory)) {
+                crawl(root, cache);
+            }
+        } finally {
+            server.stop(0);
+        }
+        // every 304 was followed by a full download, and its links by the rest of the site
+        assertEquals(PAGES, notModified.get());
+        assertEquals(PAGES, downloads.size());
+        downloads.values().forEach(count -> assertEquals(2, count.get()));
+    }
+
+    // page i links to its children 2i+1 and 2i+2, every page has one version
+    private static HttpServer startServer(Map<String, AtomicInteger> downloads, AtomicInteger notModified) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            int page = path.equals("/") ? 0 : Integer.parseInt(path.substring(1));
+            String etag = "\"" + page + "\"";
+            exchange.getResponseHeaders().add("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            downloads.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+            StringBuilder html = new StringBuilder("<html><body>");
+            for (int child = 2 * page + 1; child <= 2 * page + 2 && child < PAGES; child++) {
+                html.append("<a href=\"/").append(child).append("\">").append(child).append("</a>");
+            }
+            byte[] body = html.append("</body></html>").toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private static void crawl(String root, ResponseCache cache) throws IOException {
+        try (WebCrawler crawler = WebCrawler.builder().async(8, 4).responseCache(cache).build()) {
+            crawler.crawl(root);
+        }
+    }
+
+    private static Page page(int i, String etag, String lastModified) {
+        return new Page("http://a.com/" + i, 200, "text/html", StandardCharsets.UTF_8, html(i), etag, lastModified);
+    }
+
+    private static byte[] html(int i) {
+        return ("<html><body>page " + i + "</body></html>").getBytes(StandardCharsets.UTF_8);
+    }
+}
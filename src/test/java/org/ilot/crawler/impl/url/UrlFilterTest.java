@@ -0,0 +1,80 @@
+package org.ilot.crawler.impl.url;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UrlFilterTest {
+    private final UrlCanonicalizer canonicalizer = new UrlCanonicalizer();
+
+    private final UrlFilter filter = new UrlFilter(
+            List.of("example.com", "*.docs.org"),
+            List.of("/blog/", "/docs/"),
+            List.of("/blog/drafts/"),
+            List.of("pdf", ".ZIP"),
+            List.of("[?&]sessionid=", "/print(/|$)"));
+
+    @Test
+    void allowsHostsBySuffixOnLabelBoundaries() {
+        assertTrue(accepts("http://example.com/blog/a"));
+        assertTrue(accepts("https://www.example.com/blog/a"));
+        assertTrue(accepts("https://api.docs.org/docs/x"));
+        assertTrue(accepts("https://docs.org/docs/x"));
+        assertFalse(accepts("http://badexample.com/blog/a"));
+        assertFalse(accepts("http://example.com.evil.net/blog/a"));
+        assertEquals(2, filter.rejected(UrlFilter.Rule.HOST));
+    }
+
+    @Test
+    void longestPathPrefixWins() {
+        assertTrue(accepts("http://example.com/blog/post?page=2"));
+        assertFalse(accepts("http://example.com/blog/drafts/next"));
+        assertFalse(accepts("http://example.com/about"));
+        // the query is not part of the path
+        assertFalse(accepts("http://example.com/?next=/blog/"));
+        assertEquals(3, filter.rejected(UrlFilter.Rule.PATH));
+    }
+
+    @Test
+    void blocksExtensionsOfTheLastSegmentOnly() {
+        assertFalse(accepts("http://example.com/blog/paper.PDF"));
+        assertFalse(accepts("http://example.com/docs/all.zip?v=1"));
+        assertTrue(accepts("http://example.com/blog/v1.pdf/index"));
+        assertTrue(accepts("http://example.com/blog/pdf"));
+        assertEquals(2, filter.rejected(UrlFilter.Rule.EXTENSION));
+    }
+
+    @Test
+    void countsRejectionsByPattern() {
+        assertFalse(accepts("http://example.com/blog/a?sessionid=1"));
+        assertFalse(accepts("http://example.com/blog/a?b=2&sessionid=1"));
+        assertFalse(accepts("http://example.com/blog/a/print"));
+        assertTrue(accepts("http://example.com/blog/printer"));
+        Map<String, Long> rejected = filter.rejectedByPattern();
+        assertEquals(2L, rejected.get("[?&]sessionid="));
+        assertEquals(1L, rejected.get("/print(/|$)"));
+        assertEquals(3, filter.rejected(UrlFilter.Rule.PATTERN));
+    }
+
+    @Test
+    void emptyRulesAcceptEverything() {
+        UrlFilter acceptAll = UrlFilter.acceptAll();
+        assertTrue(acceptAll.test(canonicalizer.canonicalize("http://anything.net/x.pdf?sessionid=1")));
+        UrlFilter hostsOnly = new UrlFilter(Collections.singleton("a.com"), Collections.emptySet(),
+                Collections.emptySet(), Collections.emptySet(), Arrays.asList("(x)(y)", "z"));
+        assertFalse(hostsOnly.test(canonicalizer.canonicalize("http://b.com/")));
+        assertFalse(hostsOnly.test(canonicalizer.canonicalize("http://a.com/z")));
+        assertEquals(1L, hostsOnly.rejectedByPattern().get("z"));
+    }
+
+    private boolean accepts(String url) {
+        return filter.test(canonicalizer.canonicalize(url));
+    }
+}
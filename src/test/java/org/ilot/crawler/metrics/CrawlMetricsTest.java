@@ -0,0 +1,100 @@
+package org.ilot.crawler.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.ilot.crawler.algorithms.concurrent.ExecutorServiceFactory;
+import org.ilot.crawler.algorithms.concurrent.ExecutorServiceType;
+import org.ilot.crawler.algorithms.concurrent.UnorderedSearch;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrawlMetricsTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CrawlMetrics metrics = new CrawlMetrics(registry);
+
+    @Test
+    void classifiesErrorsAndStatusCodes() {
+        metrics.error(new CompletionException(new SocketTimeoutException()));
+        metrics.error(new IllegalStateException());
+        metrics.fetched(200);
+        metrics.fetched(404);
+        metrics.fetched(999);
+
+        assertEquals(1d, registry.get("crawler.errors").tag("type", "timeout").counter().count());
+        assertEquals(1d, registry.get("crawler.errors").tag("type", "other").counter().count());
+        assertEquals(1d, registry.get("crawler.fetches").tag("status", "2xx").counter().count());
+        assertEquals(1d, registry.get("crawler.fetches").tag("status", "4xx").counter().count());
+        assertEquals(1d, registry.get("crawler.fetches").tag("status", "other").counter().count());
+    }
+
+    @Test
+    void recordsWithoutAllocating() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        SocketTimeoutException timeout = new SocketTimeoutException();
+        // long enough for the debug-level check of error() to be compiled as well
+        for (int i = 0; i < 200_000; i++) {
+            record(timeout);
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100_000; i++) {
+            record(timeout);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertTrue(allocated < 1024, "allocated " + allocated + " bytes");
+    }
+
+    private void record(Throwable error) {
+        long start = CrawlMetrics.start();
+        metrics.record(CrawlMetrics.Stage.EXPAND, start);
+        metrics.error(error);
+        metrics.fetched(200);
+    }
+
+    @Test
+    void keepsTheGaugesOfCrawlersSharingARegistryApart() {
+        AtomicInteger first = new AtomicInteger(1);
+        AtomicInteger second = new AtomicInteger(2);
+        metrics.gauge("crawler.test", first, AtomicInteger::get);
+        metrics.named("second").gauge("crawler.test", second, AtomicInteger::get);
+
+        assertEquals(1d, registry.get("crawler.test").tag("crawler", "crawler").gauge().value());
+        assertEquals(2d, registry.get("crawler.test").tag("crawler", "second").gauge().value());
+        // registered again under the same tag, the gauge would go on reading the first source
+        assertThrows(IllegalStateException.class, () -> metrics.gauge("crawler.test", second, AtomicInteger::get));
+        CrawlMetrics.disabled().gauge("crawler.test", second, AtomicInteger::get);
+    }
+
+    @Test
+    void countsWorkerFailuresAndKeepsCrawling() {
+        AtomicInteger expanded = new AtomicInteger();
+        UnorderedSearch<Integer> search = new UnorderedSearch<>(
+                ExecutorServiceFactory.createCustomExecutorService(ExecutorServiceType.EXECUTOR_SERVICE, 4),
+                (node, timeout) -> {
+                    if (node == 2) throw new IllegalStateException("broken page");
+                    return node < 4 ? new HashSet<>(Arrays.asList(2 * node + 1, 2 * node + 2)) : new HashSet<>();
+                },
+                Function.identity(),
+                node -> false,
+                100L,
+                0L);
+        search.instrument(metrics);
+        search.addListener((node, neighbours) -> expanded.incrementAndGet());
+        search.traverse(0);
+
+        assertEquals(1d, registry.get("crawler.errors").tag("type", "other").counter().count());
+        // 0 -> 1, 2 -> 1 -> 3, 4 -> 3 -> 7, 8; everything but the failing 2 expands
+        assertEquals(6, expanded.get());
+        assertTrue(registry.get("crawler.stage.duration").tag("stage", "expand").timer().count() >= 7);
+        assertEquals(0d, registry.get("crawler.tasks.in-flight").gauge().value());
+    }
+}
@@ -0,0 +1,95 @@
+package org.ilot.crawler.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpillingQueueTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void keepsFifoOrderAcrossSpilledSegments() throws IOException {
+        try (SpillingQueue<String> queue = new SpillingQueue<>(directory, Codecs.UTF8_STRING, 100, 4096)) {
+            int added = 0;
+            int polled = 0;
+            // interleave so reads hit the head, sealed segments, the segment being written and the tail
+            for (int round = 0; round < 50; round++) {
+                for (int i = 0; i < 300; i++) {
+                    queue.add("http://example.com/" + added++);
+                }
+                for (int i = 0; i < 200; i++) {
+                    assertEquals("http://example.com/" + polled++, queue.poll());
+                }
+            }
+            assertTrue(queue.spilledElements() > 0);
+            assertEquals(added - polled, queue.longSize());
+            while (!queue.isEmpty()) {
+                assertEquals("http://example.com/" + polled++, queue.poll());
+            }
+            assertEquals(added, polled);
+            assertNull(queue.poll());
+            try (Stream<Path> files = Files.list(directory)) {
+                assertTrue(files.count() <= 1);
+            }
+        }
+    }
+
+    @Test
+    void spillsNextToSegmentsLeftInTheDirectory() throws IOException {
+        Path stale = Files.write(directory.resolve("segment-0.bin"), new byte[]{1, 2, 3});
+        try (SpillingQueue<String> first = new SpillingQueue<>(directory, Codecs.UTF8_STRING, 10, 256);
+             SpillingQueue<String> second = new SpillingQueue<>(directory, Codecs.UTF8_STRING, 10, 256)) {
+            for (int i = 0; i < 100; i++) {
+                first.add("first" + i);
+                second.add("second" + i);
+            }
+            assertTrue(first.spilledElements() > 0 && second.spilledElements() > 0);
+            for (int i = 0; i < 100; i++) {
+                assertEquals("first" + i, first.poll());
+                assertEquals("second" + i, second.poll());
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of(stale), files.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void iteratesInQueueOrderWithoutConsuming() throws IOException {
+        try (SpillingQueue<String> queue = new SpillingQueue<>(directory, Codecs.UTF8_STRING, 10, 256)) {
+            for (int i = 0; i < 100; i++) queue.add("e" + i);
+            for (int i = 0; i < 15; i++) queue.poll();
+            assertTrue(queue.spilledElements() > 0);
+
+            List<String> expected = new ArrayList<>();
+            for (int i = 15; i < 100; i++) expected.add("e" + i);
+            assertEquals(expected, new ArrayList<>(queue));
+            assertTrue(queue.contains("e50"));
+            assertFalse(queue.contains("e3"));
+            assertEquals(85, queue.longSize());
+            assertEquals("e15", queue.poll());
+
+            Iterator<String> iterator = queue.iterator();
+            iterator.next();
+            queue.add("e100");
+            assertThrows(ConcurrentModificationException.class, iterator::next);
+        }
+    }
+}